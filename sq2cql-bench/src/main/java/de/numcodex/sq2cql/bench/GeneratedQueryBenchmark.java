@@ -0,0 +1,79 @@
+package de.numcodex.sq2cql.bench;
+
+import de.numcodex.sq2cql.QueryGenerator;
+import de.numcodex.sq2cql.QueryGenerator.Parameters;
+import de.numcodex.sq2cql.TranslationOption;
+import de.numcodex.sq2cql.Translator;
+import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.DefaultExpression;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Translator#toCql(StructuredQuery)} and {@link Container#print()} on Structured Queries generated by
+ * the {@link QueryGenerator} at different scales.
+ * <p>
+ * Unlike the bundled examples, the generated queries contain criteria expanding to hundreds of codes, which is where
+ * the combination of expressions and the expansion of concepts dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedQueryBenchmark {
+
+    @Param({"1", "10"})
+    public int criteriaPerGroup;
+
+    @Param({"1", "3"})
+    public int treeDepth;
+
+    @Param({"5"})
+    public int treeFanOut;
+
+    @Param({"1"})
+    public int attributeFiltersPerCriterion;
+
+    @Param({"0.1"})
+    public double referenceRatio;
+
+    @Param({"0.1"})
+    public double medicationRatio;
+
+    private Translator translator;
+    private Translator libraryBuilderTranslator;
+    private StructuredQuery structuredQuery;
+    private Container<DefaultExpression> container;
+
+    @Setup
+    public void setUp() {
+        var generator = QueryGenerator.of(Parameters.DEFAULT
+                .withCriteriaPerGroup(criteriaPerGroup)
+                .withTree(treeDepth, treeFanOut)
+                .withAttributeFiltersPerCriterion(attributeFiltersPerCriterion)
+                .withRatios(referenceRatio, medicationRatio));
+        translator = Translator.of(generator.mappingContext());
+        libraryBuilderTranslator = translator.withOptions(TranslationOption.LIBRARY_BUILDER);
+        structuredQuery = generator.structuredQuery();
+        container = translator.toCql(structuredQuery);
+    }
+
+    @Benchmark
+    public Container<DefaultExpression> toCql() {
+        return translator.toCql(structuredQuery);
+    }
+
+    @Benchmark
+    public Container<DefaultExpression> toCqlWithLibraryBuilder() {
+        return libraryBuilderTranslator.toCql(structuredQuery);
+    }
+
+    @Benchmark
+    public String print() {
+        return container.print();
+    }
+}
@@ -0,0 +1,92 @@
+package de.numcodex.sq2cql.bench;
+
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import static de.numcodex.sq2cql.bench.MappingLoader.CONCEPT_TREE_ENTRY;
+import static de.numcodex.sq2cql.bench.MappingLoader.MAPPINGS_ENTRY;
+
+/**
+ * Measures each {@link MappingLoader stage} of loading the {@link MappingContext} of {@code mapping.zip} and the whole
+ * load.
+ * <p>
+ * The input of each stage is prepared once, so that only the stage itself is measured. Together with the GC profiler
+ * the allocation of each stage is reported. The {@link MappingLoadReport} reports the same stages of a single cold
+ * load together with the peak heap usage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingLoadBenchmark {
+
+    private ZipFile zipFile;
+    private byte[] mappingsJson;
+    private byte[] conceptTreeJson;
+    private Mapping[] mappings;
+    private MappingTreeModuleRoot[] moduleRoots;
+    private Map<ContextualTermCode, Mapping> mappingsIndex;
+    private MappingTreeBase conceptTree;
+
+    @Setup
+    public void setUp() throws IOException {
+        zipFile = new ZipFile(Ontology.MAPPING_ZIP);
+        mappingsJson = MappingLoader.inflate(zipFile, MAPPINGS_ENTRY);
+        conceptTreeJson = MappingLoader.inflate(zipFile, CONCEPT_TREE_ENTRY);
+        mappings = MappingLoader.deserializeMappings(mappingsJson);
+        moduleRoots = MappingLoader.deserializeConceptTree(conceptTreeJson);
+        mappingsIndex = MappingLoader.indexMappings(mappings);
+        conceptTree = MappingLoader.conceptTree(moduleRoots);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        zipFile.close();
+    }
+
+    @Benchmark
+    public byte[] inflateMappings() throws IOException {
+        return MappingLoader.inflate(zipFile, MAPPINGS_ENTRY);
+    }
+
+    @Benchmark
+    public byte[] inflateConceptTree() throws IOException {
+        return MappingLoader.inflate(zipFile, CONCEPT_TREE_ENTRY);
+    }
+
+    @Benchmark
+    public Mapping[] deserializeMappings() throws IOException {
+        return MappingLoader.deserializeMappings(mappingsJson);
+    }
+
+    @Benchmark
+    public MappingTreeModuleRoot[] deserializeConceptTree() throws IOException {
+        return MappingLoader.deserializeConceptTree(conceptTreeJson);
+    }
+
+    @Benchmark
+    public Map<ContextualTermCode, Mapping> indexMappings() {
+        return MappingLoader.indexMappings(mappings);
+    }
+
+    @Benchmark
+    public MappingContext mappingContext() {
+        return MappingLoader.mappingContext(mappingsIndex, conceptTree);
+    }
+
+    @Benchmark
+    public MappingContext load() throws IOException {
+        return MappingLoader.load(zipFile);
+    }
+}
@@ -0,0 +1,102 @@
+package de.numcodex.sq2cql.bench;
+
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import static de.numcodex.sq2cql.bench.MappingLoader.CONCEPT_TREE_ENTRY;
+import static de.numcodex.sq2cql.bench.MappingLoader.MAPPINGS_ENTRY;
+
+/**
+ * Reports the time and allocation of each {@link MappingLoader stage} of loading the {@link MappingContext} of {@code
+ * mapping.zip}, the peak heap usage during the load, the heap retained afterwards and the {@link
+ * de.numcodex.sq2cql.model.MemoryFootprint memory footprint} of the loaded mapping context.
+ * <p>
+ * Other than the {@link MappingLoadBenchmark}, the first load is cold, like the load at the start of a pod. The
+ * number of loads can be given as the first argument, subsequent loads show the warm behaviour.
+ */
+public class MappingLoadReport {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        var loads = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        for (int i = 1; i <= loads; i++) {
+            System.out.printf("load %d of `%s`%n", i, Ontology.MAPPING_ZIP);
+            new MappingLoadReport().run();
+        }
+    }
+
+    private void run() throws IOException {
+        var heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        var usedBefore = usedHeap(heapPools);
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        MappingContext mappingContext;
+        try (var zipFile = new ZipFile(Ontology.MAPPING_ZIP)) {
+            var mappingsJson = measure("inflate mappings", () -> MappingLoader.inflate(zipFile, MAPPINGS_ENTRY));
+            var conceptTreeJson = measure("inflate concept tree",
+                    () -> MappingLoader.inflate(zipFile, CONCEPT_TREE_ENTRY));
+            Mapping[] mappings = measure("deserialize mappings", () -> MappingLoader.deserializeMappings(mappingsJson));
+            MappingTreeModuleRoot[] moduleRoots = measure("deserialize concept tree",
+                    () -> MappingLoader.deserializeConceptTree(conceptTreeJson));
+            Map<ContextualTermCode, Mapping> mappingsIndex = measure("index mappings",
+                    () -> MappingLoader.indexMappings(mappings));
+            MappingTreeBase conceptTree = measure("build concept tree", () -> MappingLoader.conceptTree(moduleRoots));
+            mappingContext = measure("create mapping context",
+                    () -> MappingLoader.mappingContext(mappingsIndex, conceptTree));
+        }
+
+        var peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.gc();
+        var retained = Math.max(0, usedHeap(heapPools) - usedBefore);
+
+        System.out.printf("%-26s %12s %16s%n", "stage", "time [ms]", "allocated [B]");
+        stages.forEach(stage -> System.out.printf("%-26s %12.3f %,16d%n", stage.name(), stage.nanos() / 1e6,
+                stage.bytes()));
+        System.out.printf("%-26s %12.3f %,16d%n", "total", stages.stream().mapToLong(Stage::nanos).sum() / 1e6,
+                stages.stream().mapToLong(Stage::bytes).sum());
+        System.out.printf("peak heap (sum of pool peaks) %,d B%n", peak - usedBefore);
+        System.out.printf("retained heap after GC        %,d B%n", retained);
+        System.out.println();
+        System.out.println(mappingContext.footprint().report());
+    }
+
+    private <T> T measure(String name, IOSupplier<T> supplier) throws IOException {
+        var threadId = Thread.currentThread().getId();
+        var bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        var start = System.nanoTime();
+        var result = supplier.get();
+        var nanos = System.nanoTime() - start;
+        stages.add(new Stage(name, nanos, THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - bytes));
+        return result;
+    }
+
+    private static long usedHeap(List<MemoryPoolMXBean> heapPools) {
+        return heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+    }
+
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private record Stage(String name, long nanos, long bytes) {
+    }
+}
@@ -0,0 +1,113 @@
+package de.numcodex.sq2cql.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.sq2cql.Util;
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The loading of a {@link MappingContext} from {@code mapping.zip} split into its stages.
+ * <p>
+ * Running all stages in order does the same as {@link Util#createMappingContext(String)}. Each stage can be measured
+ * on its own by feeding it the result of the previous one.
+ */
+public interface MappingLoader {
+
+    String MAPPINGS_ENTRY = "mapping/cql/mapping_cql.json";
+    String CONCEPT_TREE_ENTRY = "mapping/mapping_tree.json";
+
+    /**
+     * Inflates the zip entry with {@code name}.
+     *
+     * @param zipFile the zip file to read from
+     * @param name    the name of the entry
+     * @return the inflated bytes
+     * @throws IOException if the entry can't be read
+     */
+    static byte[] inflate(ZipFile zipFile, String name) throws IOException {
+        var entry = requireNonNull(zipFile.getEntry(name), "missing zip entry `%s`".formatted(name));
+        try (var in = zipFile.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Deserializes the mappings including the creation of the {@link ObjectMapper}.
+     *
+     * @param json the inflated {@link #MAPPINGS_ENTRY mappings entry}
+     * @return the mappings
+     * @throws IOException if the JSON is invalid
+     */
+    static Mapping[] deserializeMappings(byte[] json) throws IOException {
+        return new ObjectMapper().readValue(json, Mapping[].class);
+    }
+
+    /**
+     * Deserializes the module roots of the concept tree including the creation of the {@link ObjectMapper}.
+     * <p>
+     * The index of the entries of each module root is built during deserialization and so is part of this stage.
+     *
+     * @param json the inflated {@link #CONCEPT_TREE_ENTRY concept tree entry}
+     * @return the module roots
+     * @throws IOException if the JSON is invalid
+     */
+    static MappingTreeModuleRoot[] deserializeConceptTree(byte[] json) throws IOException {
+        return new ObjectMapper().readValue(json, MappingTreeModuleRoot[].class);
+    }
+
+    /**
+     * Builds the index of {@code mappings} by key.
+     *
+     * @param mappings the deserialized mappings
+     * @return the mappings by key
+     */
+    static Map<ContextualTermCode, Mapping> indexMappings(Mapping[] mappings) {
+        return Arrays.stream(mappings).collect(Collectors.toMap(Mapping::key, Function.identity()));
+    }
+
+    /**
+     * Builds the concept tree of {@code moduleRoots}.
+     *
+     * @param moduleRoots the deserialized module roots
+     * @return the concept tree
+     */
+    static MappingTreeBase conceptTree(MappingTreeModuleRoot[] moduleRoots) {
+        return new MappingTreeBase(Arrays.stream(moduleRoots).toList());
+    }
+
+    /**
+     * Creates the mapping context including the copy of the mappings index and the code system definitions.
+     *
+     * @param mappings    the index of the mappings
+     * @param conceptTree the concept tree
+     * @return the mapping context
+     */
+    static MappingContext mappingContext(Map<ContextualTermCode, Mapping> mappings, MappingTreeBase conceptTree) {
+        return MappingContext.of(mappings, conceptTree, Util.CODE_SYSTEM_ALIASES);
+    }
+
+    /**
+     * Runs all stages.
+     *
+     * @param zipFile the opened {@code mapping.zip}
+     * @return the mapping context
+     * @throws IOException if {@code zipFile} can't be read
+     */
+    static MappingContext load(ZipFile zipFile) throws IOException {
+        var mappings = indexMappings(deserializeMappings(inflate(zipFile, MAPPINGS_ENTRY)));
+        var conceptTree = conceptTree(deserializeConceptTree(inflate(zipFile, CONCEPT_TREE_ENTRY)));
+        return mappingContext(mappings, conceptTree);
+    }
+}
@@ -0,0 +1,136 @@
+package de.numcodex.sq2cql.bench;
+
+import de.numcodex.sq2cql.Util;
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
+import de.numcodex.sq2cql.model.common.TermCode;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+import de.numcodex.sq2cql.model.structured_query.Criterion;
+import de.numcodex.sq2cql.model.structured_query.ReferenceAttributeFilter;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The ontology of {@code mapping.zip} loaded once per benchmark JVM.
+ * <p>
+ * The location of {@code mapping.zip} can be set by the system property {@code sq2cql.mapping} and defaults to
+ * {@code target/mapping.zip}.
+ */
+public final class Ontology {
+
+    static final String MAPPING_ZIP = System.getProperty("sq2cql.mapping", "target/mapping.zip");
+
+    private final Map<ContextualTermCode, Mapping> mappings;
+    private final MappingTreeBase conceptTree;
+
+    private Ontology(Map<ContextualTermCode, Mapping> mappings, MappingTreeBase conceptTree) {
+        this.mappings = requireNonNull(mappings);
+        this.conceptTree = requireNonNull(conceptTree);
+    }
+
+    /**
+     * Returns the ontology of {@code mapping.zip}.
+     *
+     * @return the ontology
+     * @throws UncheckedIOException if {@code mapping.zip} can't be read
+     */
+    public static Ontology get() {
+        return Holder.INSTANCE;
+    }
+
+    private static Ontology load() {
+        try (ZipFile zipFile = new ZipFile(MAPPING_ZIP)) {
+            return new Ontology(Util.readMappings(zipFile), Util.readConceptTree(zipFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read `%s`.".formatted(MAPPING_ZIP), e);
+        }
+    }
+
+    /**
+     * Returns a mapping context containing all mappings and the whole concept tree.
+     *
+     * @return the full mapping context
+     */
+    public MappingContext fullMappingContext() {
+        return MappingContext.of(mappings, conceptTree, Util.CODE_SYSTEM_ALIASES);
+    }
+
+    /**
+     * Returns a mapping context containing only the mappings and concept tree entries {@code structuredQuery} needs.
+     * <p>
+     * Translating {@code structuredQuery} with this mapping context produces the same CQL as with the {@link
+     * #fullMappingContext() full mapping context}. Comparing both factors out the size of the ontology.
+     *
+     * @param structuredQuery the Structured Query to restrict the mapping context to
+     * @return the minimal mapping context
+     */
+    public MappingContext minimalMappingContext(StructuredQuery structuredQuery) {
+        var termCodes = criteria(structuredQuery)
+                .flatMap(criterion -> criterion.getConcept().contextualTermCodes().stream())
+                .toList();
+        var treeKeys = new HashSet<ContextualTermCode>();
+        termCodes.forEach(termCode -> conceptTree.moduleRoots().forEach(root -> collectKeys(root, termCode, treeKeys)));
+        var minimalTree = new MappingTreeBase(conceptTree.moduleRoots().stream()
+                .map(root -> new MappingTreeModuleRoot(root.context(), root.system(), root.entries().entrySet().stream()
+                        .filter(e -> treeKeys.contains(treeKey(root, e.getKey())))
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))))
+                .filter(root -> !root.entries().isEmpty())
+                .toList());
+        var minimalMappings = Stream.concat(termCodes.stream(), treeKeys.stream())
+                .filter(mappings::containsKey)
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), mappings::get));
+        return MappingContext.of(minimalMappings, minimalTree, Util.CODE_SYSTEM_ALIASES);
+    }
+
+    private static Stream<Criterion> criteria(StructuredQuery structuredQuery) {
+        return Stream.concat(structuredQuery.inclusionCriteria().stream(), structuredQuery.exclusionCriteria().stream())
+                .flatMap(Collection::stream)
+                .flatMap(Ontology::withReferencedCriteria)
+                .filter(criterion -> criterion.getConcept() != null);
+    }
+
+    private static Stream<Criterion> withReferencedCriteria(Criterion criterion) {
+        return Stream.concat(Stream.of(criterion), criterion.attributeFilters().stream()
+                .filter(ReferenceAttributeFilter.class::isInstance)
+                .map(ReferenceAttributeFilter.class::cast)
+                .flatMap(filter -> filter.criteria().stream())
+                .flatMap(Ontology::withReferencedCriteria));
+    }
+
+    private static void collectKeys(MappingTreeModuleRoot root, ContextualTermCode termCode,
+                                    Set<ContextualTermCode> keys) {
+        if (root.context().equals(termCode.context()) && root.system().equals(termCode.termCode().system())) {
+            collectKeys(root, termCode.termCode().code(), keys);
+        }
+    }
+
+    private static void collectKeys(MappingTreeModuleRoot root, String key, Set<ContextualTermCode> keys) {
+        var entry = root.entries().get(key);
+        if (entry != null && keys.add(treeKey(root, key))) {
+            entry.children().forEach(child -> collectKeys(root, child, keys));
+        }
+    }
+
+    private static ContextualTermCode treeKey(MappingTreeModuleRoot root, String key) {
+        return ContextualTermCode.of(root.context(), TermCode.of(root.system(), key, ""));
+    }
+
+    private static final class Holder {
+        private static final Ontology INSTANCE = load();
+    }
+}
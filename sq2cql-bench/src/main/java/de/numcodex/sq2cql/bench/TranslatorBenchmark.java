@@ -0,0 +1,89 @@
+package de.numcodex.sq2cql.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.sq2cql.Translator;
+import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.DefaultExpression;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Translator#toCql(StructuredQuery)} and {@link Container#print()} on the Structured Queries bundled
+ * with the tests.
+ * <p>
+ * Each input is translated with the full mapping context of {@code mapping.zip} and with a minimal one only containing
+ * the mappings the input needs, so that the size of the ontology can be factored out of the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslatorBenchmark {
+
+    @Param({
+            "large-query-worst-case-with-time-constraints.json",
+            "test-large-query-more-crit-time-rest-1.json",
+            "example-all-crits-time.json",
+            "SpecimenSQ.json",
+            "SpecimenSQAndBodySite.json",
+            "SpecimenSQExclusion.json",
+            "SpecimenSQTwoInclusion.json",
+            "SpecimenSQTwoReferenceCriteria.json",
+            "MedicationAdministrationSQ.json",
+            "MedicationAdministrationSQDoubleCriteria.json",
+            "MedicationAdministrationSQTimeRestriction.json",
+            "MedicationAdministrationSQTwoCriteria.json",
+            "MedicationRequestSQ.json",
+            "MedicationRequestSQTimeRestriction.json",
+            "MedicationStatementSQ.json",
+            "MedicationStatementSQTimeRestriction.json"
+    })
+    public String input;
+
+    @Param({"full", "minimal"})
+    public String mappingContext;
+
+    private Translator translator;
+    private StructuredQuery structuredQuery;
+    private Container<DefaultExpression> container;
+
+    static StructuredQuery readStructuredQuery(String name) throws IOException {
+        try (var in = Objects.requireNonNull(TranslatorBenchmark.class.getResourceAsStream("/de/numcodex/sq2cql/" + name),
+                "resource `%s` is missing".formatted(name))) {
+            return new ObjectMapper().readValue(in, StructuredQuery.class);
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        structuredQuery = readStructuredQuery(input);
+        var ontology = Ontology.get();
+        translator = Translator.of(switch (mappingContext) {
+            case "full" -> ontology.fullMappingContext();
+            case "minimal" -> ontology.minimalMappingContext(structuredQuery);
+            default -> throw new IllegalArgumentException("unknown mapping context: " + mappingContext);
+        });
+        container = translator.toCql(structuredQuery);
+    }
+
+    @Benchmark
+    public Container<DefaultExpression> toCql() {
+        return translator.toCql(structuredQuery);
+    }
+
+    @Benchmark
+    public String print() {
+        return container.print();
+    }
+
+    @Benchmark
+    public String toCqlAndPrint() {
+        return translator.toCql(structuredQuery).print();
+    }
+}
@@ -2,32 +2,137 @@ package de.numcodex.sq2cql;
 
 import de.numcodex.sq2cql.model.cql.Clause;
 import de.numcodex.sq2cql.model.cql.Expression;
+import de.numcodex.sq2cql.model.cql.IdentifierExpression;
+import de.numcodex.sq2cql.model.cql.SymbolicIdentifierExpression;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
 
 /**
+ * @param indent     the number of spaces to indent lines with
+ * @param precedence the precedence of the surrounding expression
+ * @param names      the names of {@link SymbolicIdentifierExpression symbolic identifiers} and of identifiers renamed
+ *                   in compact mode
+ * @param compact    whether to print without line breaks inside of expressions and without blank lines
  * @author Alexander Kiel
  */
-public record PrintContext(int indent, int precedence) {
+public record PrintContext(int indent, int precedence, Map<? extends IdentifierExpression, String> names,
+                           boolean compact) {
 
     public static final PrintContext ZERO = new PrintContext(0, 0);
 
+    /**
+     * The context printing compact CQL, which puts every statement on a single line and gives definitions short
+     * names when used to print a {@link de.numcodex.sq2cql.model.cql.Container Container}.
+     */
+    public static final PrintContext COMPACT = new PrintContext(0, 0, Map.of(), true);
+
+    private static final String SPACES = " ".repeat(64);
+
+    public PrintContext {
+        requireNonNull(names);
+    }
+
+    public PrintContext(int indent, int precedence) {
+        this(indent, precedence, Map.of(), false);
+    }
+
+    /**
+     * Returns a copy of this {@code PrintContext} naming identifiers by {@code names}.
+     *
+     * @param names the names of identifiers
+     * @return a new {@code PrintContext} with {@code names}
+     */
+    public PrintContext withNames(Map<? extends IdentifierExpression, String> names) {
+        return new PrintContext(indent, precedence, names, compact);
+    }
+
+    /**
+     * Returns the name of {@code identifier} in this context.
+     *
+     * @param identifier the identifier
+     * @param name       the name of {@code identifier} if it isn't renamed
+     * @return the name of {@code identifier}
+     */
+    public String name(IdentifierExpression identifier, String name) {
+        return names.isEmpty() ? name : names.getOrDefault(identifier, name);
+    }
+
     public String getIndent() {
         return " ".repeat(indent);
     }
 
+    /**
+     * Appends a line break followed by {@link #indent} spaces to {@code out}, or a single space if this context is
+     * {@link #compact}.
+     *
+     * @param out the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void appendLineBreak(Appendable out) throws IOException {
+        if (compact) {
+            out.append(' ');
+            return;
+        }
+        out.append('\n');
+        for (int n = indent; n > 0; n -= SPACES.length()) {
+            out.append(SPACES, 0, Math.min(n, SPACES.length()));
+        }
+    }
+
+    /**
+     * Returns the separator of statements, which is a blank line unless this context is {@link #compact}.
+     *
+     * @return the separator of statements
+     */
+    public String statementSeparator() {
+        return compact ? "\n" : "\n\n";
+    }
+
     public String parenthesizeZero(String s) {
         return parenthesize(0, s);
     }
 
     public String parenthesize(int precedence, String s) {
-        return precedence < this.precedence ? "(%s)".formatted(s) : s;
+        return precedence < this.precedence ? "(" + s + ")" : s;
+    }
+
+    /**
+     * Appends an opening parenthesis to {@code out} if {@link #parenthesize(int, String)} would enclose an expression
+     * of {@code precedence}.
+     *
+     * @param precedence the precedence of the printed expression
+     * @param out        the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void openParenthesis(int precedence, Appendable out) throws IOException {
+        if (precedence < this.precedence) {
+            out.append('(');
+        }
+    }
+
+    /**
+     * Appends the closing parenthesis matching {@link #openParenthesis(int, Appendable)} to {@code out}.
+     *
+     * @param precedence the precedence of the printed expression
+     * @param out        the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void closeParenthesis(int precedence, Appendable out) throws IOException {
+        if (precedence < this.precedence) {
+            out.append(')');
+        }
     }
 
     public PrintContext increase() {
-        return new PrintContext(indent + 2, precedence);
+        return new PrintContext(indent + 2, precedence, names, compact);
     }
 
     public PrintContext withPrecedence(int precedence) {
-        return new PrintContext(indent, precedence);
+        return new PrintContext(indent, precedence, names, compact);
     }
 
     /**
@@ -36,7 +141,7 @@ public record PrintContext(int indent, int precedence) {
      * @return a new {@code PrintContext} with a {@code precedence} of zero and an {@code indent} of this {@code PrintContext}
      */
     public PrintContext resetPrecedence() {
-        return new PrintContext(indent, 0);
+        return new PrintContext(indent, 0, names, compact);
     }
 
     public String print(Expression<?> expression) {
@@ -46,4 +151,40 @@ public record PrintContext(int indent, int precedence) {
     public String print(Clause clause) {
         return clause.print(this);
     }
+
+    public void print(Expression<?> expression, Appendable out) throws IOException {
+        expression.print(this, out);
+    }
+
+    public void print(Clause clause, Appendable out) throws IOException {
+        clause.print(this, out);
+    }
+
+    /**
+     * Returns the text {@code printer} appends.
+     * <p>
+     * Nodes which print by appending implement their {@code String} returning print methods with it.
+     *
+     * @param printer the printer
+     * @return the printed text
+     */
+    public static String toString(Printer printer) {
+        var builder = new StringBuilder();
+        try {
+            printer.print(builder);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Prints something by appending it to an {@link Appendable}.
+     */
+    @FunctionalInterface
+    public interface Printer {
+
+        void print(Appendable out) throws IOException;
+    }
 }
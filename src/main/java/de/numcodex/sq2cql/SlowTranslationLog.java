@@ -0,0 +1,172 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.TranslationListener.Phase;
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+import de.numcodex.sq2cql.model.structured_query.Criterion;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Logs one line for every translation or printing taking at least a threshold.
+ * <p>
+ * The line identifies the Structured Query only by its {@link StructuredQuery#fingerprint() fingerprint}, because the
+ * query itself can contain sensitive data. Besides that it contains the number of criteria, the sizes of the concept
+ * expansions and the time spent in each {@link Phase phase}.
+ * <p>
+ * Instances are immutable and thread-safe. So are the {@link Recorder recorders} they create, so that they can
+ * measure a {@link TranslationOption#PARALLEL parallel} translation.
+ */
+final class SlowTranslationLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowTranslationLog.class);
+
+    private final long thresholdNanos;
+    private final Consumer<String> sink;
+
+    SlowTranslationLog(Duration threshold, Consumer<String> sink) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("negative threshold: " + threshold);
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.sink = requireNonNull(sink);
+    }
+
+    static SlowTranslationLog of(Duration threshold) {
+        return new SlowTranslationLog(threshold, logger::warn);
+    }
+
+    /**
+     * Returns a new recorder for a single translation or printing forwarding all calls to {@code delegate}.
+     */
+    Recorder recorder(TranslationListener delegate) {
+        return new Recorder(delegate);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+    }
+
+    private static int countCriteria(List<List<Criterion>> criteria) {
+        return criteria.stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * A listener measuring the time of each phase of a single translation or printing.
+     * <p>
+     * Nested phases of the same kind, like the criterion phases of referenced criteria, are measured only once. The same
+     * holds for phases of the same kind running on several threads at once, so the time of a phase is the wall-clock
+     * time in which at least one thread was in it.
+     */
+    final class Recorder implements TranslationListener {
+
+        private final TranslationStatsCollector collector;
+        private final long startTime = System.nanoTime();
+        private final long[] phaseTimes = new long[Phase.values().length];
+        private final long[] phaseStartTimes = new long[Phase.values().length];
+        private final int[] phaseDepths = new int[Phase.values().length];
+        private int expansions;
+        private int maxExpansionSize;
+
+        private Recorder(TranslationListener delegate) {
+            this.collector = new TranslationStatsCollector(delegate);
+        }
+
+        /**
+         * Logs the translation of {@code structuredQuery} if it took at least the threshold.
+         */
+        synchronized void translationFinished(StructuredQuery structuredQuery) {
+            var duration = System.nanoTime() - startTime;
+            if (duration >= thresholdNanos) {
+                var stats = collector.stats();
+                sink.accept(("slow translation: fingerprint=%s duration=%s inclusionCriteria=%d " +
+                        "exclusionCriteria=%d expansions=%d expandedTermCodes=%d maxExpansionSize=%d " +
+                        "mappingMisses=%d retrieves=%d patientDefinitions=%d unfilteredDefinitions=%d phases=%s")
+                        .formatted(structuredQuery.fingerprint(), millis(duration),
+                                countCriteria(structuredQuery.inclusionCriteria()),
+                                countCriteria(structuredQuery.exclusionCriteria()), expansions,
+                                stats.expandedTermCodes(), maxExpansionSize, stats.mappingMisses(), stats.retrieves(),
+                                stats.patientDefinitions(), stats.unfilteredDefinitions(), phaseTimes()));
+            }
+        }
+
+        /**
+         * Logs the printing of a library if it took at least the threshold.
+         */
+        void printFinished(int patientDefinitions, int unfilteredDefinitions) {
+            var duration = System.nanoTime() - startTime;
+            if (duration >= thresholdNanos) {
+                sink.accept("slow printing: duration=%s outputBytes=%d patientDefinitions=%d unfilteredDefinitions=%d"
+                        .formatted(millis(duration), collector.stats().printedSize(), patientDefinitions,
+                                unfilteredDefinitions));
+            }
+        }
+
+        private String phaseTimes() {
+            var joiner = new StringJoiner(",", "[", "]");
+            for (var phase : Phase.values()) {
+                if (phaseTimes[phase.ordinal()] > 0) {
+                    joiner.add(phase + "=" + millis(phaseTimes[phase.ordinal()]));
+                }
+            }
+            return joiner.toString();
+        }
+
+        @Override
+        public long phaseStarted(Phase phase) {
+            synchronized (this) {
+                if (phaseDepths[phase.ordinal()]++ == 0) {
+                    phaseStartTimes[phase.ordinal()] = System.nanoTime();
+                }
+            }
+            return collector.phaseStarted(phase);
+        }
+
+        @Override
+        public void phaseFinished(Phase phase, long startTime) {
+            synchronized (this) {
+                if (--phaseDepths[phase.ordinal()] == 0) {
+                    phaseTimes[phase.ordinal()] += System.nanoTime() - phaseStartTimes[phase.ordinal()];
+                }
+            }
+            collector.phaseFinished(phase, startTime);
+        }
+
+        @Override
+        public void conceptExpanded(ContextualConcept concept, int termCodes, int mappingMisses) {
+            synchronized (this) {
+                expansions++;
+                maxExpansionSize = Math.max(maxExpansionSize, termCodes + mappingMisses);
+            }
+            collector.conceptExpanded(concept, termCodes, mappingMisses);
+        }
+
+        @Override
+        public void criteriaCombined(String operator, int operands) {
+            collector.criteriaCombined(operator, operands);
+        }
+
+        @Override
+        public void retrieveEmitted(String resourceType) {
+            collector.retrieveEmitted(resourceType);
+        }
+
+        @Override
+        public void definitionsEmitted(int patientDefinitions, int unfilteredDefinitions) {
+            collector.definitionsEmitted(patientDefinitions, unfilteredDefinitions);
+        }
+
+        @Override
+        public void printed(int outputBytes) {
+            collector.printed(outputBytes);
+        }
+    }
+}
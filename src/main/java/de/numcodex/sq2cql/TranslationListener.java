@@ -0,0 +1,127 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+
+/**
+ * A listener the {@link Translator} calls around each {@link Phase phase} of a translation, together with counters
+ * about the CQL produced.
+ * <p>
+ * Phases can be nested. The {@link Phase#CRITERION criterion} phase for example contains the {@link Phase#EXPANSION
+ * expansion} and {@link Phase#MODIFIER modifier} phases of that criterion and the criterion phases of referenced
+ * criteria. So times reported for a phase are inclusive.
+ * <p>
+ * Implementations have to be thread-safe if the {@link Translator} they are registered with is used concurrently.
+ * The {@link #NOOP no-op listener} is used by default. It doesn't read the clock and doesn't allocate.
+ */
+public interface TranslationListener {
+
+    /**
+     * The listener doing nothing.
+     */
+    TranslationListener NOOP = new TranslationListener() {
+
+        @Override
+        public long phaseStarted(Phase phase) {
+            return 0;
+        }
+    };
+
+    /**
+     * The phases of a translation.
+     */
+    enum Phase {
+
+        /**
+         * The expansion of a concept into the term codes of the concept tree.
+         */
+        EXPANSION,
+
+        /**
+         * The building of the CQL of a single criterion.
+         */
+        CRITERION,
+
+        /**
+         * The application of the modifiers of a mapping to the query of a single term code.
+         */
+        MODIFIER,
+
+        /**
+         * The combination of the CQL of criteria into the inclusion and exclusion expressions.
+         */
+        COMBINE,
+
+        /**
+         * The printing of the CQL library.
+         */
+        PRINT
+    }
+
+    /**
+     * Called before {@code phase} starts.
+     * <p>
+     * The default implementation returns the current value of {@link System#nanoTime()}.
+     *
+     * @param phase the phase that starts
+     * @return a timestamp that will be passed to {@link #phaseFinished(Phase, long) phaseFinished}
+     */
+    default long phaseStarted(Phase phase) {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called after {@code phase} finished.
+     *
+     * @param phase     the phase that finished
+     * @param startTime the timestamp returned by {@link #phaseStarted(Phase) phaseStarted}
+     */
+    default void phaseFinished(Phase phase, long startTime) {
+    }
+
+    /**
+     * Called after {@code concept} was expanded.
+     *
+     * @param concept       the concept of a criterion
+     * @param termCodes     the number of term codes the concept expanded to that have a mapping
+     * @param mappingMisses the number of term codes the concept expanded to that have no mapping
+     */
+    default void conceptExpanded(ContextualConcept concept, int termCodes, int mappingMisses) {
+    }
+
+    /**
+     * Called after the expressions of {@code operands} criteria were combined by {@code operator}.
+     * <p>
+     * Reports the combination of the criteria of the inclusion and exclusion groups. The disjunction of the term codes a
+     * concept expands to is reported by {@link #conceptExpanded(ContextualConcept, int, int) conceptExpanded} only.
+     *
+     * @param operator either {@code "and"} or {@code "or"}
+     * @param operands the number of operands, at least two
+     */
+    default void criteriaCombined(String operator, int operands) {
+    }
+
+    /**
+     * Called for every retrieve expression emitted.
+     *
+     * @param resourceType the resource type of the retrieve
+     */
+    default void retrieveEmitted(String resourceType) {
+    }
+
+    /**
+     * Called once the translation is done.
+     *
+     * @param patientDefinitions    the number of expression definitions in the Patient context
+     * @param unfilteredDefinitions the number of expression definitions in the Unfiltered context
+     */
+    default void definitionsEmitted(int patientDefinitions, int unfilteredDefinitions) {
+    }
+
+    /**
+     * Called once the CQL library is printed.
+     *
+     * @param outputBytes the number of bytes of the UTF-8 encoded CQL library
+     */
+    default void printed(int outputBytes) {
+    }
+}
@@ -0,0 +1,82 @@
+package de.numcodex.sq2cql;
+
+/**
+ * Optional behaviour of a {@link Translator} that can be enabled by {@link Translator#withOptions(TranslationOption...)
+ * withOptions}.
+ * <p>
+ * No option is enabled by default.
+ */
+public enum TranslationOption {
+
+    /**
+     * Names the definitions of criteria and of the inclusion and exclusion expressions by opaque symbols and assigns
+     * the final names like {@code "Criterion 3"} only when the container is printed.
+     * <p>
+     * Combining containers doesn't have to rename the definitions of both sides anymore, which makes its cost
+     * independent of the size of the expressions. The printed CQL stays the same.
+     */
+    DEFERRED_NAMING,
+
+    /**
+     * Translates all criteria into one mutable {@link de.numcodex.sq2cql.model.cql.LibraryBuilder LibraryBuilder}
+     * owned by the translation instead of combining immutable containers step by step.
+     * <p>
+     * The definitions get symbolic names like with {@link #DEFERRED_NAMING}. The resulting container and the printed
+     * CQL stay the same, but no intermediate containers are allocated, which suits one-shot translations.
+     */
+    LIBRARY_BUILDER,
+
+    /**
+     * Interns small, often repeated expressions like code selectors, retrieves, casts and time restriction intervals,
+     * so that structurally equal nodes are one shared instance.
+     * <p>
+     * The {@link de.numcodex.sq2cql.model.cql.ExpressionInterner interner} is created for every translation, so its
+     * memory is bounded by the size of the translated query.
+     */
+    INTERNING,
+
+    /**
+     * Shares repeated subexpressions of the Patient context in definitions of their own.
+     * <p>
+     * Definitions repeating the expression of an earlier definition refer to it, and queries repeated as operands of
+     * disjunctions and conjunctions are hoisted into definitions named {@code "Shared"}. Because Blaze evaluates each
+     * definition only once per patient, this lowers the evaluation cost of queries using the same concept more than
+     * once. Other than the other options, this one changes the printed CQL, but not its meaning.
+     */
+    COMMON_SUBEXPRESSION_ELIMINATION,
+
+    /**
+     * Translates the criteria in parallel and combines the criteria of each group and the groups themselves pairwise
+     * in a balanced tree instead of folding them from the left.
+     * <p>
+     * The tasks run on the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool} or on the executor given
+     * by {@link Translator#withExecutor(java.util.concurrent.Executor) withExecutor}. The tree has a fixed shape, so
+     * the resulting container and the printed CQL stay the same. The {@link TranslationListener listener} is called
+     * from several threads and has to be thread-safe. The stats of {@link Translator#toCqlWithStats(
+     * de.numcodex.sq2cql.model.structured_query.StructuredQuery) toCqlWithStats} and the slow translation log are
+     * collected from all threads. The calling thread translates the criteria the executor has not started yet itself,
+     * so the executor may be bounded and may be the one the translation runs on. Queries with few criteria are
+     * translated faster sequentially.
+     */
+    PARALLEL,
+
+    /**
+     * Fuses the expressions of the term codes of a concept expansion which only differ in the code of their retrieve
+     * into one query over a retrieve of the list of codes.
+     * <p>
+     * Term codes with the same mapping shape, like an ICD-10 chapter whose codes are all mapped to {@code Condition},
+     * get one retrieve and one where clause instead of one per term code. Like {@link
+     * #COMMON_SUBEXPRESSION_ELIMINATION}, this option changes the printed CQL, but not its meaning.
+     */
+    RETRIEVE_FUSION,
+
+    /**
+     * {@link de.numcodex.sq2cql.model.structured_query.StructuredQuery#simplify() Simplifies} the Structured Query
+     * before translating it.
+     * <p>
+     * Duplicate criteria and groups, groups absorbed by smaller groups and constant criteria are removed, so that
+     * criteria copied between groups don't end up as additional retrieves and definitions. Like {@link
+     * #COMMON_SUBEXPRESSION_ELIMINATION}, this option changes the printed CQL, but not its meaning.
+     */
+    SIMPLIFICATION
+}
@@ -0,0 +1,23 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.DefaultExpression;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The result of {@link Translator#toCqlWithStats(de.numcodex.sq2cql.model.structured_query.StructuredQuery)
+ * toCqlWithStats}.
+ *
+ * @param container the translated CQL {@link Container}
+ * @param library   the printed CQL library of {@code container}
+ * @param stats     the statistics collected during translation and printing
+ */
+public record TranslationResult(Container<DefaultExpression> container, String library, TranslationStats stats) {
+
+    public TranslationResult {
+        requireNonNull(container);
+        requireNonNull(library);
+        requireNonNull(stats);
+    }
+}
@@ -0,0 +1,36 @@
+package de.numcodex.sq2cql;
+
+import java.util.Map;
+
+/**
+ * Structural statistics of a translation collected by {@link Translator#toCqlWithStats(
+ *de.numcodex.sq2cql.model.structured_query.StructuredQuery) toCqlWithStats}.
+ *
+ * @param retrievesByResourceType the number of retrieve expressions emitted per resource type
+ * @param patientDefinitions      the number of expression definitions in the Patient context
+ * @param unfilteredDefinitions   the number of expression definitions in the Unfiltered context
+ * @param maxCriterionDepth       the maximum nesting depth of criteria, {@code 1} without reference criteria
+ * @param orOperands              the number of operands of all OR expressions combining criteria and expanded term
+ *                                codes
+ * @param andOperands             the number of operands of all AND expressions combining criteria
+ * @param expandedTermCodes       the number of term codes with a mapping all concepts expanded to
+ * @param mappingMisses           the number of term codes concepts expanded to that have no mapping
+ * @param printedSize             the number of bytes of the UTF-8 encoded CQL library
+ */
+public record TranslationStats(Map<String, Integer> retrievesByResourceType, int patientDefinitions,
+                               int unfilteredDefinitions, int maxCriterionDepth, int orOperands, int andOperands,
+                               int expandedTermCodes, int mappingMisses, int printedSize) {
+
+    public TranslationStats {
+        retrievesByResourceType = Map.copyOf(retrievesByResourceType);
+    }
+
+    /**
+     * Returns the total number of retrieve expressions.
+     *
+     * @return the total number of retrieve expressions
+     */
+    public int retrieves() {
+        return retrievesByResourceType.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
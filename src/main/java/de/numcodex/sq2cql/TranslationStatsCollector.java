@@ -0,0 +1,111 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static de.numcodex.sq2cql.TranslationListener.Phase.CRITERION;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A listener collecting {@link TranslationStats} of a single translation and forwarding all calls to a delegate.
+ * <p>
+ * Instances are thread-safe, so that they can collect the stats of a {@link TranslationOption#PARALLEL parallel}
+ * translation. The depth of nested criteria is counted per thread. The delegate is called outside of the lock of
+ * this collector.
+ */
+final class TranslationStatsCollector implements TranslationListener {
+
+    private final TranslationListener delegate;
+    private final Map<String, Integer> retrievesByResourceType = new HashMap<>();
+    private int patientDefinitions;
+    private int unfilteredDefinitions;
+    private final Map<Thread, Integer> criterionDepths = new HashMap<>();
+    private int maxCriterionDepth;
+    private int orOperands;
+    private int andOperands;
+    private int expandedTermCodes;
+    private int mappingMisses;
+    private int printedSize;
+
+    TranslationStatsCollector(TranslationListener delegate) {
+        this.delegate = requireNonNull(delegate);
+    }
+
+    synchronized TranslationStats stats() {
+        return new TranslationStats(retrievesByResourceType, patientDefinitions, unfilteredDefinitions,
+                maxCriterionDepth, orOperands, andOperands, expandedTermCodes, mappingMisses, printedSize);
+    }
+
+    @Override
+    public long phaseStarted(Phase phase) {
+        if (phase == CRITERION) {
+            synchronized (this) {
+                var depth = criterionDepths.merge(Thread.currentThread(), 1, Integer::sum);
+                maxCriterionDepth = Math.max(maxCriterionDepth, depth);
+            }
+        }
+        return delegate.phaseStarted(phase);
+    }
+
+    @Override
+    public void phaseFinished(Phase phase, long startTime) {
+        if (phase == CRITERION) {
+            synchronized (this) {
+                criterionDepths.computeIfPresent(Thread.currentThread(),
+                        (thread, depth) -> depth == 1 ? null : depth - 1);
+            }
+        }
+        delegate.phaseFinished(phase, startTime);
+    }
+
+    @Override
+    public void conceptExpanded(ContextualConcept concept, int termCodes, int mappingMisses) {
+        synchronized (this) {
+            expandedTermCodes += termCodes;
+            this.mappingMisses += mappingMisses;
+            if (termCodes > 1) {
+                orOperands += termCodes;
+            }
+        }
+        delegate.conceptExpanded(concept, termCodes, mappingMisses);
+    }
+
+    @Override
+    public void criteriaCombined(String operator, int operands) {
+        synchronized (this) {
+            if ("and".equals(operator)) {
+                andOperands += operands;
+            } else {
+                orOperands += operands;
+            }
+        }
+        delegate.criteriaCombined(operator, operands);
+    }
+
+    @Override
+    public void retrieveEmitted(String resourceType) {
+        synchronized (this) {
+            retrievesByResourceType.merge(resourceType, 1, Integer::sum);
+        }
+        delegate.retrieveEmitted(resourceType);
+    }
+
+    @Override
+    public void definitionsEmitted(int patientDefinitions, int unfilteredDefinitions) {
+        synchronized (this) {
+            this.patientDefinitions = patientDefinitions;
+            this.unfilteredDefinitions = unfilteredDefinitions;
+        }
+        delegate.definitionsEmitted(patientDefinitions, unfilteredDefinitions);
+    }
+
+    @Override
+    public void printed(int outputBytes) {
+        synchronized (this) {
+            printedSize = outputBytes;
+        }
+        delegate.printed(outputBytes);
+    }
+}
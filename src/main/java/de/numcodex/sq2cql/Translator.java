@@ -1,17 +1,38 @@
 package de.numcodex.sq2cql;
 
+import de.numcodex.sq2cql.jfr.TranslationEvent;
 import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.cql.AndExpression;
 import de.numcodex.sq2cql.model.cql.CodeSystemDefinition;
 import de.numcodex.sq2cql.model.cql.Container;
 import de.numcodex.sq2cql.model.cql.DefaultExpression;
+import de.numcodex.sq2cql.model.cql.ExpressionInterner;
+import de.numcodex.sq2cql.model.cql.LibraryBuilder;
+import de.numcodex.sq2cql.model.cql.NotExpression;
+import de.numcodex.sq2cql.model.cql.OrExpression;
 import de.numcodex.sq2cql.model.structured_query.Criterion;
 import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
 import de.numcodex.sq2cql.model.structured_query.TranslationException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
+import static de.numcodex.sq2cql.TranslationListener.Phase.COMBINE;
+import static de.numcodex.sq2cql.TranslationListener.Phase.PRINT;
 import static de.numcodex.sq2cql.model.cql.Container.AND;
 import static de.numcodex.sq2cql.model.cql.Container.AND_NOT;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -25,10 +46,18 @@ import static java.util.Objects.requireNonNull;
  */
 public class Translator {
 
+    private static final BinaryOperator<DefaultExpression> AND_EXPR = AndExpression::of;
+    private static final BinaryOperator<DefaultExpression> AND_NOT_EXPR = (a, b) -> a.and(NotExpression.of(b));
+    private static final BinaryOperator<DefaultExpression> OR_EXPR = OrExpression::of;
+
     private final MappingContext mappingContext;
+    private final SlowTranslationLog slowTranslationLog;
+    private final Executor executor;
 
-    private Translator(MappingContext mappingContext) {
+    private Translator(MappingContext mappingContext, SlowTranslationLog slowTranslationLog, Executor executor) {
         this.mappingContext = requireNonNull(mappingContext);
+        this.slowTranslationLog = slowTranslationLog;
+        this.executor = requireNonNull(executor);
     }
 
     /**
@@ -37,7 +66,7 @@ public class Translator {
      * @return a translator without any mappings
      */
     public static Translator of() {
-        return new Translator(MappingContext.of());
+        return new Translator(MappingContext.of(), null, ForkJoinPool.commonPool());
     }
 
     /**
@@ -46,7 +75,64 @@ public class Translator {
      * @return a translator with mappings defined in {@code mappingContext}
      */
     public static Translator of(MappingContext mappingContext) {
-        return new Translator(mappingContext);
+        return new Translator(mappingContext, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a copy of this translator reporting to {@code listener}.
+     *
+     * @param listener the listener to report the phases and counters of each translation to
+     * @return a translator reporting to {@code listener}
+     * @throws NullPointerException if {@code listener} is null
+     */
+    public Translator withListener(TranslationListener listener) {
+        return new Translator(mappingContext.withListener(listener), slowTranslationLog, executor);
+    }
+
+    /**
+     * Returns a copy of this translator with exactly {@code options} enabled.
+     * <p>
+     * Options given more than once are enabled once.
+     *
+     * @param options the options to enable
+     * @return a translator with {@code options} enabled
+     */
+    public Translator withOptions(TranslationOption... options) {
+        var enabled = EnumSet.noneOf(TranslationOption.class);
+        enabled.addAll(List.of(options));
+        return new Translator(mappingContext.withOptions(enabled), slowTranslationLog, executor);
+    }
+
+    /**
+     * Returns a copy of this translator running the {@link TranslationOption#PARALLEL parallel} translation on {@code
+     * executor} instead of the {@link ForkJoinPool#commonPool() common pool}.
+     * <p>
+     * The calling thread translates every criterion the executor has not started yet itself instead of waiting for
+     * it, so {@code executor} may be bounded and may even be the pool the translation is called from.
+     *
+     * @param executor the executor to translate criteria on
+     * @return a translator using {@code executor}
+     * @throws NullPointerException if {@code executor} is null
+     */
+    public Translator withExecutor(Executor executor) {
+        return new Translator(mappingContext, slowTranslationLog, requireNonNull(executor));
+    }
+
+    /**
+     * Returns a copy of this translator logging every translation and printing taking at least {@code threshold}.
+     * <p>
+     * The log line is written with level WARN to the logger {@code de.numcodex.sq2cql.SlowTranslationLog}. It
+     * identifies the Structured Query by its {@link StructuredQuery#fingerprint() fingerprint} and contains the number
+     * of criteria, the sizes of the concept expansions and the time spent in each {@link TranslationListener.Phase
+     * phase}. The Structured Query itself is never logged.
+     *
+     * @param threshold the minimum duration of a translation or printing to be logged
+     * @return a translator logging slow translations
+     * @throws NullPointerException     if {@code threshold} is null
+     * @throws IllegalArgumentException if {@code threshold} is negative
+     */
+    public Translator withSlowTranslationLog(Duration threshold) {
+        return new Translator(mappingContext, SlowTranslationLog.of(threshold), executor);
     }
 
     /**
@@ -58,14 +144,233 @@ public class Translator {
      *                              CQL {@link Container}
      */
     public Container<DefaultExpression> toCql(StructuredQuery structuredQuery) {
-        var inclusionExpr = inclusionExpr(structuredQuery.inclusionCriteria());
-        var exclusionExpr = exclusionExpr(structuredQuery.exclusionCriteria());
+        if (slowTranslationLog != null) {
+            var recorder = slowTranslationLog.recorder(mappingContext.listener());
+            var container = new Translator(mappingContext.withListener(recorder), null, executor)
+                    .toCql(structuredQuery);
+            recorder.translationFinished(structuredQuery);
+            return container;
+        }
+        var event = new TranslationEvent();
+        event.begin();
+        var container = translate(structuredQuery);
+        if (event.shouldCommit()) {
+            event.setFingerprint(structuredQuery.fingerprint());
+            event.setInclusionCriteria(countCriteria(structuredQuery.inclusionCriteria()));
+            event.setExclusionCriteria(countCriteria(structuredQuery.exclusionCriteria()));
+            event.setPatientDefinitions(container.getPatientDefinitions().size());
+            event.commit();
+        }
+        return container;
+    }
+
+    private static int countCriteria(List<List<Criterion>> criteria) {
+        return criteria.stream().mapToInt(List::size).sum();
+    }
 
-        return exclusionExpr.isEmpty()
-                ? inclusionExpr.moveToPatientContext("InInitialPopulation")
-                : AND_NOT.apply(inclusionExpr.moveToPatientContext("Inclusion"),
-                        exclusionExpr.moveToPatientContext("Exclusion"))
-                .moveToPatientContext("InInitialPopulation");
+    private Container<DefaultExpression> translate(StructuredQuery structuredQuery) {
+        if (mappingContext.isEnabled(TranslationOption.SIMPLIFICATION)) {
+            structuredQuery = structuredQuery.simplify();
+        }
+        var parallel = mappingContext.isEnabled(TranslationOption.PARALLEL);
+        var translator = mappingContext.isEnabled(TranslationOption.INTERNING)
+                ? new Translator(mappingContext.withInterner(parallel ? ExpressionInterner.createConcurrent()
+                : ExpressionInterner.create()), null, executor)
+                : this;
+        var container = mappingContext.isEnabled(TranslationOption.LIBRARY_BUILDER)
+                ? translator.translate(structuredQuery, LibraryBuilder.of())
+                : translator.translateByCombining(structuredQuery);
+        if (mappingContext.isEnabled(TranslationOption.COMMON_SUBEXPRESSION_ELIMINATION)) {
+            container = container.eliminateCommonSubexpressions();
+        }
+        mappingContext.listener().definitionsEmitted(container.getPatientDefinitions().size(),
+                container.getUnfilteredDefinitions().size());
+        return container;
+    }
+
+    private Container<DefaultExpression> translateByCombining(StructuredQuery structuredQuery) {
+        Container<DefaultExpression> inclusionExpr;
+        Container<DefaultExpression> exclusionExpr;
+        if (mappingContext.isEnabled(TranslationOption.PARALLEL)) {
+            var tasks = new ArrayList<Task<Container<DefaultExpression>>>();
+            var inclusion = parallelExpr(structuredQuery.inclusionCriteria(), AND, Container.OR, tasks);
+            var exclusion = parallelExpr(structuredQuery.exclusionCriteria(), Container.OR, AND, tasks);
+            tasks.forEach(Task::run);
+            inclusionExpr = join(inclusion.expr());
+            exclusionExpr = join(exclusion.expr());
+            inclusion.report(this, "and", "or");
+            exclusion.report(this, "or", "and");
+        } else {
+            inclusionExpr = inclusionExpr(structuredQuery.inclusionCriteria());
+            exclusionExpr = exclusionExpr(structuredQuery.exclusionCriteria());
+        }
+
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(COMBINE);
+        var container = exclusionExpr.isEmpty()
+                ? moveToPatientContext(inclusionExpr, "InInitialPopulation")
+                : moveToPatientContext(AND_NOT.apply(moveToPatientContext(inclusionExpr, "Inclusion"),
+                        moveToPatientContext(exclusionExpr, "Exclusion")), "InInitialPopulation");
+        listener.phaseFinished(COMBINE, startTime);
+        return container;
+    }
+
+    /**
+     * Translates {@code structuredQuery} appending all definitions to {@code builder}.
+     * <p>
+     * Builds the same expressions as {@link #translateByCombining(StructuredQuery)} but combines them directly instead of
+     * combining containers.
+     */
+    private Container<DefaultExpression> translate(StructuredQuery structuredQuery, LibraryBuilder builder) {
+        var parallel = mappingContext.isEnabled(TranslationOption.PARALLEL);
+        var tasks = new ArrayList<Task<TranslatedCriterion>>();
+        var inclusionCriteria = parallel ? translateAsync(structuredQuery.inclusionCriteria(), tasks) : null;
+        var exclusionCriteria = parallel ? translateAsync(structuredQuery.exclusionCriteria(), tasks) : null;
+        tasks.forEach(Task::run);
+        var inclusionExpr = expr(structuredQuery.inclusionCriteria(), inclusionCriteria, "and", "or", builder);
+        // the exclusion definitions have to follow the definition of the inclusion expression
+        var exclusionBuilder = LibraryBuilder.of();
+        var exclusionExpr = expr(structuredQuery.exclusionCriteria(), exclusionCriteria, "or", "and",
+                exclusionBuilder);
+
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(COMBINE);
+        DefaultExpression expr;
+        if (exclusionExpr == null) {
+            expr = moveToPatientContext(builder, inclusionExpr, "InInitialPopulation");
+        } else {
+            inclusionExpr = moveToPatientContext(builder, inclusionExpr, "Inclusion");
+            exclusionExpr = builder.add(exclusionBuilder, exclusionExpr);
+            expr = moveToPatientContext(builder, combine(AND_NOT_EXPR, inclusionExpr,
+                    moveToPatientContext(builder, exclusionExpr, "Exclusion")), "InInitialPopulation");
+        }
+        var container = builder.build(expr);
+        listener.phaseFinished(COMBINE, startTime);
+        return container;
+    }
+
+    /**
+     * Combines the expressions of {@code criteria} with {@code innerOperator} inside and with {@code outerOperator}
+     * between the groups.
+     * <p>
+     * If {@code translatedCriteria} are given, the builders of the already translated criteria are appended to {@code
+     * builder} in the order of {@code criteria} instead of translating the criteria.
+     *
+     * @return the expression or {@code null} if there are no criteria
+     */
+    private DefaultExpression expr(List<List<Criterion>> criteria,
+                                   List<List<CompletableFuture<TranslatedCriterion>>> translatedCriteria,
+                                   String outerOperator, String innerOperator, LibraryBuilder builder) {
+        DefaultExpression expr = null;
+        var operands = 0;
+        for (int i = 0; i < criteria.size(); i++) {
+            var group = criteria.get(i);
+            DefaultExpression groupExpr = null;
+            for (int j = 0; j < group.size(); j++) {
+                var criterionExpr = translatedCriteria == null
+                        ? group.get(j).toCql(mappingContext, builder)
+                        : join(translatedCriteria.get(i).get(j)).appendTo(builder);
+                groupExpr = combine(operator(innerOperator), groupExpr, criterionExpr.orElse(null));
+            }
+            reportCombined(innerOperator, group.size());
+            operands += groupExpr == null ? 0 : 1;
+            expr = combine(operator(outerOperator), expr, groupExpr);
+        }
+        reportCombined(outerOperator, operands);
+        return expr;
+    }
+
+    /**
+     * Starts the translation of every criterion into a builder of its own on the executor, adding the tasks to {@code
+     * tasks}.
+     */
+    private List<List<CompletableFuture<TranslatedCriterion>>> translateAsync(List<List<Criterion>> criteria,
+                                                                              List<Task<TranslatedCriterion>> tasks) {
+        return criteria.stream().map(group -> group.stream()
+                .map(criterion -> fork(() -> {
+                    var builder = LibraryBuilder.of();
+                    return new TranslatedCriterion(builder, criterion.toCql(mappingContext, builder));
+                }, tasks))
+                .toList()).toList();
+    }
+
+    /**
+     * A criterion translated into a builder of its own.
+     */
+    private record TranslatedCriterion(LibraryBuilder builder, Optional<DefaultExpression> expr) {
+
+        Optional<DefaultExpression> appendTo(LibraryBuilder target) {
+            return Optional.ofNullable(target.add(builder, expr.orElse(null)));
+        }
+    }
+
+    private static BinaryOperator<DefaultExpression> operator(String name) {
+        return name.equals("and") ? AND_EXPR : OR_EXPR;
+    }
+
+    private static DefaultExpression moveToPatientContext(LibraryBuilder builder, DefaultExpression expr,
+                                                          String name) {
+        return expr == null ? null : builder.moveToPatientContext(name, expr);
+    }
+
+    /**
+     * Combines {@code a} and {@code b} using {@code combiner}, reporting the {@link TranslationListener.Phase#COMBINE
+     * combine} phase. A {@code null} operand is the identity element like the {@link Container#empty() empty
+     * container}.
+     */
+    private DefaultExpression combine(BinaryOperator<DefaultExpression> combiner, DefaultExpression a,
+                                      DefaultExpression b) {
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(COMBINE);
+        var expr = a == null ? b : b == null ? a : combiner.apply(a, b);
+        listener.phaseFinished(COMBINE, startTime);
+        return expr;
+    }
+
+    /**
+     * Translates the given {@code structuredQuery} into a CQL {@link Container}, prints it and collects {@link
+     * TranslationStats statistics} in the same pass.
+     * <p>
+     * The {@link #withListener(TranslationListener) listener} of this translator is called as usual.
+     *
+     * @param structuredQuery the Structured Query to translate
+     * @return the translated CQL {@link Container} together with the printed library and the statistics
+     * @throws TranslationException if the given {@code structuredQuery} can't be translated into a
+     *                              CQL {@link Container}
+     */
+    public TranslationResult toCqlWithStats(StructuredQuery structuredQuery) {
+        var collector = new TranslationStatsCollector(mappingContext.listener());
+        var translator = new Translator(mappingContext.withListener(collector), slowTranslationLog, executor);
+        var container = translator.toCql(structuredQuery);
+        var library = translator.print(container);
+        return new TranslationResult(container, library, collector.stats());
+    }
+
+    /**
+     * Prints the given {@code container} into a CQL library.
+     * <p>
+     * Other than {@link Container#print()}, reports the printing to the {@link #withListener(TranslationListener)
+     * listener} of this translator.
+     *
+     * @param container the container to print, usually obtained by {@link #toCql(StructuredQuery) toCql}
+     * @return the CQL library
+     */
+    public String print(Container<DefaultExpression> container) {
+        if (slowTranslationLog != null) {
+            var recorder = slowTranslationLog.recorder(mappingContext.listener());
+            var library = new Translator(mappingContext.withListener(recorder), null, executor).print(container);
+            recorder.printFinished(container.getPatientDefinitions().size(),
+                    container.getUnfilteredDefinitions().size());
+            return library;
+        }
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(PRINT);
+        var library = container.print();
+        listener.phaseFinished(PRINT, startTime);
+        if (listener != TranslationListener.NOOP) {
+            listener.printed(library.getBytes(UTF_8).length);
+        }
+        return library;
     }
 
     /**
@@ -76,11 +381,24 @@ public class Translator {
      * CodeSystemDefinition CodeSystemDefinitions}
      */
     private Container<DefaultExpression> inclusionExpr(List<List<Criterion>> criteria) {
-        return criteria.stream().map(this::orExpr).reduce(Container.empty(), AND);
+        var expr = Container.<DefaultExpression>empty();
+        var operands = 0;
+        for (var group : criteria) {
+            var groupExpr = orExpr(group);
+            operands += groupExpr.isEmpty() ? 0 : 1;
+            expr = combine(AND, expr, groupExpr);
+        }
+        reportCombined("and", operands);
+        return expr;
     }
 
     private Container<DefaultExpression> orExpr(List<Criterion> criteria) {
-        return criteria.stream().map(c -> c.toCql(mappingContext)).reduce(Container.empty(), Container.OR);
+        var expr = Container.<DefaultExpression>empty();
+        for (var criterion : criteria) {
+            expr = combine(Container.OR, expr, criterion.toCql(mappingContext));
+        }
+        reportCombined("or", criteria.size());
+        return expr;
     }
 
     /**
@@ -91,11 +409,164 @@ public class Translator {
      * CodeSystemDefinition CodeSystemDefinitions}
      */
     private Container<DefaultExpression> exclusionExpr(List<List<Criterion>> criteria) {
-        return criteria.stream().map(this::andExpr).reduce(Container.empty(), Container.OR);
+        var expr = Container.<DefaultExpression>empty();
+        var operands = 0;
+        for (var group : criteria) {
+            var groupExpr = andExpr(group);
+            operands += groupExpr.isEmpty() ? 0 : 1;
+            expr = combine(Container.OR, expr, groupExpr);
+        }
+        reportCombined("or", operands);
+        return expr;
     }
 
     private Container<DefaultExpression> andExpr(List<Criterion> criteria) {
-        return criteria.stream().map(c -> c.toCql(mappingContext))
-                .reduce(Container.empty(), AND);
+        var expr = Container.<DefaultExpression>empty();
+        for (var criterion : criteria) {
+            expr = combine(AND, expr, criterion.toCql(mappingContext));
+        }
+        reportCombined("and", criteria.size());
+        return expr;
+    }
+
+    /**
+     * Combines the containers of {@code criteria} with {@code innerCombiner} inside and with {@code outerCombiner}
+     * between the groups like {@link #inclusionExpr(List)} and {@link #exclusionExpr(List)}, but translates the
+     * criteria on the executor and combines the containers in a balanced tree instead of folding them from the left.
+     * The translation tasks are added to {@code tasks}.
+     * <p>
+     * The tree has the same shape for every run, so the combined container is always the same.
+     */
+    private ParallelExpr parallelExpr(List<List<Criterion>> criteria,
+                                      BinaryOperator<Container<DefaultExpression>> outerCombiner,
+                                      BinaryOperator<Container<DefaultExpression>> innerCombiner,
+                                      List<Task<Container<DefaultExpression>>> tasks) {
+        var groups = criteria.stream().map(group -> reduce(group.stream()
+                        .map(criterion -> fork(() -> criterion.toCql(mappingContext), tasks))
+                        .toList(), innerCombiner))
+                .toList();
+        return new ParallelExpr(criteria, groups, reduce(groups, outerCombiner));
+    }
+
+    /**
+     * Reduces {@code operands} pairwise, combining neighbours until one container is left.
+     * <p>
+     * Two neighbours are combined by the thread completing the later one, so no combination waits for the executor.
+     */
+    private CompletableFuture<Container<DefaultExpression>> reduce(
+            List<CompletableFuture<Container<DefaultExpression>>> operands,
+            BinaryOperator<Container<DefaultExpression>> combiner) {
+        if (operands.isEmpty()) {
+            return CompletableFuture.completedFuture(Container.empty());
+        }
+        while (operands.size() > 1) {
+            var combined = new ArrayList<CompletableFuture<Container<DefaultExpression>>>((operands.size() + 1) / 2);
+            for (int i = 0; i + 1 < operands.size(); i += 2) {
+                combined.add(operands.get(i).thenCombine(operands.get(i + 1),
+                        (a, b) -> combine(combiner, a, b)));
+            }
+            if (operands.size() % 2 == 1) {
+                combined.add(operands.get(operands.size() - 1));
+            }
+            operands = combined;
+        }
+        return operands.get(0);
+    }
+
+    /**
+     * Submits {@code supplier} to the executor and adds its task to {@code tasks}, so that the calling thread can run
+     * it itself if the executor has not started it before the result is needed.
+     * <p>
+     * A rejected task is left to the calling thread.
+     */
+    private <T> CompletableFuture<T> fork(Supplier<T> supplier, List<Task<T>> tasks) {
+        var task = new Task<>(supplier, new CompletableFuture<>(), new AtomicBoolean());
+        tasks.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // the calling thread runs the task
+        }
+        return task.result();
+    }
+
+    /**
+     * A task run by the executor or by the calling thread, whichever claims it first.
+     * <p>
+     * The calling thread runs all tasks before waiting for their results. Because it never waits for a task nobody has
+     * started, a translation called from a thread of a bounded executor can't deadlock.
+     */
+    private record Task<T>(Supplier<T> supplier, CompletableFuture<T> result, AtomicBoolean claimed)
+            implements Runnable {
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    result.complete(supplier.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for {@code future}, rethrowing the exception it completed with, like a {@link TranslationException}.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The combined container of criteria being translated in parallel together with the containers of its groups.
+     */
+    private record ParallelExpr(List<List<Criterion>> criteria,
+                                List<CompletableFuture<Container<DefaultExpression>>> groups,
+                                CompletableFuture<Container<DefaultExpression>> expr) {
+
+        /**
+         * Reports the combined criteria like the sequential translation after {@link #expr} is done.
+         */
+        void report(Translator translator, String outerOperator, String innerOperator) {
+            criteria.forEach(group -> translator.reportCombined(innerOperator, group.size()));
+            translator.reportCombined(outerOperator, (int) groups.stream().filter(group -> !join(group).isEmpty())
+                    .count());
+        }
+    }
+
+    private Container<DefaultExpression> moveToPatientContext(Container<DefaultExpression> container, String name) {
+        return mappingContext.isEnabled(TranslationOption.DEFERRED_NAMING)
+                ? container.moveToPatientContextWithSymbolicName(name)
+                : container.moveToPatientContext(name);
+    }
+
+    private void reportCombined(String operator, int operands) {
+        if (operands > 1) {
+            mappingContext.listener().criteriaCombined(operator, operands);
+        }
+    }
+
+    /**
+     * Combines {@code a} and {@code b} using {@code combiner}, reporting the {@link TranslationListener.Phase#COMBINE
+     * combine} phase.
+     */
+    private Container<DefaultExpression> combine(BinaryOperator<Container<DefaultExpression>> combiner,
+                                                 Container<DefaultExpression> a, Container<DefaultExpression> b) {
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(COMBINE);
+        var expr = combiner.apply(a, b);
+        listener.phaseFinished(COMBINE, startTime);
+        return expr;
     }
 }
@@ -0,0 +1,48 @@
+package de.numcodex.sq2cql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event covering the building of the CQL expression of a single criterion, including the expansion of its
+ * concept.
+ * <p>
+ * The event is disabled by default. Criterion events of a translation happen in the same thread and inside the time
+ * span of its {@link TranslationEvent}.
+ */
+@Name("de.numcodex.sq2cql.Criterion")
+@Label("Criterion")
+@Description("Building of the CQL expression of a single criterion")
+@Category("sq2cql")
+@Enabled(false)
+@StackTrace(false)
+public final class CriterionEvent extends Event {
+
+    @Label("Criterion Type")
+    String criterionType;
+
+    @Label("Concept")
+    @Description("Context and term codes of the concept of the criterion")
+    String concept;
+
+    @Label("Expansion Size")
+    @Description("Number of term codes with a mapping the concept expanded to")
+    int expansionSize;
+
+    public void setCriterionType(String criterionType) {
+        this.criterionType = criterionType;
+    }
+
+    public void setConcept(String concept) {
+        this.concept = concept;
+    }
+
+    public void setExpansionSize(int expansionSize) {
+        this.expansionSize = expansionSize;
+    }
+}
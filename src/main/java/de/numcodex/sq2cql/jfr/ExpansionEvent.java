@@ -0,0 +1,38 @@
+package de.numcodex.sq2cql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event covering the expansion of a single term code in the concept tree.
+ * <p>
+ * The event is disabled by default.
+ */
+@Name("de.numcodex.sq2cql.Expansion")
+@Label("Concept Expansion")
+@Description("Expansion of a term code into all term codes of its subtree")
+@Category("sq2cql")
+@Enabled(false)
+@StackTrace(false)
+public final class ExpansionEvent extends Event {
+
+    @Label("Term Code")
+    String termCode;
+
+    @Label("Expansion Size")
+    @Description("Number of term codes of the subtree including the term code itself")
+    int expansionSize;
+
+    public void setTermCode(String termCode) {
+        this.termCode = termCode;
+    }
+
+    public void setExpansionSize(int expansionSize) {
+        this.expansionSize = expansionSize;
+    }
+}
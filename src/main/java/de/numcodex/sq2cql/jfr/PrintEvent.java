@@ -0,0 +1,38 @@
+package de.numcodex.sq2cql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event covering the printing of a CQL library.
+ * <p>
+ * The event is disabled by default.
+ */
+@Name("de.numcodex.sq2cql.Print")
+@Label("Print")
+@Description("Printing of a CQL library")
+@Category("sq2cql")
+@Enabled(false)
+@StackTrace(false)
+public final class PrintEvent extends Event {
+
+    @Label("Patient Definitions")
+    int patientDefinitions;
+
+    @Label("Output Length")
+    @Description("Number of characters of the CQL library")
+    int outputLength;
+
+    public void setPatientDefinitions(int patientDefinitions) {
+        this.patientDefinitions = patientDefinitions;
+    }
+
+    public void setOutputLength(int outputLength) {
+        this.outputLength = outputLength;
+    }
+}
@@ -0,0 +1,53 @@
+package de.numcodex.sq2cql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event covering the translation of a whole Structured Query by {@link de.numcodex.sq2cql.Translator#toCql
+ * Translator.toCql}.
+ * <p>
+ * Like all sq2cql events, it's disabled by default and has to be enabled in the recording settings by its name.
+ */
+@Name("de.numcodex.sq2cql.Translation")
+@Label("Translation")
+@Description("Translation of a Structured Query into CQL")
+@Category("sq2cql")
+@Enabled(false)
+@StackTrace(false)
+public final class TranslationEvent extends Event {
+
+    @Label("Query Fingerprint")
+    @Description("Stable fingerprint of the shape of the Structured Query")
+    String fingerprint;
+
+    @Label("Inclusion Criteria")
+    int inclusionCriteria;
+
+    @Label("Exclusion Criteria")
+    int exclusionCriteria;
+
+    @Label("Patient Definitions")
+    int patientDefinitions;
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public void setInclusionCriteria(int inclusionCriteria) {
+        this.inclusionCriteria = inclusionCriteria;
+    }
+
+    public void setExclusionCriteria(int exclusionCriteria) {
+        this.exclusionCriteria = exclusionCriteria;
+    }
+
+    public void setPatientDefinitions(int patientDefinitions) {
+        this.patientDefinitions = patientDefinitions;
+    }
+}
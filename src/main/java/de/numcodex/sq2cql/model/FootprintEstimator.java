@@ -0,0 +1,218 @@
+package de.numcodex.sq2cql.model;
+
+import de.numcodex.sq2cql.model.MemoryFootprint.Component;
+import de.numcodex.sq2cql.model.MemoryFootprint.Usage;
+import de.numcodex.sq2cql.model.common.TermCode;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static de.numcodex.sq2cql.model.MemoryFootprint.Component.TERM_CODES;
+
+/**
+ * Estimates the {@link MemoryFootprint} of an object graph.
+ * <p>
+ * Walks records by their public accessors and knows the layout of strings, the collections used in the model and a
+ * few value types. Objects are counted only at their first visit. Components of records that aren't public aren't
+ * walked but counted as skipped.
+ */
+final class FootprintEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, String> strings = new HashMap<>();
+    private final EnumMap<Component, Usage> usages = new EnumMap<>(Component.class);
+    private Usage duplicateStrings = Usage.ZERO;
+    private long skippedComponents;
+
+    MemoryFootprint footprint() {
+        return MemoryFootprint.of(usages, duplicateStrings, skippedComponents);
+    }
+
+    void mappingContext(Map<?, Mapping> mappings, MappingTreeBase conceptTree) {
+        add(Component.MAPPINGS, 0, shallowMap(mappings));
+        mappings.forEach((key, mapping) -> {
+            walk(Component.MAPPINGS, key);
+            mapping(mapping);
+        });
+        if (conceptTree != null) {
+            conceptTree(conceptTree);
+        }
+    }
+
+    private void mapping(Mapping mapping) {
+        if (!visited.add(mapping)) {
+            return;
+        }
+        add(Component.MAPPINGS, 1, align(OBJECT_HEADER + 9 * REFERENCE));
+        walk(Component.MAPPINGS, mapping.key());
+        walk(Component.MAPPINGS, mapping.resourceType());
+        walk(Component.MAPPINGS, mapping.valueFhirPath());
+        walk(Component.MAPPINGS, mapping.valueType());
+        walk(Component.MAPPINGS, mapping.timeRestrictionFhirPath().orElse(null));
+        walk(Component.MAPPINGS, mapping.primaryCode());
+        walk(Component.MAPPINGS, mapping.termCodeFhirPath());
+        if (visited.add(mapping.attributeMappings())) {
+            add(Component.ATTRIBUTE_MAPPINGS, 1, shallowMap(mapping.attributeMappings()));
+            mapping.attributeMappings().forEach((key, attributeMapping) -> {
+                walk(Component.ATTRIBUTE_MAPPINGS, key);
+                walk(Component.ATTRIBUTE_MAPPINGS, attributeMapping);
+            });
+        }
+        if (visited.add(mapping.fixedCriteria())) {
+            add(Component.FIXED_CRITERIA, mapping.fixedCriteria().size(), shallowList(mapping.fixedCriteria()));
+            mapping.fixedCriteria().forEach(modifier -> walk(Component.FIXED_CRITERIA, modifier));
+        }
+    }
+
+    void conceptTree(MappingTreeBase conceptTree) {
+        if (!visited.add(conceptTree)) {
+            return;
+        }
+        add(Component.TREE_ENTRIES, 0, align(OBJECT_HEADER + REFERENCE) + shallowList(conceptTree.moduleRoots()));
+        for (var moduleRoot : conceptTree.moduleRoots()) {
+            add(Component.TREE_ENTRIES, 0, align(OBJECT_HEADER + 3 * REFERENCE) + shallowMap(moduleRoot.entries()));
+            walk(Component.TREE_ENTRIES, moduleRoot.context());
+            walk(Component.TREE_ENTRIES, moduleRoot.system());
+            // visit the keys first, so that equal child strings sharing their instance are attributed to entries
+            moduleRoot.entries().forEach((key, entry) -> {
+                walk(Component.TREE_ENTRIES, key);
+                if (visited.add(entry)) {
+                    add(Component.TREE_ENTRIES, 1, align(OBJECT_HEADER + 2 * REFERENCE));
+                    walk(Component.TREE_ENTRIES, entry.key());
+                }
+            });
+            moduleRoot.entries().values().forEach(entry -> {
+                if (visited.add(entry.children())) {
+                    add(Component.TREE_CHILD_LISTS, 1, shallowList(entry.children()));
+                    entry.children().forEach(child -> walk(Component.TREE_CHILD_LISTS, child));
+                }
+            });
+        }
+    }
+
+    private void walk(Component component, Object object) {
+        if (object == null || object instanceof Enum<?> || object instanceof Boolean || !visited.add(object)) {
+            return;
+        }
+        if (object instanceof String string) {
+            var bytes = stringSize(string);
+            add(component, 0, bytes);
+            if (strings.putIfAbsent(string, string) != null) {
+                duplicateStrings = duplicateStrings.plus(1, bytes);
+            }
+        } else if (object instanceof TermCode termCode) {
+            add(TERM_CODES, 1, align(OBJECT_HEADER + 3 * REFERENCE));
+            walk(TERM_CODES, termCode.system());
+            walk(TERM_CODES, termCode.code());
+            walk(TERM_CODES, termCode.display());
+        } else if (object instanceof List<?> list) {
+            add(component, 0, shallowList(list));
+            list.forEach(element -> walk(component, element));
+        } else if (object instanceof Map<?, ?> map) {
+            add(component, 0, shallowMap(map));
+            map.forEach((key, value) -> {
+                walk(component, key);
+                walk(component, value);
+            });
+        } else if (object instanceof Collection<?> collection) {
+            add(component, 0, shallowList(collection));
+            collection.forEach(element -> walk(component, element));
+        } else if (object instanceof BigDecimal) {
+            add(component, 0, align(OBJECT_HEADER + 4 * REFERENCE + 8));
+        } else if (object instanceof LocalDate) {
+            add(component, 0, align(OBJECT_HEADER + 4 + 2 * 2));
+        } else if (object instanceof Record) {
+            walkRecord(component, (Record) object);
+        } else {
+            add(component, 0, align(OBJECT_HEADER + REFERENCE));
+        }
+    }
+
+    private void walkRecord(Component component, Record record) {
+        var recordComponents = record.getClass().getRecordComponents();
+        var size = OBJECT_HEADER;
+        for (var recordComponent : recordComponents) {
+            var type = recordComponent.getType();
+            size += type.isPrimitive() ? primitiveSize(type) : REFERENCE;
+        }
+        add(component, 0, align(size));
+        for (var recordComponent : recordComponents) {
+            if (!recordComponent.getType().isPrimitive()) {
+                try {
+                    walk(component, recordComponent.getAccessor().invoke(record));
+                } catch (IllegalAccessException e) {
+                    // the record isn't public, only its shallow size is counted
+                    skippedComponents++;
+                } catch (InvocationTargetException e) {
+                    throw new IllegalStateException("The accessor of the record component `%s` of `%s` failed."
+                            .formatted(recordComponent.getName(), record.getClass().getName()), e.getCause());
+                }
+            }
+        }
+    }
+
+    private void add(Component component, long count, long bytes) {
+        usages.merge(component, new Usage(count, bytes), (a, b) -> a.plus(b.count(), b.bytes()));
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    static long align(long size) {
+        return (size + 7) & ~7;
+    }
+
+    static long stringSize(String string) {
+        var latin1 = string.chars().allMatch(c -> c <= 0xFF);
+        return align(OBJECT_HEADER + REFERENCE + 4 + 2) + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+    }
+
+    static long shallowList(Collection<?> list) {
+        if (list instanceof java.util.ArrayList<?>) {
+            return align(OBJECT_HEADER + 2 * 4 + REFERENCE) + align(ARRAY_HEADER + (long) list.size() * REFERENCE);
+        }
+        if (list.size() <= 2) {
+            return align(OBJECT_HEADER + 2 * REFERENCE);
+        }
+        return align(OBJECT_HEADER + REFERENCE + 1) + align(ARRAY_HEADER + (long) list.size() * REFERENCE);
+    }
+
+    static long shallowMap(Map<?, ?> map) {
+        if (map instanceof HashMap<?, ?>) {
+            var linked = map instanceof LinkedHashMap<?, ?>;
+            var tableSize = Integer.highestOneBit(Math.max(1, (int) (map.size() / 0.75f)) * 2 - 1);
+            return align(OBJECT_HEADER + 6 * 4 + (linked ? 3 * REFERENCE : 0))
+                    + align(ARRAY_HEADER + (long) Math.max(16, tableSize) * REFERENCE)
+                    + map.size() * align(OBJECT_HEADER + 4 + 3 * REFERENCE + (linked ? 2 * REFERENCE : 0));
+        }
+        if (map.size() <= 1) {
+            return align(OBJECT_HEADER + 2 * REFERENCE);
+        }
+        // the immutable maps of Map.of and Map.copyOf use an open addressing table of 4 slots per entry
+        return align(OBJECT_HEADER + 2 * 4) + align(ARRAY_HEADER + (long) map.size() * 4 * REFERENCE);
+    }
+}
@@ -1,16 +1,23 @@
 package de.numcodex.sq2cql.model;
 
+import de.numcodex.sq2cql.TranslationListener;
+import de.numcodex.sq2cql.TranslationOption;
 import de.numcodex.sq2cql.model.common.TermCode;
 import de.numcodex.sq2cql.model.cql.CodeSystemDefinition;
+import de.numcodex.sq2cql.model.cql.Expression;
+import de.numcodex.sq2cql.model.cql.ExpressionInterner;
 import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
 import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static de.numcodex.sq2cql.TranslationListener.Phase.EXPANSION;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -23,12 +30,19 @@ public class MappingContext {
     private final Map<ContextualTermCode, Mapping> mappings;
     private final MappingTreeBase conceptTree;
     private final Map<String, CodeSystemDefinition> codeSystemDefinitions;
+    private final TranslationListener listener;
+    private final Set<TranslationOption> options;
+    private final ExpressionInterner interner;
 
     private MappingContext(Map<ContextualTermCode, Mapping> mappings, MappingTreeBase conceptTree,
-                           Map<String, CodeSystemDefinition> codeSystemDefinitions) {
+                           Map<String, CodeSystemDefinition> codeSystemDefinitions, TranslationListener listener,
+                           Set<TranslationOption> options, ExpressionInterner interner) {
         this.mappings = mappings;
         this.conceptTree = conceptTree;
         this.codeSystemDefinitions = codeSystemDefinitions;
+        this.listener = listener;
+        this.options = options;
+        this.interner = interner;
     }
 
     /**
@@ -37,7 +51,8 @@ public class MappingContext {
      * @return the mapping context
      */
     public static MappingContext of() {
-        return new MappingContext(Map.of(), null, Map.of());
+        return new MappingContext(Map.of(), null, Map.of(), TranslationListener.NOOP, Set.of(),
+                ExpressionInterner.NONE);
     }
 
     /**
@@ -52,7 +67,76 @@ public class MappingContext {
                                     Map<String, String> codeSystemAliases) {
         return new MappingContext(Map.copyOf(mappings), conceptTree, codeSystemAliases.entrySet().stream()
                 .collect(Collectors.toConcurrentMap(Map.Entry::getKey,
-                        e -> CodeSystemDefinition.of(e.getValue(), e.getKey()))));
+                        e -> CodeSystemDefinition.of(e.getValue(), e.getKey()))), TranslationListener.NOOP, Set.of(),
+                ExpressionInterner.NONE);
+    }
+
+    /**
+     * Returns a copy of this mapping context reporting to {@code listener}.
+     *
+     * @param listener the listener to report to
+     * @return the mapping context
+     * @throws NullPointerException if {@code listener} is null
+     */
+    public MappingContext withListener(TranslationListener listener) {
+        return new MappingContext(mappings, conceptTree, codeSystemDefinitions, requireNonNull(listener), options,
+                interner);
+    }
+
+    /**
+     * Returns a copy of this mapping context with exactly {@code options} enabled.
+     *
+     * @param options the options to enable
+     * @return the mapping context
+     * @throws NullPointerException if {@code options} is null
+     */
+    public MappingContext withOptions(Set<TranslationOption> options) {
+        return new MappingContext(mappings, conceptTree, codeSystemDefinitions, listener,
+                options.isEmpty() ? Set.of() : Set.copyOf(EnumSet.copyOf(options)), interner);
+    }
+
+    /**
+     * Returns {@code true} iff {@code option} is enabled.
+     *
+     * @param option the option to test
+     * @return {@code true} iff {@code option} is enabled
+     */
+    public boolean isEnabled(TranslationOption option) {
+        return options.contains(option);
+    }
+
+    /**
+     * Returns a copy of this mapping context interning expressions with {@code interner}.
+     *
+     * @param interner the interner, usually scoped to a single translation
+     * @return the mapping context
+     * @throws NullPointerException if {@code interner} is null
+     */
+    public MappingContext withInterner(ExpressionInterner interner) {
+        return new MappingContext(mappings, conceptTree, codeSystemDefinitions, listener, options,
+                requireNonNull(interner));
+    }
+
+    /**
+     * Returns the instance of {@code expression} shared by the translation.
+     * <p>
+     * Returns {@code expression} itself unless an {@link #withInterner(ExpressionInterner) interner} is set.
+     *
+     * @param expression the expression to intern
+     * @param <T>        the type of the expression
+     * @return the shared instance
+     */
+    public <T extends Expression<?>> T intern(T expression) {
+        return interner.intern(expression);
+    }
+
+    /**
+     * Returns the listener the translation reports to.
+     *
+     * @return the listener, {@link TranslationListener#NOOP} by default
+     */
+    public TranslationListener listener() {
+        return listener;
     }
 
     /**
@@ -72,9 +156,16 @@ public class MappingContext {
      * @return the stream of TermCodes
      */
     public Stream<ContextualTermCode> expandConcept(ContextualConcept concept) {
+        var startTime = listener.phaseStarted(EXPANSION);
         List<ContextualTermCode> expandedCodes = conceptTree == null ? List.of() : expandCodes(concept);
         List<ContextualTermCode> concepts = expandedCodes.isEmpty() ? concept.contextualTermCodes() : expandedCodes;
-        return concepts.stream().filter(mappings::containsKey);
+        listener.phaseFinished(EXPANSION, startTime);
+        if (listener == TranslationListener.NOOP) {
+            return concepts.stream().filter(mappings::containsKey);
+        }
+        var mappedConcepts = concepts.stream().filter(mappings::containsKey).toList();
+        listener.conceptExpanded(concept, mappedConcepts.size(), concepts.size() - mappedConcepts.size());
+        return mappedConcepts.stream();
     }
 
     private List<ContextualTermCode> expandCodes(ContextualConcept concept) {
@@ -90,4 +181,15 @@ public class MappingContext {
     public Optional<CodeSystemDefinition> findCodeSystemDefinition(String system) {
         return Optional.ofNullable(codeSystemDefinitions.get(requireNonNull(system)));
     }
+
+    /**
+     * Estimates the heap usage of the mappings and the concept tree of this mapping context.
+     *
+     * @return the memory footprint broken down by component
+     */
+    public MemoryFootprint footprint() {
+        var estimator = new FootprintEstimator();
+        estimator.mappingContext(mappings, conceptTree);
+        return estimator.footprint();
+    }
 }
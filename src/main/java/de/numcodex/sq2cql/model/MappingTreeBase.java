@@ -1,6 +1,7 @@
 package de.numcodex.sq2cql.model;
 
 
+import de.numcodex.sq2cql.jfr.ExpansionEvent;
 import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
 
 import java.util.List;
@@ -9,6 +10,32 @@ import java.util.stream.Stream;
 public record MappingTreeBase(List<MappingTreeModuleRoot> moduleRoots) {
 
     public Stream<ContextualTermCode> expand(ContextualTermCode termCode) {
+        var event = new ExpansionEvent();
+        if (!event.isEnabled()) {
+            return expandLazy(termCode);
+        }
+        event.begin();
+        var termCodes = expandLazy(termCode).toList();
+        if (event.shouldCommit()) {
+            event.setTermCode(termCode.termCode().system() + "|" + termCode.termCode().code());
+            event.setExpansionSize(termCodes.size());
+            event.commit();
+        }
+        return termCodes.stream();
+    }
+
+    /**
+     * Estimates the heap usage of this concept tree.
+     *
+     * @return the memory footprint with the tree components filled
+     */
+    public MemoryFootprint footprint() {
+        var estimator = new FootprintEstimator();
+        estimator.conceptTree(this);
+        return estimator.footprint();
+    }
+
+    private Stream<ContextualTermCode> expandLazy(ContextualTermCode termCode) {
         var key = termCode.termCode().code();
 
         return moduleRoots.stream().flatMap(moduleRoot ->
@@ -0,0 +1,127 @@
+package de.numcodex.sq2cql.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An estimation of the heap usage of a {@link MappingContext} or {@link MappingTreeBase} broken down by {@link
+ * Component component}.
+ * <p>
+ * Byte sizes are estimated for a 64-bit JVM with compressed oops and compact strings. Every object is attributed to
+ * the component it is reached from first, so that shared objects are counted only once. The estimation is meant to
+ * compare components against each other and ontology releases against each other, not to match heap dumps exactly.
+ *
+ * @param components       the usage of each component
+ * @param duplicateStrings the strings that are equal to another string but not the same instance, these are already
+ *                         part of the component usages
+ * @param skippedComponents the number of record components that couldn't be walked because their record isn't
+ *                          public, the objects they reference are missing from the component usages
+ */
+public record MemoryFootprint(Map<Component, Usage> components, Usage duplicateStrings, long skippedComponents) {
+
+    public MemoryFootprint {
+        components = Map.copyOf(components);
+        requireNonNull(duplicateStrings);
+    }
+
+    static MemoryFootprint of(EnumMap<Component, Usage> components, Usage duplicateStrings, long skippedComponents) {
+        for (var component : Component.values()) {
+            components.putIfAbsent(component, Usage.ZERO);
+        }
+        return new MemoryFootprint(components, duplicateStrings, skippedComponents);
+    }
+
+    /**
+     * Returns the usage of {@code component}.
+     *
+     * @param component the component
+     * @return the usage of {@code component}
+     */
+    public Usage usage(Component component) {
+        return components.getOrDefault(component, Usage.ZERO);
+    }
+
+    /**
+     * Returns the sum of the estimated bytes of all components.
+     *
+     * @return the total estimated bytes
+     */
+    public long totalBytes() {
+        return components.values().stream().mapToLong(Usage::bytes).sum();
+    }
+
+    /**
+     * Returns a human-readable report with one line per component.
+     *
+     * @return the report
+     */
+    public String report() {
+        var report = new StringBuilder();
+        for (var component : Component.values()) {
+            var usage = usage(component);
+            report.append("%-20s %,12d objects %,16d bytes%n".formatted(component, usage.count(), usage.bytes()));
+        }
+        report.append("%-20s %,12d objects %,16d bytes%n".formatted("DUPLICATE_STRINGS", duplicateStrings.count(),
+                duplicateStrings.bytes()));
+        report.append("%-20s %,12d components%n".formatted("SKIPPED_COMPONENTS", skippedComponents));
+        report.append("%-20s %12s %,24d bytes%n".formatted("TOTAL", "", totalBytes()));
+        return report.toString();
+    }
+
+    /**
+     * The components of a {@link MappingContext}.
+     */
+    public enum Component {
+
+        /**
+         * The {@link Mapping} objects, their keys, the strings they hold and the map holding them. Counts mappings.
+         */
+        MAPPINGS,
+
+        /**
+         * The {@link Mapping#attributeMappings() attribute mapping} maps and the {@link AttributeMapping
+         * AttributeMappings} they hold. Counts maps.
+         */
+        ATTRIBUTE_MAPPINGS,
+
+        /**
+         * The {@link Mapping#fixedCriteria() fixed criteria} lists and their modifiers. Counts modifiers.
+         */
+        FIXED_CRITERIA,
+
+        /**
+         * The {@link de.numcodex.sq2cql.model.common.TermCode TermCodes} and their strings, wherever they are
+         * referenced from. Counts term codes.
+         */
+        TERM_CODES,
+
+        /**
+         * The {@link MappingTreeModuleRoot#entries() entries} maps of the concept tree, the {@link
+         * MappingTreeModuleEntry entries} and their keys. Counts entries.
+         */
+        TREE_ENTRIES,
+
+        /**
+         * The {@link MappingTreeModuleEntry#children() child lists} of the concept tree and the strings they hold
+         * that are not already entry keys. Counts lists.
+         */
+        TREE_CHILD_LISTS
+    }
+
+    /**
+     * The usage of a component.
+     *
+     * @param count the number of objects as documented at each {@link Component component}
+     * @param bytes the estimated number of bytes retained
+     */
+    public record Usage(long count, long bytes) {
+
+        public static final Usage ZERO = new Usage(0, 0);
+
+        Usage plus(long count, long bytes) {
+            return new Usage(this.count + count, this.bytes + bytes);
+        }
+    }
+}
@@ -2,24 +2,21 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.joining;
 
 public record AdditionExpressionTerm(List<? extends DefaultExpression> expressions) implements
         DefaultExpression {
 
     public static final int PRECEDENCE = 16;
 
-
     public AdditionExpressionTerm {
         expressions = List.copyOf(expressions);
     }
 
-
     public static DefaultExpression of(DefaultExpression e1, DefaultExpression e2) {
         if (e1 instanceof AdditionExpressionTerm) {
             return new AdditionExpressionTerm(
@@ -32,13 +29,25 @@ public record AdditionExpressionTerm(List<? extends DefaultExpression> expressio
 
     @Override
     public String print(PrintContext printContext) {
-        return printContext.parenthesize(PRECEDENCE, expressions.stream()
-                .map(printContext.withPrecedence(PRECEDENCE)::print)
-                .collect(joining(" + ")));
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var childPrintContext = printContext.withPrecedence(PRECEDENCE);
+        printContext.openParenthesis(PRECEDENCE, out);
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(" + ");
+            }
+            childPrintContext.print(expressions.get(i), out);
+        }
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new AdditionExpressionTerm(expressions.stream().map(e -> e.withIncrementedSuffixes(increments)).toList());
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expressions = rewriter.rewriteAll(this.expressions);
+        return expressions == this.expressions ? this : new AdditionExpressionTerm(expressions);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -18,12 +18,20 @@ public record AliasedQuerySource(Expression<?> querySource, IdentifierExpression
     }
 
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
-        return "%s %s".formatted(querySource.print(printContext.increase()), alias.print(printContext));
+        querySource.print(printContext.increase(), out);
+        out.append(' ');
+        alias.print(printContext, out);
     }
 
-    public AliasedQuerySource withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new AliasedQuerySource(querySource.withIncrementedSuffixes(increments),
-                alias.withIncrementedSuffixes(increments));
+    public AliasedQuerySource rewrite(ExpressionRewriter rewriter) {
+        var querySource = this.querySource.rewrite(rewriter);
+        var alias = this.alias.rewrite(rewriter);
+        return querySource == this.querySource && alias == this.alias ? this
+                : new AliasedQuerySource(querySource, alias);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,14 +24,27 @@ public record BetweenExpression(Expression<?> value,
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         var childPrintContext = printContext.withPrecedence(PRECEDENCE);
-        return printContext.parenthesize(PRECEDENCE, "%s between %s and %s".formatted(value.print(childPrintContext),
-                lowerBound.print(childPrintContext), upperBound.print(childPrintContext)));
+        printContext.openParenthesis(PRECEDENCE, out);
+        value.print(childPrintContext, out);
+        out.append(" between ");
+        lowerBound.print(childPrintContext, out);
+        out.append(" and ");
+        upperBound.print(childPrintContext, out);
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new BetweenExpression(value.withIncrementedSuffixes(increments),
-                lowerBound.withIncrementedSuffixes(increments), upperBound.withIncrementedSuffixes(increments));
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var value = this.value.rewrite(rewriter);
+        var lowerBound = this.lowerBound.rewrite(rewriter);
+        var upperBound = this.upperBound.rewrite(rewriter);
+        return value == this.value && lowerBound == this.lowerBound && upperBound == this.upperBound ? this
+                : new BetweenExpression(value, lowerBound, upperBound);
     }
 }
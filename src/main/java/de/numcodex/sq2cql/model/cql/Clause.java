@@ -2,11 +2,29 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 public interface Clause {
 
     String print(PrintContext printContext);
 
-    Clause withIncrementedSuffixes(Map<String, Integer> increments);
+    /**
+     * Appends the same text {@link #print(PrintContext)} returns to {@code out}.
+     *
+     * @param printContext the context to print in
+     * @param out          the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    default void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append(print(printContext));
+    }
+
+    /**
+     * Returns a copy of this clause with all expressions {@link Expression#rewrite(ExpressionRewriter) rewritten} by
+     * {@code rewriter}.
+     *
+     * @param rewriter the rewriter of the expressions
+     * @return the rewritten clause or this clause itself if no expression changed
+     */
+    Clause rewrite(ExpressionRewriter rewriter);
 }
@@ -2,8 +2,6 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
-
 import static java.util.Objects.requireNonNull;
 
 public record CodeSelector(String code, String codeSystemIdentifier) implements ExpressionTerm<CodeSelector> {
@@ -19,11 +17,11 @@ public record CodeSelector(String code, String codeSystemIdentifier) implements
 
     @Override
     public String print(PrintContext printContext) {
-        return "Code '%s' from %s".formatted(code, codeSystemIdentifier);
+        return "Code '" + code + "' from " + codeSystemIdentifier;
     }
 
     @Override
-    public CodeSelector withIncrementedSuffixes(Map<String, Integer> increments) {
+    public CodeSelector rewriteChildren(ExpressionRewriter rewriter) {
         return this;
     }
 }
@@ -0,0 +1,131 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Common-subexpression elimination over the definitions of the Patient context.
+ * <p>
+ * Looks at the definitions and at the operands of definitions that are {@link OrExpression disjunctions} or {@link
+ * AndExpression conjunctions}, which is where the translation repeats whole queries. Definitions with the same
+ * expression as an earlier definition are replaced by a reference to it. Operands occurring more than once are
+ * hoisted into a definition of their own, named by a {@link SymbolicIdentifierExpression symbolic identifier} with the
+ * prefix {@value #PREFIX}, which is placed right before its first use. Operands that are equal to the expression of an
+ * earlier definition refer to that definition instead.
+ * <p>
+ * Blaze evaluates every definition only once per patient, so each hoisted expression is evaluated once instead of once
+ * per occurrence. The elimination needs two passes over the definitions and hashes every operand twice.
+ */
+final class CommonSubexpressions {
+
+    static final String PREFIX = "Shared";
+
+    private CommonSubexpressions() {
+    }
+
+    /**
+     * Returns {@code definitions} with common subexpressions shared, or {@code definitions} itself if there are none.
+     */
+    static DefinitionList eliminate(DefinitionList definitions) {
+        var counts = new HashMap<Expression<?>, Integer>();
+        var firstDefinitions = new HashMap<Expression<?>, IdentifierExpression>();
+        var duplicates = false;
+        for (var definition : definitions) {
+            var expression = unwrap(definition.expression());
+            if (isCandidate(expression) && firstDefinitions.putIfAbsent(expression, definition.name()) != null) {
+                // the operands of a duplicate definition are not evaluated after its replacement
+                duplicates = true;
+                continue;
+            }
+            for (var operand : operands(expression)) {
+                if (isCandidate(operand)) {
+                    counts.merge(operand, 1, Integer::sum);
+                }
+            }
+        }
+        if (!duplicates && counts.values().stream().allMatch(count -> count == 1)) {
+            return definitions;
+        }
+
+        var result = new ArrayList<ExpressionDefinition>(definitions.size());
+        var shared = new HashMap<Expression<?>, IdentifierExpression>();
+        for (var definition : definitions) {
+            var expression = unwrap(definition.expression());
+            if (!isCandidate(expression)) {
+                result.add(definition);
+                continue;
+            }
+            var first = firstDefinitions.get(expression);
+            if (!first.equals(definition.name())) {
+                result.add(ExpressionDefinition.of(definition.name(), new WrapperExpression(first)));
+            } else if (expression instanceof OrExpression orExpression) {
+                var operands = share(orExpression.expressions(), counts, shared, result);
+                result.add(operands == null ? definition
+                        : ExpressionDefinition.of(definition.name(), new OrExpression(operands)));
+            } else if (expression instanceof AndExpression andExpression) {
+                var operands = share(andExpression.expressions(), counts, shared, result);
+                result.add(operands == null ? definition
+                        : ExpressionDefinition.of(definition.name(), new AndExpression(operands)));
+            } else {
+                var identifier = shared.putIfAbsent(expression, definition.name());
+                result.add(identifier == null ? definition
+                        : ExpressionDefinition.of(definition.name(), new WrapperExpression(identifier)));
+            }
+        }
+        return DefinitionList.copyOf(result);
+    }
+
+    /**
+     * Replaces the operands occurring more than once by identifiers, adding the definitions of newly hoisted operands
+     * to {@code result}.
+     *
+     * @return the new operands or {@code null} if no operand was replaced
+     */
+    private static List<DefaultExpression> share(List<DefaultExpression> operands, Map<Expression<?>, Integer> counts,
+                                                 Map<Expression<?>, IdentifierExpression> shared,
+                                                 List<ExpressionDefinition> result) {
+        List<DefaultExpression> newOperands = null;
+        for (int i = 0; i < operands.size(); i++) {
+            var operand = unwrap(operands.get(i));
+            if (!isCandidate(operand) || counts.get(operand) < 2) {
+                continue;
+            }
+            var identifier = shared.computeIfAbsent(operand, expression -> {
+                var hoisted = ExpressionDefinition.of(SymbolicIdentifierExpression.of(PREFIX), expression);
+                result.add(hoisted);
+                return hoisted.name();
+            });
+            if (newOperands == null) {
+                newOperands = new ArrayList<>(operands);
+            }
+            newOperands.set(i, new WrapperExpression(identifier));
+        }
+        return newOperands;
+    }
+
+    private static List<? extends Expression<?>> operands(Expression<?> expression) {
+        if (expression instanceof OrExpression orExpression) {
+            return orExpression.expressions().stream().map(CommonSubexpressions::unwrap).toList();
+        }
+        if (expression instanceof AndExpression andExpression) {
+            return andExpression.expressions().stream().map(CommonSubexpressions::unwrap).toList();
+        }
+        return List.of(expression);
+    }
+
+    private static Expression<?> unwrap(Expression<?> expression) {
+        while (expression instanceof WrapperExpression wrapper) {
+            expression = wrapper.expression();
+        }
+        return expression;
+    }
+
+    /**
+     * Identifiers and constants are as cheap as a reference to a definition.
+     */
+    private static boolean isCandidate(Expression<?> expression) {
+        return !expression.isIdentifier() && expression != Expression.TRUE && expression != Expression.FALSE;
+    }
+}
@@ -3,7 +3,7 @@ package de.numcodex.sq2cql.model.cql;
 import de.numcodex.sq2cql.PrintContext;
 import de.numcodex.sq2cql.model.common.Comparator;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -26,15 +26,24 @@ public record ComparatorExpression(Expression<?> a, Comparator comparator,
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         var precedence = comparator.getPrecedence();
         var childPrintContext = printContext.withPrecedence(precedence);
-        return printContext.parenthesize(precedence, "%s %s %s".formatted(a.print(childPrintContext), comparator,
-                b.print(childPrintContext)));
+        printContext.openParenthesis(precedence, out);
+        a.print(childPrintContext, out);
+        out.append(' ').append(comparator.toString()).append(' ');
+        b.print(childPrintContext, out);
+        printContext.closeParenthesis(precedence, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new ComparatorExpression(a.withIncrementedSuffixes(increments), comparator,
-                b.withIncrementedSuffixes(increments));
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var a = this.a.rewrite(rewriter);
+        var b = this.b.rewrite(rewriter);
+        return a == this.a && b == this.b ? this : new ComparatorExpression(a, comparator, b);
     }
 }
@@ -1,14 +1,15 @@
 package de.numcodex.sq2cql.model.cql;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.numcodex.sq2cql.Maps;
-import de.numcodex.sq2cql.Sets;
+import de.numcodex.sq2cql.PrintContext;
+import de.numcodex.sq2cql.jfr.PrintEvent;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
@@ -20,34 +21,46 @@ import static java.util.stream.Collectors.joining;
  * Containers can be {@link #combiner combined}, collecting all code system definitions the
  * individual contains use.
  * <p>
+ * The definitions are held in persistent collections, so that combined containers share them with their operands
+ * instead of copying them.
+ * <p>
  * Instances are immutable.
  *
  * @author Alexander Kiel
  */
 public final class Container<T extends Expression<T>> {
 
-    private static final Container<DefaultExpression> EMPTY = new Container<>(null, Set.of(), Set.of(), List.of());
+    private static final Container<DefaultExpression> EMPTY = new Container<>(null, PersistentSet.empty(),
+            PersistentSet.empty(), DefinitionList.empty(), Map.of());
     public static final BinaryOperator<Container<DefaultExpression>> AND = combiner(AndExpression::of);
     public static final BinaryOperator<Container<DefaultExpression>> AND_NOT = combiner((a, b) -> a.and(NotExpression.of(b)));
     public static final BinaryOperator<Container<DefaultExpression>> OR = combiner(OrExpression::of);
     public static final BinaryOperator<Container<DefaultExpression>> UNION = combiner(UnionExpression::of);
+    private static final BinaryOperator<Map<String, Integer>> MAX_SUFFIXES = Maps.merge(Integer::max);
+    private static final String COMPACT_NAME_PREFIX = "D";
     private static final String HEADER = """
             library Retrieve version '1.0.0'
             using FHIR version '4.0.0'
             include FHIRHelpers version '4.0.0'
             """;
     private final T expression;
-    private final Set<CodeSystemDefinition> codeSystemDefinitions;
-    private final Set<ExpressionDefinition> unfilteredDefinitions;
-    private final List<ExpressionDefinition> patientDefinitions;
+    private final PersistentSet<CodeSystemDefinition> codeSystemDefinitions;
+    private final PersistentSet<ExpressionDefinition> unfilteredDefinitions;
+    private final DefinitionList patientDefinitions;
+
+    /**
+     * The patient definitions name identifier prefixes to their maximum numerical suffixes.
+     */
+    private final Map<String, Integer> suffixes;
 
-    private Container(T expression, Set<CodeSystemDefinition> codeSystemDefinitions,
-                      Set<ExpressionDefinition> unfilteredDefinitions,
-                      List<ExpressionDefinition> patientDefinitions) {
+    private Container(T expression, PersistentSet<CodeSystemDefinition> codeSystemDefinitions,
+                      PersistentSet<ExpressionDefinition> unfilteredDefinitions,
+                      DefinitionList patientDefinitions, Map<String, Integer> suffixes) {
         this.expression = expression;
         this.codeSystemDefinitions = codeSystemDefinitions;
         this.unfilteredDefinitions = unfilteredDefinitions;
         this.patientDefinitions = patientDefinitions;
+        this.suffixes = suffixes;
     }
 
     /**
@@ -74,7 +87,18 @@ public final class Container<T extends Expression<T>> {
      * @throws NullPointerException if {@code expression} is null
      */
     public static <T extends Expression<T>> Container<T> of(T expression, CodeSystemDefinition... codeSystemDefinitions) {
-        return new Container<>(requireNonNull(expression), Set.of(codeSystemDefinitions), Set.of(), List.of());
+        return new Container<>(requireNonNull(expression), PersistentSet.of(codeSystemDefinitions),
+                PersistentSet.empty(), DefinitionList.empty(), Map.of());
+    }
+
+    /**
+     * Returns a container holding the already collected definitions of a {@link LibraryBuilder}.
+     */
+    static <T extends Expression<T>> Container<T> of(T expression, PersistentSet<CodeSystemDefinition> codeSystemDefinitions,
+                                                     PersistentSet<ExpressionDefinition> unfilteredDefinitions,
+                                                     DefinitionList patientDefinitions, Map<String, Integer> suffixes) {
+        return new Container<>(requireNonNull(expression), codeSystemDefinitions, unfilteredDefinitions,
+                patientDefinitions, suffixes);
     }
 
     /**
@@ -94,8 +118,8 @@ public final class Container<T extends Expression<T>> {
         return (a, b) -> {
             if (a == EMPTY) return b;
             if (b == EMPTY) return a;
-            var aSuffixes = a.suffixes();
-            var bSuffixes = b.suffixes();
+            var aSuffixes = a.suffixes;
+            var bSuffixes = b.suffixes;
             // create increments of suffixes in A that were zero but are also in B
             var aIncrements = new HashMap<String, Integer>();
             var bIncrements = new HashMap<String, Integer>();
@@ -109,30 +133,42 @@ public final class Container<T extends Expression<T>> {
                     });
             aSuffixes.entrySet().stream()
                     .filter(e -> e.getValue() > 0)
+                    .filter(e -> bSuffixes.containsKey(e.getKey()))
                     .forEach(e -> bIncrements.put(e.getKey(), e.getValue() + (bSuffixes.get(e.getKey()) == 0 ? 1 : 0)));
 
-            return new Container<>(combiner.apply(a.expression.withIncrementedSuffixes(aIncrements),
-                    b.expression.withIncrementedSuffixes(bIncrements)),
-                    Sets.union(a.codeSystemDefinitions, b.codeSystemDefinitions),
-                    Sets.union(a.unfilteredDefinitions, b.unfilteredDefinitions),
-                    ExpressionDefinitions.unionByName(a.withIncrementedSuffixes(aIncrements),
-                            b.withIncrementedSuffixes(bIncrements)));
+            return new Container<>(combiner.apply(withIncrementedSuffixes(a.expression, aIncrements),
+                    withIncrementedSuffixes(b.expression, bIncrements)),
+                    a.codeSystemDefinitions.union(b.codeSystemDefinitions),
+                    a.unfilteredDefinitions.union(b.unfilteredDefinitions),
+                    a.withIncrementedSuffixes(aIncrements).unionByName(b.withIncrementedSuffixes(bIncrements)),
+                    MAX_SUFFIXES.apply(incremented(aSuffixes, aIncrements), incremented(bSuffixes, bIncrements)));
         };
     }
 
     /**
-     * Returns a map of patient definitions name identifier prefixes to their maximum numerical suffixes.
-     *
-     * @return a map of identifier prefixes to numerical suffixes
+     * Returns {@code suffixes} with {@code increments} added, which are the suffixes of a container after {@link
+     * #withIncrementedSuffixes(Map) incrementing} them.
+     */
+    private static Map<String, Integer> incremented(Map<String, Integer> suffixes, Map<String, Integer> increments) {
+        if (increments.isEmpty()) {
+            return suffixes;
+        }
+        var incremented = new HashMap<String, Integer>(suffixes);
+        incremented.replaceAll((prefix, suffix) -> suffix + increments.getOrDefault(prefix, 0));
+        return Map.copyOf(incremented);
+    }
+
+    /**
+     * Increments the suffixes of {@code expression}, leaving it untouched if there is nothing to increment.
      */
-    private Map<String, Integer> suffixes() {
-        return patientDefinitions.stream()
-                .map(ExpressionDefinition::suffixes)
-                .reduce(Map.of(), Maps.merge(Integer::max));
+    private static <T extends Expression<T>> T withIncrementedSuffixes(T expression, Map<String, Integer> increments) {
+        return increments.isEmpty() ? expression : expression.withIncrementedSuffixes(increments);
     }
 
-    private List<ExpressionDefinition> withIncrementedSuffixes(Map<String, Integer> increments) {
-        return patientDefinitions.stream().map(d -> d.withIncrementedSuffixes(increments)).toList();
+    private DefinitionList withIncrementedSuffixes(Map<String, Integer> increments) {
+        return increments.isEmpty()
+                ? patientDefinitions
+                : patientDefinitions.map(d -> d.withIncrementedSuffixes(increments));
     }
 
     /**
@@ -154,6 +190,24 @@ public final class Container<T extends Expression<T>> {
         return codeSystemDefinitions;
     }
 
+    /**
+     * Returns the expression definitions of the Unfiltered context the container holds.
+     *
+     * @return the expression definitions of the Unfiltered context
+     */
+    public Set<ExpressionDefinition> getUnfilteredDefinitions() {
+        return unfilteredDefinitions;
+    }
+
+    /**
+     * Returns the expression definitions of the Patient context the container holds.
+     *
+     * @return the expression definitions of the Patient context in order
+     */
+    public List<ExpressionDefinition> getPatientDefinitions() {
+        return patientDefinitions;
+    }
+
     private Optional<Context> getUnfilteredContext() {
         var list = new ArrayList<>(unfilteredDefinitions);
         list.sort(Comparator.comparing(ExpressionDefinition::name));
@@ -184,8 +238,8 @@ public final class Container<T extends Expression<T>> {
 
         var identifier = StandardIdentifierExpression.of(name);
         return new Container<>(new WrapperExpression(identifier), codeSystemDefinitions,
-                Sets.append(unfilteredDefinitions, ExpressionDefinition.of(identifier, expression)),
-                patientDefinitions);
+                unfilteredDefinitions.plus(ExpressionDefinition.of(identifier, expression)),
+                patientDefinitions, suffixes);
     }
 
     /**
@@ -201,9 +255,8 @@ public final class Container<T extends Expression<T>> {
         if (expression == null) {
             return map(WrapperExpression::new);
         }
-        var identifier = SuffixedIdentifierExpression.of(name, suffixes().getOrDefault(name, 0));
-        return new Container<>(new WrapperExpression(identifier), codeSystemDefinitions, unfilteredDefinitions,
-                ExpressionDefinitions.appendByUniqueName(patientDefinitions, ExpressionDefinition.of(identifier, expression)));
+        var identifier = SuffixedIdentifierExpression.of(name, suffixes.getOrDefault(name, 0));
+        return appendPatientDefinition(ExpressionDefinition.of(identifier, expression));
     }
 
     /**
@@ -224,8 +277,33 @@ public final class Container<T extends Expression<T>> {
             return map(WrapperExpression::new);
         }
         var identifier = StandardIdentifierExpression.of(name);
-        return new Container<>(new WrapperExpression(identifier), codeSystemDefinitions, unfilteredDefinitions,
-                ExpressionDefinitions.appendByUniqueName(patientDefinitions, ExpressionDefinition.of(identifier, expression)));
+        return appendPatientDefinition(ExpressionDefinition.of(identifier, expression));
+    }
+
+    /**
+     * Moves the expression of this container into the patient context and returns a Container with a {@link
+     * SymbolicIdentifierExpression symbolic identifier} with the prefix {@code name}.
+     * <p>
+     * The final name of the identifier is assigned when the container is {@link #print() printed}. Other than {@link
+     * #moveToPatientContext(String)}, combining containers doesn't have to rename such identifiers. Both kinds of
+     * identifiers shouldn't be used with the same prefix in one container, because they are numbered independently.
+     *
+     * @param name the prefix of the name of the expression definition in the Patient context
+     * @return a Container with a {@link SymbolicIdentifierExpression} with the prefix {@code name}
+     */
+    public Container<DefaultExpression> moveToPatientContextWithSymbolicName(String name) {
+        if (expression == null) {
+            return map(WrapperExpression::new);
+        }
+        return appendPatientDefinition(ExpressionDefinition.of(SymbolicIdentifierExpression.of(name), expression));
+    }
+
+    private Container<DefaultExpression> appendPatientDefinition(ExpressionDefinition definition) {
+        var newPatientDefinitions = patientDefinitions.appendByUniqueName(definition);
+        return new Container<>(new WrapperExpression(definition.name()), codeSystemDefinitions, unfilteredDefinitions,
+                newPatientDefinitions, newPatientDefinitions == patientDefinitions
+                        ? suffixes
+                        : MAX_SUFFIXES.apply(suffixes, definition.suffixes()));
     }
 
     /**
@@ -239,7 +317,7 @@ public final class Container<T extends Expression<T>> {
 
     public <U extends Expression<U>> Container<U> map(Function<? super T, ? extends U> mapper) {
         return isEmpty() ? empty() : new Container<>(requireNonNull(mapper.apply(expression)),
-                codeSystemDefinitions, unfilteredDefinitions, patientDefinitions);
+                codeSystemDefinitions, unfilteredDefinitions, patientDefinitions, suffixes);
     }
 
     public <U extends Expression<U>> Container<U> flatMap(Function<? super T, Container<? extends U>> mapper) {
@@ -250,40 +328,229 @@ public final class Container<T extends Expression<T>> {
         if (container.expression == null) {
             return empty();
         } else {
-            var increments = suffixes();
-            return new Container<>(container.expression.withIncrementedSuffixes(increments),
-                    Sets.union(codeSystemDefinitions, container.codeSystemDefinitions),
-                    Sets.union(unfilteredDefinitions, container.unfilteredDefinitions),
-                    ExpressionDefinitions.unionByName(patientDefinitions, container.patientDefinitions.stream()
-                            .map(d -> d.withIncrementedSuffixes(increments))
-                            .toList()));
+            var increments = suffixes;
+            return new Container<>(withIncrementedSuffixes(container.expression, increments),
+                    codeSystemDefinitions.union(container.codeSystemDefinitions),
+                    unfilteredDefinitions.union(container.unfilteredDefinitions),
+                    patientDefinitions.unionByName(container.withIncrementedSuffixes(increments)),
+                    MAX_SUFFIXES.apply(suffixes, incremented(container.suffixes, increments)));
         }
     }
 
+    /**
+     * Returns a container in which repeated subexpressions of the Patient definitions are shared in definitions of
+     * their own.
+     * <p>
+     * Definitions with the same expression as an earlier definition refer to it, and operands of disjunctions and
+     * conjunctions occurring more than once are hoisted into a definition with a {@link SymbolicIdentifierExpression
+     * symbolic name} like {@code "Shared 1"}. The expression of the container itself is kept.
+     *
+     * @return a container with common subexpressions shared or this container if there are none
+     */
+    public Container<T> eliminateCommonSubexpressions() {
+        var definitions = CommonSubexpressions.eliminate(patientDefinitions);
+        return definitions == patientDefinitions ? this : new Container<>(expression, codeSystemDefinitions,
+                unfilteredDefinitions, definitions, suffixes);
+    }
+
     public Container<T> or(Supplier<T> expressionSupplier) {
         return isEmpty() ? of(expressionSupplier.get()) : this;
     }
 
+    /**
+     * Returns the names of the symbolic identifiers of the Patient definitions.
+     * <p>
+     * Symbolic identifiers with the same prefix are numbered in the order of their definitions. If there is only one
+     * identifier with a prefix, its name is the prefix alone. This is the same naming {@link #moveToPatientContext(String)
+     * suffixed identifiers} get by renaming on every combine.
+     *
+     * @return a map of symbolic identifiers to their names, empty if there are no symbolic identifiers
+     */
+    public Map<SymbolicIdentifierExpression, String> symbolicNames() {
+        var counts = new HashMap<String, Integer>();
+        for (var definition : patientDefinitions) {
+            if (definition.name() instanceof SymbolicIdentifierExpression identifier) {
+                counts.merge(identifier.prefix(), 1, Integer::sum);
+            }
+        }
+        if (counts.isEmpty()) {
+            return Map.of();
+        }
+        var positions = new HashMap<String, Integer>();
+        var names = new HashMap<SymbolicIdentifierExpression, String>();
+        for (var definition : patientDefinitions) {
+            if (definition.name() instanceof SymbolicIdentifierExpression identifier) {
+                var prefix = identifier.prefix();
+                names.put(identifier, counts.get(prefix) == 1
+                        ? prefix
+                        : prefix + " " + positions.merge(prefix, 1, Integer::sum));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns short names for the definitions of this container, used to print it {@link PrintContext#compact()
+     * compact}.
+     * <p>
+     * The definitions of both contexts are named {@value #COMPACT_NAME_PREFIX} followed by their position. Only the
+     * definition the expression of this container refers to keeps its name, because it's evaluated by name.
+     *
+     * @return a map of the names of the definitions to their short names
+     */
+    private Map<IdentifierExpression, String> compactNames() {
+        Expression<?> entryPoint = expression;
+        while (entryPoint instanceof WrapperExpression wrapper) {
+            entryPoint = wrapper.expression();
+        }
+        var definitions = new ArrayList<ExpressionDefinition>(unfilteredDefinitions.size() + patientDefinitions.size());
+        getUnfilteredContext().ifPresent(context -> definitions.addAll(context.expressionDefinitions()));
+        definitions.addAll(patientDefinitions);
+        var names = new HashMap<IdentifierExpression, String>();
+        for (var definition : definitions) {
+            if (!definition.name().equals(entryPoint)) {
+                names.putIfAbsent(definition.name(), COMPACT_NAME_PREFIX + (names.size() + 1));
+            }
+        }
+        return names;
+    }
+
     private String printCodeSystemDefinitions() {
         return codeSystemDefinitions.stream()
                 .sorted(Comparator.comparing(CodeSystemDefinition::name))
                 .map(CodeSystemDefinition::print).collect(joining("\n")) + "\n";
     }
 
-    private String printUnfilteredContext() {
-        return getUnfilteredContext().map(Context::print).orElse("");
+    public String printPatientContext() {
+        return printPatientContext(PrintContext.ZERO.withNames(symbolicNames()));
     }
 
-    public String printPatientContext() {
-        return getPatientContext().map(Context::print).orElse("");
+    private String printPatientContext(PrintContext printContext) {
+        return getPatientContext().map(context -> context.print(printContext)).orElse("");
     }
 
     public String print() {
-        return Stream.of(HEADER,
-                        printCodeSystemDefinitions(),
-                        printUnfilteredContext(),
-                        printPatientContext())
-                .filter(Predicate.not(String::isBlank))
-                .collect(joining("\n"));
+        return print(PrintContext.ZERO);
+    }
+
+    /**
+     * Prints the CQL library of this container in the mode of {@code printContext}.
+     * <p>
+     * With {@link PrintContext#COMPACT}, expressions are printed without line breaks, contexts and definitions without
+     * blank lines between them, and definitions get {@link #compactNames() short names}. Parentheses are only ever
+     * printed where the precedence of the operators requires them, in both modes.
+     *
+     * @param printContext the print context with the mode to print in, usually {@link PrintContext#ZERO} or {@link
+     *                     PrintContext#COMPACT}
+     * @return the CQL library
+     */
+    public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    /**
+     * Appends the same CQL library {@link #print()} returns to {@code out}.
+     * <p>
+     * The definitions are appended one after another, so that large libraries don't have to be held in memory as a
+     * whole. To print into an {@link java.io.OutputStream}, wrap it into a buffered {@link java.io.OutputStreamWriter}
+     * with UTF-8 encoding.
+     *
+     * @param out the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void print(Appendable out) throws IOException {
+        print(PrintContext.ZERO, out);
+    }
+
+    /**
+     * Appends the same CQL library {@link #print(PrintContext)} returns to {@code out}.
+     *
+     * @param printContext the print context with the mode to print in
+     * @param out          the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var event = new PrintEvent();
+        event.begin();
+        var countingOut = event.isEnabled() ? new CountingAppendable(out) : null;
+        if (countingOut != null) {
+            out = countingOut;
+        }
+        printContext = printContext.withNames(printContext.compact() ? compactNames() : symbolicNames());
+        var separator = printContext.compact() ? "" : "\n";
+        out.append(HEADER);
+        if (!codeSystemDefinitions.isEmpty()) {
+            out.append(separator).append(printCodeSystemDefinitions());
+        }
+        var unfilteredContext = getUnfilteredContext();
+        if (unfilteredContext.isPresent()) {
+            out.append(separator);
+            unfilteredContext.get().print(printContext, out);
+        }
+        var patientContext = getPatientContext();
+        if (patientContext.isPresent()) {
+            out.append(separator);
+            patientContext.get().print(printContext, out);
+        }
+        if (event.shouldCommit()) {
+            event.setPatientDefinitions(patientDefinitions.size());
+            event.setOutputLength(countingOut == null ? 0 : countingOut.length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the ELM JSON of the CQL library {@link #print()} returns.
+     * <p>
+     * ELM is the compiled form of CQL. This method is experimental and not part of the API: the ELM lacks the result
+     * types of FHIR properties, so it isn't the same as the output of the CQL-to-ELM compiler yet. It stays
+     * package-private until the {@code ElmCompilerTest} shows that it is.
+     *
+     * @return the ELM library as JSON object with the single property {@code library}
+     * @throws IllegalArgumentException if an expression of this container has no ELM counterpart
+     */
+    ObjectNode toElm() {
+        var sortedCodeSystemDefinitions = codeSystemDefinitions.stream()
+                .sorted(Comparator.comparing(CodeSystemDefinition::name)).toList();
+        var contexts = new ArrayList<Context>(2);
+        getUnfilteredContext().ifPresent(contexts::add);
+        getPatientContext().ifPresent(contexts::add);
+        return new ElmEmitter(PrintContext.ZERO.withNames(symbolicNames())).library(sortedCodeSystemDefinitions,
+                contexts);
+    }
+
+    /**
+     * Counts the characters appended to an {@link Appendable} for the {@link PrintEvent}.
+     */
+    private static final class CountingAppendable implements Appendable {
+
+        private final Appendable out;
+        private int length;
+
+        private CountingAppendable(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            var s = String.valueOf(csq);
+            length += s.length();
+            out.append(s);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            length += end - start;
+            out.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            length++;
+            out.append(c);
+            return this;
+        }
     }
 }
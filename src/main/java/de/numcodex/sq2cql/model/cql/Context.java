@@ -2,10 +2,10 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.joining;
 
 /**
  * A context inside a {@link Container}.
@@ -25,10 +25,35 @@ public record Context(String name, List<ExpressionDefinition> expressionDefiniti
     }
 
     public String print() {
-        return """
-                context %s
-                        
-                %s
-                """.formatted(name, expressionDefinitions.stream().map(d -> d.print(PrintContext.ZERO)).collect(joining("\n\n")));
+        return print(PrintContext.ZERO);
+    }
+
+    /**
+     * Prints this context with its expression definitions printed in {@code printContext}.
+     *
+     * @param printContext the print context of the expression definitions
+     * @return the printed context
+     */
+    public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    /**
+     * Appends the same text {@link #print(PrintContext)} returns to {@code out}.
+     *
+     * @param printContext the print context of the expression definitions
+     * @param out          the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var separator = printContext.statementSeparator();
+        out.append("context ").append(name).append(separator);
+        for (int i = 0; i < expressionDefinitions.size(); i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            expressionDefinitions.get(i).print(printContext, out);
+        }
+        out.append('\n');
     }
 }
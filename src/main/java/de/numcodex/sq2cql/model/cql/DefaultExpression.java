@@ -1,11 +1,9 @@
 package de.numcodex.sq2cql.model.cql;
 
-import java.util.Map;
-
 public interface DefaultExpression extends Expression<DefaultExpression> {
 
     @Override
-    default DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
+    default DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
         return this;
     }
 
@@ -0,0 +1,189 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A persistent list of expression definitions with unique names.
+ * <p>
+ * The definitions are kept in insertion order in a tree of concatenations which makes appending a whole list possible
+ * without copying it. A {@link HashTrie} indexes the definitions by name, so that the uniqueness check of {@link
+ * #appendByUniqueName(ExpressionDefinition) appendByUniqueName} and {@link #unionByName(DefinitionList) unionByName}
+ * doesn't have to scan the list.
+ * <p>
+ * The list is unmodifiable through the {@link List} interface. Accessing elements by index has to walk the tree, so
+ * iterating is preferred.
+ */
+final class DefinitionList extends AbstractList<ExpressionDefinition> {
+
+    private static final DefinitionList EMPTY = new DefinitionList(null, HashTrie.empty());
+
+    /**
+     * Either null, an {@link ExpressionDefinition} or a {@link Concat}.
+     */
+    private final Object root;
+    private final HashTrie<IdentifierExpression, ExpressionDefinition> byName;
+
+    private DefinitionList(Object root, HashTrie<IdentifierExpression, ExpressionDefinition> byName) {
+        this.root = root;
+        this.byName = byName;
+    }
+
+    static DefinitionList empty() {
+        return EMPTY;
+    }
+
+    private static int size(Object node) {
+        return node == null ? 0 : node instanceof Concat concat ? concat.size : 1;
+    }
+
+    private static Object concat(Object left, Object right) {
+        return left == null ? right : right == null ? left : new Concat(left, right, size(left) + size(right));
+    }
+
+    /**
+     * Builds a balanced tree of the definitions between {@code from} inclusive and {@code to} exclusive.
+     */
+    private static Object balanced(List<ExpressionDefinition> definitions, int from, int to) {
+        if (to - from == 1) {
+            return definitions.get(from);
+        }
+        var middle = (from + to) >>> 1;
+        return new Concat(balanced(definitions, from, middle), balanced(definitions, middle, to), to - from);
+    }
+
+    /**
+     * Returns a list of {@code definitions} which have to have unique names.
+     */
+    static DefinitionList copyOf(List<ExpressionDefinition> definitions) {
+        if (definitions.isEmpty()) {
+            return EMPTY;
+        }
+        HashTrie<IdentifierExpression, ExpressionDefinition> byName = HashTrie.empty();
+        for (var definition : definitions) {
+            byName = byName.plus(definition.name(), definition);
+        }
+        return new DefinitionList(balanced(definitions, 0, definitions.size()), byName);
+    }
+
+    /**
+     * Returns a list with {@code definition} appended if no definition with the same name exists.
+     */
+    DefinitionList appendByUniqueName(ExpressionDefinition definition) {
+        if (byName.containsKey(definition.name())) {
+            return this;
+        }
+        return new DefinitionList(concat(root, definition), byName.plus(definition.name(), definition));
+    }
+
+    /**
+     * Returns a list with all definitions of {@code other} appended whose names don't exist in this list.
+     */
+    DefinitionList unionByName(DefinitionList other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        var smaller = byName.size() <= other.byName.size() ? this : other;
+        var larger = smaller == this ? other : this;
+        var collision = false;
+        for (var definition : smaller) {
+            if (larger.byName.containsKey(definition.name())) {
+                collision = true;
+                break;
+            }
+        }
+        if (!collision) {
+            return new DefinitionList(concat(root, other.root), larger.byName.plusAll(smaller.byName));
+        }
+        var result = this;
+        for (var definition : other) {
+            result = result.appendByUniqueName(definition);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a list with {@code mapper} applied to all definitions.
+     */
+    DefinitionList map(UnaryOperator<ExpressionDefinition> mapper) {
+        if (isEmpty()) {
+            return this;
+        }
+        var definitions = new ArrayList<ExpressionDefinition>(size());
+        HashTrie<IdentifierExpression, ExpressionDefinition> newByName = HashTrie.empty();
+        for (var definition : this) {
+            var newDefinition = mapper.apply(definition);
+            definitions.add(newDefinition);
+            newByName = newByName.plus(newDefinition.name(), newDefinition);
+        }
+        return new DefinitionList(balanced(definitions, 0, definitions.size()), newByName);
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public ExpressionDefinition get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        var node = root;
+        while (node instanceof Concat concat) {
+            var leftSize = size(concat.left);
+            if (index < leftSize) {
+                node = concat.left;
+            } else {
+                index -= leftSize;
+                node = concat.right;
+            }
+        }
+        return (ExpressionDefinition) node;
+    }
+
+    @Override
+    public void forEach(Consumer<? super ExpressionDefinition> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    @Override
+    public Iterator<ExpressionDefinition> iterator() {
+        var stack = new ArrayDeque<>();
+        if (root != null) {
+            stack.push(root);
+        }
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public ExpressionDefinition next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                var node = stack.pop();
+                while (node instanceof Concat concat) {
+                    stack.push(concat.right);
+                    node = concat.left;
+                }
+                return (ExpressionDefinition) node;
+            }
+        };
+    }
+
+    private record Concat(Object left, Object right, int size) {
+    }
+}
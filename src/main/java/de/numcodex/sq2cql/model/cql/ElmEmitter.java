@@ -0,0 +1,614 @@
+package de.numcodex.sq2cql.model.cql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.numcodex.sq2cql.PrintContext;
+import de.numcodex.sq2cql.model.common.Comparator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Emits the ELM JSON of a {@link Container}, the compiled form of the CQL library the container prints to.
+ * <p>
+ * Every expression is mapped to the ELM node the CQL-to-ELM compiler produces for its printed form. Identifiers
+ * referring to an alias of an enclosing query become {@code AliasRef}, all other identifiers {@code ExpressionRef}.
+ * {@code between} is expanded into two comparisons, the {@code AgeIn...} functions into {@code CalculateAge} of the
+ * birth date of the patient.
+ * <p>
+ * The model doesn't know the types of FHIR properties, so the implicit conversions the compiler inserts as calls of
+ * FHIRHelpers functions are emitted for the shapes of expressions the translator produces: casts to FHIR types are
+ * converted to their System type, codings tested against codes are converted by {@code ToCode} and properties tested
+ * against strings or string lists by {@code ToString}. A property compared with {@code overlaps} is a choice of types
+ * which is cast to {@code Period} and converted by {@code ToInterval}, and the dates of the interval it is compared
+ * with are converted to date times.
+ * <p>
+ * The statements of a library are annotated with the result types the compiler infers as far as they don't depend on
+ * the types of FHIR properties. Properties and the expressions depending on their types get no result type.
+ * <p>
+ * Instances hold the aliases in scope and are meant to emit a single container.
+ */
+final class ElmEmitter {
+
+    static final String FHIR_NAMESPACE = "http://hl7.org/fhir";
+    static final String SYSTEM_NAMESPACE = "urn:hl7-org:elm-types:r1";
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final Pattern DATE_TIME_PATTERN = Pattern.compile(
+            "(\\d{4})(?:-(\\d{2})(?:-(\\d{2}))?)?(T(?:(\\d{2})(?::(\\d{2})(?::(\\d{2})(?:\\.(\\d{3}))?)?)?)?)?");
+    private static final BigDecimal INTEGER_MIN = BigDecimal.valueOf(Integer.MIN_VALUE);
+    private static final BigDecimal INTEGER_MAX = BigDecimal.valueOf(Integer.MAX_VALUE);
+    private static final Map<String, String> AGE_PRECISIONS = Map.of("AgeInYears", "Year", "AgeInMonths", "Month",
+            "AgeInWeeks", "Week", "AgeInDays", "Day", "AgeInHours", "Hour");
+    private static final Map<Comparator, String> COMPARATOR_TYPES = Map.of(
+            Comparator.EQUAL, "Equal", Comparator.LESS_EQUAL, "LessOrEqual", Comparator.LESS_THAN, "Less",
+            Comparator.GREATER_EQUAL, "GreaterOrEqual", Comparator.GREATER_THAN, "Greater");
+    private static final Map<String, String> FHIR_CONVERSIONS = Map.of("Quantity", "ToQuantity",
+            "dateTime", "ToDateTime", "date", "ToDate", "decimal", "ToDecimal", "integer", "ToInteger",
+            "boolean", "ToBoolean", "string", "ToString", "Coding", "ToCode", "CodeableConcept", "ToConcept");
+    private static final Map<String, String> CONVERSION_TYPES = Map.of("ToQuantity", "Quantity",
+            "ToDateTime", "DateTime", "ToDate", "Date", "ToDecimal", "Decimal", "ToInteger", "Integer",
+            "ToBoolean", "Boolean", "ToString", "String", "ToCode", "Code", "ToConcept", "Concept");
+    private static final Set<String> BOOLEAN_OPERATORS = Set.of("And", "Or", "Not", "Exists", "Equal", "LessOrEqual",
+            "Less", "GreaterOrEqual", "Greater", "In", "Contains", "Overlaps");
+    private static final String CONVERSION_ALIAS = "X";
+
+    private final PrintContext printContext;
+    private final Map<String, JsonNode> definitionTypes = new HashMap<>();
+    private Set<String> aliases = Set.of();
+
+    /**
+     * @param printContext the print context holding the names of the symbolic identifiers
+     */
+    ElmEmitter(PrintContext printContext) {
+        this.printContext = printContext;
+    }
+
+    /**
+     * Emits the ELM library of the given parts of a container.
+     */
+    ObjectNode library(List<CodeSystemDefinition> codeSystemDefinitions, List<Context> contexts) {
+        var library = NODES.objectNode();
+        library.set("identifier", NODES.objectNode().put("id", "Retrieve").put("version", "1.0.0"));
+        library.set("schemaIdentifier", NODES.objectNode().put("id", "urn:hl7-org:elm").put("version", "r1"));
+        library.set("usings", defs(NODES.arrayNode()
+                .add(NODES.objectNode().put("localIdentifier", "System").put("uri", SYSTEM_NAMESPACE))
+                .add(NODES.objectNode().put("localIdentifier", "FHIR").put("uri", FHIR_NAMESPACE)
+                        .put("version", "4.0.0"))));
+        library.set("includes", defs(NODES.arrayNode().add(NODES.objectNode().put("localIdentifier", "FHIRHelpers")
+                .put("path", "FHIRHelpers").put("version", "4.0.0"))));
+        if (!codeSystemDefinitions.isEmpty()) {
+            var defs = NODES.arrayNode();
+            for (var definition : codeSystemDefinitions) {
+                defs.add(NODES.objectNode().put("name", definition.name()).put("id", definition.system())
+                        .put("accessLevel", "Public"));
+            }
+            library.set("codeSystems", defs(defs));
+        }
+        var contextDefs = NODES.arrayNode();
+        var statementDefs = NODES.arrayNode();
+        for (var context : contexts) {
+            contextDefs.add(NODES.objectNode().put("name", context.name()));
+            if (context.name().equals("Patient")) {
+                statementDefs.add(statement(NODES.objectNode().put("name", "Patient").put("context", "Patient"),
+                        node("SingletonFrom").set("operand", retrieve("Patient"))));
+            }
+            for (var definition : context.expressionDefinitions()) {
+                statementDefs.add(statement(NODES.objectNode().put("name", name(definition.name()))
+                        .put("context", context.name()).put("accessLevel", "Public"),
+                        expression(definition.expression())));
+            }
+        }
+        library.set("contexts", defs(contextDefs));
+        library.set("statements", defs(statementDefs));
+        return NODES.objectNode().set("library", library);
+    }
+
+    /**
+     * Sets {@code expression} on {@code statement} and annotates both with the result type of {@code expression}, which
+     * later references to the statement resolve to.
+     */
+    private ObjectNode statement(ObjectNode statement, JsonNode expression) {
+        var type = resultType(expression, Map.of());
+        definitionTypes.put(statement.get("name").asText(), type);
+        annotate(statement, type);
+        return statement.set("expression", expression);
+    }
+
+    /**
+     * Emits the ELM node of {@code expression}.
+     *
+     * @throws IllegalArgumentException if {@code expression} has no ELM counterpart
+     */
+    JsonNode expression(Expression<?> expression) {
+        if (expression == Expression.TRUE || expression == Expression.FALSE) {
+            return literal("Boolean", expression == Expression.TRUE ? "true" : "false");
+        }
+        if (expression instanceof WrapperExpression wrapper) {
+            return expression(wrapper.expression());
+        }
+        if (expression instanceof IdentifierExpression identifier) {
+            var name = name(identifier);
+            return node(aliases.contains(name) ? "AliasRef" : "ExpressionRef").put("name", name);
+        }
+        if (expression instanceof AndExpression and) {
+            return binary("And", and.expressions());
+        }
+        if (expression instanceof OrExpression or) {
+            return binary("Or", or.expressions());
+        }
+        if (expression instanceof UnionExpression union) {
+            return binary("Union", union.expressions());
+        }
+        if (expression instanceof IntersectExpression intersect) {
+            if (intersect.expressions().size() == 2 && unwrap(intersect.expressions().get(1)) instanceof ListSelector) {
+                return node("Intersect").set("operand", NODES.arrayNode()
+                        .add(codings(intersect.expressions().get(0))).add(expression(intersect.expressions().get(1))));
+            }
+            return binary("Intersect", intersect.expressions());
+        }
+        if (expression instanceof AdditionExpressionTerm addition) {
+            return binary(addition.expressions().stream().anyMatch(StringLiteralExpression.class::isInstance)
+                    ? "Concatenate" : "Add", addition.expressions());
+        }
+        if (expression instanceof NotExpression not) {
+            return node("Not").set("operand", expression(not.expression()));
+        }
+        if (expression instanceof ExistsExpression exists) {
+            return node("Exists").set("operand", expression(exists.expression()));
+        }
+        if (expression instanceof MembershipExpression membership) {
+            return membership(membership);
+        }
+        if (expression instanceof ComparatorExpression comparator) {
+            var a = unwrap(comparator.a()) instanceof InvocationExpression
+                    && unwrap(comparator.b()) instanceof StringLiteralExpression
+                    ? fhirHelpers("ToString", expression(comparator.a()))
+                    : expression(comparator.a());
+            return node(COMPARATOR_TYPES.get(comparator.comparator())).set("operand", NODES.arrayNode().add(a)
+                    .add(expression(comparator.b())));
+        }
+        if (expression instanceof BetweenExpression between) {
+            return node("And").set("operand", NODES.arrayNode()
+                    .add(operands("GreaterOrEqual", between.value(), between.lowerBound()))
+                    .add(operands("LessOrEqual", between.value(), between.upperBound())));
+        }
+        if (expression instanceof OverlapsIntervalOperatorPhrase overlaps) {
+            return node("Overlaps").set("operand", NODES.arrayNode().add(period(overlaps.leftInterval()))
+                    .add(dateTimeInterval(overlaps.rightInterval())));
+        }
+        if (expression instanceof IntervalSelector interval) {
+            return node("Interval").put("lowClosed", true).put("highClosed", true)
+                    .<ObjectNode>set("low", expression(interval.intervalStart()))
+                    .set("high", expression(interval.intervalEnd()));
+        }
+        if (expression instanceof ListSelector list) {
+            var elements = NODES.arrayNode();
+            list.items().forEach(item -> elements.add(expression(item)));
+            return node("List").set("element", elements);
+        }
+        if (expression instanceof InvocationExpression invocation) {
+            return property(invocation.expression(), invocation.invocation());
+        }
+        if (expression instanceof TypeExpression type) {
+            var as = node("As").put("asType", qualifiedType(type.typeSpecifier())).put("strict", false)
+                    .set("operand", expression(type.expression()));
+            var conversion = type.typeSpecifier().startsWith("System.") ? null
+                    : FHIR_CONVERSIONS.get(type.typeSpecifier().startsWith("FHIR.")
+                    ? type.typeSpecifier().substring(5) : type.typeSpecifier());
+            return conversion == null ? as : fhirHelpers(conversion, as);
+        }
+        if (expression instanceof FunctionInvocation function) {
+            return function(function);
+        }
+        if (expression instanceof StringLiteralExpression string) {
+            return literal("String", string.value());
+        }
+        if (expression instanceof QuantityExpression quantity) {
+            return quantity(quantity.value(), quantity.unit());
+        }
+        if (expression instanceof DateTimeExpression dateTime) {
+            return dateTime(dateTime.dateTime());
+        }
+        if (expression instanceof CodeSelector code) {
+            return node("Code").put("code", code.code()).set("system", node("CodeSystemRef")
+                    .put("name", code.codeSystemIdentifier()));
+        }
+        if (expression instanceof RetrieveExpression retrieve) {
+            var node = retrieve(retrieve.resourceType());
+            if (retrieve.terminology() != null) {
+                var codes = expression(retrieve.terminology());
+                node.set("codes", retrieve.terminology() instanceof ListSelector ? codes
+                        : node("ToList").set("operand", codes));
+            }
+            return node;
+        }
+        if (expression instanceof QueryExpression query) {
+            return query(query);
+        }
+        throw new IllegalArgumentException("Can't emit ELM of the expression `%s`."
+                .formatted(expression.print(printContext)));
+    }
+
+    /**
+     * Emits {@code membership} converting a FHIR property on the left: codings tested against a code by {@code ToCode}
+     * and other properties by {@code ToString}, which is applied to every element if the property is a list in a
+     * {@code contains}.
+     */
+    private JsonNode membership(MembershipExpression membership) {
+        var contains = membership.op().equals("contains");
+        JsonNode a;
+        if (!(unwrap(membership.a()) instanceof InvocationExpression)) {
+            a = expression(membership.a());
+        } else if (contains && unwrap(membership.b()) instanceof CodeSelector) {
+            a = codings(membership.a());
+        } else if (contains) {
+            a = convertElements("ToString", expression(membership.a()));
+        } else {
+            a = fhirHelpers("ToString", expression(membership.a()));
+        }
+        return node(contains ? "Contains" : "In").set("operand", NODES.arrayNode().add(a)
+                .add(expression(membership.b())));
+    }
+
+    /**
+     * Emits {@code interval}, casting a FHIR property, which is a choice of types, to {@code Period} and converting it
+     * by {@code ToInterval}.
+     */
+    private JsonNode period(Expression<?> interval) {
+        var node = expression(interval);
+        return unwrap(interval) instanceof InvocationExpression
+                ? fhirHelpers("ToInterval", node("As").put("asType", qualifiedType("Period")).put("strict", false)
+                .set("operand", node))
+                : node;
+    }
+
+    /**
+     * Emits {@code interval}, converting the dates of an interval selector to the date times of the period it is
+     * compared with.
+     */
+    private JsonNode dateTimeInterval(Expression<?> interval) {
+        var node = expression(interval);
+        if (node instanceof ObjectNode selector && selector.get("type").asText().equals("Interval")) {
+            for (var bound : List.of("low", "high")) {
+                if (selector.get(bound).get("type").asText().equals("Date")) {
+                    selector.set(bound, node("ToDateTime").set("operand", selector.get(bound)));
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Emits the FHIR codings of {@code codings} converted to System codes, a list of them if their property is {@code
+     * coding}.
+     */
+    private JsonNode codings(Expression<?> codings) {
+        var node = expression(codings);
+        if (!(unwrap(codings) instanceof InvocationExpression invocation)) {
+            return node;
+        }
+        return isCodingList(invocation.invocation()) ? convertElements("ToCode", node) : fhirHelpers("ToCode", node);
+    }
+
+    private static Expression<?> unwrap(Expression<?> expression) {
+        return expression instanceof WrapperExpression wrapper ? unwrap(wrapper.expression()) : expression;
+    }
+
+    private static boolean isCodingList(String path) {
+        return path.equals("coding") || path.endsWith(".coding");
+    }
+
+    /**
+     * Emits the query the compiler converts the elements of the list {@code source} with.
+     */
+    private static JsonNode convertElements(String conversion, JsonNode source) {
+        return node("Query")
+                .<ObjectNode>set("source", NODES.arrayNode().add(NODES.objectNode().put("alias", CONVERSION_ALIAS)
+                        .set("expression", source)))
+                .<ObjectNode>set("relationship", NODES.arrayNode())
+                .set("return", NODES.objectNode().put("distinct", false).set("expression",
+                        fhirHelpers(conversion, node("AliasRef").put("name", CONVERSION_ALIAS))));
+    }
+
+    private static ObjectNode fhirHelpers(String name, JsonNode operand) {
+        return node("FunctionRef").put("libraryName", "FHIRHelpers").put("name", name)
+                .set("operand", NODES.arrayNode().add(operand));
+    }
+
+    private JsonNode query(QueryExpression query) {
+        var source = query.sourceClause().source();
+        var withClauses = query.queryInclusionClauses();
+        if (withClauses.isEmpty() && query.whereClause().expression() == Expression.TRUE
+                && query.returnClause() == null) {
+            return expression(source.querySource());
+        }
+        var outerAliases = aliases;
+        try {
+            aliases = new HashSet<>(outerAliases);
+            var node = node("Query");
+            node.set("source", NODES.arrayNode().add(aliasedQuerySource(source)));
+            var relationships = NODES.arrayNode();
+            for (var clause : withClauses) {
+                if (!(clause instanceof WithClause with)) {
+                    throw new IllegalArgumentException("Can't emit ELM of the query inclusion clause `%s`."
+                            .formatted(clause.print(printContext)));
+                }
+                var relationship = node("With");
+                relationship.setAll(aliasedQuerySource(with.source()));
+                relationship.set("suchThat", expression(with.expression()));
+                relationships.add(relationship);
+            }
+            node.set("relationship", relationships);
+            if (query.whereClause().expression() != Expression.TRUE) {
+                node.set("where", expression(query.whereClause().expression()));
+            }
+            if (query.returnClause() != null) {
+                node.set("return", NODES.objectNode().put("distinct", true)
+                        .set("expression", expression(query.returnClause().expression())));
+            }
+            return node;
+        } finally {
+            aliases = outerAliases;
+        }
+    }
+
+    /**
+     * Emits {@code source} and adds its alias to the aliases in scope.
+     */
+    private ObjectNode aliasedQuerySource(AliasedQuerySource source) {
+        // the alias isn't in scope of its own source expression
+        var expression = expression(source.querySource());
+        var alias = name(source.alias());
+        aliases.add(alias);
+        return NODES.objectNode().put("alias", alias).set("expression", expression);
+    }
+
+    /**
+     * Emits the property {@code path} of {@code source}, nesting one {@code Property} node per path segment.
+     * Properties of aliases refer to the alias by {@code scope} like the compiler does.
+     */
+    private JsonNode property(Expression<?> source, String path) {
+        var segments = path.split("\\.");
+        ObjectNode node;
+        if (source instanceof IdentifierExpression identifier && aliases.contains(name(identifier))) {
+            node = node("Property").put("path", segments[0]).put("scope", name(identifier));
+        } else {
+            node = node("Property").put("path", segments[0]);
+            node.set("source", expression(source));
+        }
+        for (int i = 1; i < segments.length; i++) {
+            node = node("Property").put("path", segments[i]).set("source", node);
+        }
+        return node;
+    }
+
+    private JsonNode function(FunctionInvocation function) {
+        var precision = AGE_PRECISIONS.get(function.identifier());
+        if (precision != null && function.paramList().isEmpty()) {
+            var birthDate = node("Property").put("path", "birthDate").set("source",
+                    node("ExpressionRef").put("name", "Patient"));
+            return node("CalculateAge").put("precision", precision).set("operand",
+                    node("Property").put("path", "value").set("source", birthDate));
+        }
+        if (function.identifier().equals("ToDate") && function.paramList().size() == 1) {
+            return node("ToDate").set("operand", expression(function.paramList().get(0)));
+        }
+        var node = node("FunctionRef");
+        var separator = function.identifier().lastIndexOf('.');
+        if (separator > 0) {
+            node.put("libraryName", function.identifier().substring(0, separator));
+        }
+        node.put("name", function.identifier().substring(separator + 1));
+        var operands = NODES.arrayNode();
+        function.paramList().forEach(param -> operands.add(expression(param)));
+        return node.set("operand", operands);
+    }
+
+    private static JsonNode quantity(BigDecimal value, String unit) {
+        if (unit != null) {
+            return node("Quantity").put("value", value).put("unit", unit);
+        }
+        return value.scale() <= 0 && value.compareTo(INTEGER_MIN) >= 0 && value.compareTo(INTEGER_MAX) <= 0
+                ? literal("Integer", value.toPlainString())
+                : literal("Decimal", value.toPlainString());
+    }
+
+    /**
+     * Emits a {@code Date} of literals like {@code @2021-06-03} or a {@code DateTime} if the literal contains a time.
+     */
+    private static JsonNode dateTime(String dateTime) {
+        var matcher = DATE_TIME_PATTERN.matcher(dateTime);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Can't emit ELM of the date time `@%s`.".formatted(dateTime));
+        }
+        var node = node(matcher.group(4) == null ? "Date" : "DateTime");
+        var components = List.of("year", "month", "day", "", "hour", "minute", "second", "millisecond");
+        for (int i = 0; i < components.size(); i++) {
+            var value = matcher.group(i + 1);
+            if (i != 3 && value != null) {
+                node.set(components.get(i), literal("Integer", String.valueOf(Integer.parseInt(value))));
+            }
+        }
+        return node;
+    }
+
+    private static ObjectNode retrieve(String resourceType) {
+        return node("Retrieve").put("dataType", "{%s}%s".formatted(FHIR_NAMESPACE, resourceType))
+                .put("templateId", "%s/StructureDefinition/%s".formatted(FHIR_NAMESPACE, resourceType));
+    }
+
+    private JsonNode binary(String type, List<? extends Expression<?>> operands) {
+        var node = expression(operands.get(0));
+        for (int i = 1; i < operands.size(); i++) {
+            node = node(type).set("operand", NODES.arrayNode().add(node).add(expression(operands.get(i))));
+        }
+        return node;
+    }
+
+    private ObjectNode operands(String type, Expression<?> a, Expression<?> b) {
+        return node(type).set("operand", NODES.arrayNode().add(expression(a)).add(expression(b)));
+    }
+
+    /**
+     * Annotates {@code node} and the nodes it contains with their result types and returns the type specifier of
+     * {@code node}, or null if it depends on the type of a FHIR property.
+     *
+     * @param scope the type specifiers of the aliases in scope
+     */
+    private JsonNode resultType(JsonNode node, Map<String, JsonNode> scope) {
+        if (!(node instanceof ObjectNode object) || !object.has("type")) {
+            return null;
+        }
+        var type = object.get("type").asText();
+        if (type.equals("Query")) {
+            return annotate(object, queryType(object, scope));
+        }
+        var fieldTypes = new HashMap<String, List<JsonNode>>();
+        object.fields().forEachRemaining(field -> {
+            var types = new ArrayList<JsonNode>();
+            if (field.getValue().isArray()) {
+                field.getValue().forEach(element -> types.add(resultType(element, scope)));
+            } else {
+                types.add(resultType(field.getValue(), scope));
+            }
+            fieldTypes.put(field.getKey(), types);
+        });
+        var operandTypes = fieldTypes.getOrDefault("operand", List.of());
+        return annotate(object, switch (type) {
+            case "Literal" -> named(object.get("valueType").asText());
+            case "ExpressionRef" -> definitionTypes.get(object.get("name").asText());
+            case "AliasRef" -> scope.get(object.get("name").asText());
+            case "Union", "Intersect" -> same(operandTypes);
+            case "Concatenate" -> systemType("String");
+            case "Interval" -> interval(same(Arrays.asList(fieldTypes.get("low").get(0),
+                    fieldTypes.get("high").get(0))));
+            case "List" -> list(same(fieldTypes.get("element")));
+            case "ToList" -> list(operandTypes.get(0));
+            case "SingletonFrom" -> elementType(operandTypes.get(0));
+            case "As" -> named(object.get("asType").asText());
+            case "CalculateAge" -> systemType("Integer");
+            case "Date", "ToDate" -> systemType("Date");
+            case "DateTime", "ToDateTime" -> systemType("DateTime");
+            case "Quantity" -> systemType("Quantity");
+            case "Code" -> systemType("Code");
+            case "Retrieve" -> list(named(object.get("dataType").asText()));
+            case "FunctionRef" -> conversionType(object);
+            default -> BOOLEAN_OPERATORS.contains(type) ? systemType("Boolean") : null;
+        });
+    }
+
+    /**
+     * Returns the type of the query {@code query}, annotating its sources and clauses with the aliases of the query in
+     * scope.
+     */
+    private JsonNode queryType(ObjectNode query, Map<String, JsonNode> scope) {
+        var queryScope = new HashMap<>(scope);
+        JsonNode sourceType = null;
+        for (var source : query.get("source")) {
+            sourceType = resultType(source.get("expression"), queryScope);
+            queryScope.put(source.get("alias").asText(), elementType(sourceType));
+        }
+        for (var relationship : query.path("relationship")) {
+            queryScope.put(relationship.get("alias").asText(),
+                    elementType(resultType(relationship.get("expression"), queryScope)));
+            resultType(relationship.get("suchThat"), queryScope);
+        }
+        resultType(query.get("where"), queryScope);
+        return query.has("return") ? list(resultType(query.get("return").get("expression"), queryScope))
+                : sourceType;
+    }
+
+    private static JsonNode conversionType(ObjectNode function) {
+        if (!function.path("libraryName").asText().equals("FHIRHelpers")) {
+            return null;
+        }
+        var name = function.get("name").asText();
+        return name.equals("ToInterval") ? interval(systemType("DateTime"))
+                : CONVERSION_TYPES.containsKey(name) ? systemType(CONVERSION_TYPES.get(name)) : null;
+    }
+
+    /**
+     * Sets the result type {@code type} on {@code node} like the compiler, as name if it's a named type.
+     */
+    private static JsonNode annotate(ObjectNode node, JsonNode type) {
+        if (type != null) {
+            if (type.get("type").asText().equals("NamedTypeSpecifier")) {
+                node.put("resultTypeName", type.get("name").asText());
+            } else {
+                node.set("resultTypeSpecifier", type.deepCopy());
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Returns the type all {@code types} have or null if they differ or one of them is unknown.
+     */
+    private static JsonNode same(List<JsonNode> types) {
+        if (types.isEmpty() || types.contains(null)) {
+            return null;
+        }
+        return types.stream().allMatch(type -> Objects.equals(type, types.get(0))) ? types.get(0) : null;
+    }
+
+    private static JsonNode elementType(JsonNode type) {
+        return type != null && type.get("type").asText().equals("ListTypeSpecifier") ? type.get("elementType")
+                : null;
+    }
+
+    private static JsonNode systemType(String name) {
+        return named("{%s}%s".formatted(SYSTEM_NAMESPACE, name));
+    }
+
+    private static JsonNode named(String name) {
+        return node("NamedTypeSpecifier").put("name", name);
+    }
+
+    private static JsonNode list(JsonNode elementType) {
+        return elementType == null ? null : node("ListTypeSpecifier").set("elementType", elementType);
+    }
+
+    private static JsonNode interval(JsonNode pointType) {
+        return pointType == null ? null : node("IntervalTypeSpecifier").set("pointType", pointType);
+    }
+
+    private static ObjectNode literal(String type, String value) {
+        return node("Literal").put("valueType", "{%s}%s".formatted(SYSTEM_NAMESPACE, type)).put("value", value);
+    }
+
+    /**
+     * Returns the qualified name of {@code typeSpecifier}, which is a FHIR type unless it's qualified by
+     * {@code System}.
+     */
+    private static String qualifiedType(String typeSpecifier) {
+        if (typeSpecifier.startsWith("System.")) {
+            return "{%s}%s".formatted(SYSTEM_NAMESPACE, typeSpecifier.substring(7));
+        }
+        return "{%s}%s".formatted(FHIR_NAMESPACE, typeSpecifier.startsWith("FHIR.")
+                ? typeSpecifier.substring(5) : typeSpecifier);
+    }
+
+    private String name(IdentifierExpression identifier) {
+        var name = identifier.print(printContext);
+        return name.startsWith("\"") ? name.substring(1, name.length() - 1) : name;
+    }
+
+    private static ObjectNode node(String type) {
+        return NODES.objectNode().put("type", type);
+    }
+
+    private static ObjectNode defs(ArrayNode defs) {
+        return NODES.objectNode().set("def", defs);
+    }
+}
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -20,12 +20,20 @@ public record ExistsExpression(Expression<?> expression) implements DefaultExpre
 
     @Override
     public String print(PrintContext printContext) {
-        return printContext.parenthesize(PRECEDENCE, "exists " + expression.print(printContext
-                .withPrecedence(PRECEDENCE)));
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new ExistsExpression(expression.withIncrementedSuffixes(increments));
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        printContext.openParenthesis(PRECEDENCE, out);
+        out.append("exists ");
+        expression.print(printContext.withPrecedence(PRECEDENCE), out);
+        printContext.closeParenthesis(PRECEDENCE, out);
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new ExistsExpression(expression);
     }
 }
@@ -2,6 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.Map;
 
 public interface Expression<T extends Expression<T>> {
@@ -18,6 +19,20 @@ public interface Expression<T extends Expression<T>> {
 
     String print(PrintContext printContext);
 
+    /**
+     * Appends the same text {@link #print(PrintContext)} returns to {@code out}.
+     * <p>
+     * Expressions with children override this method, so that printing into a {@link java.io.Writer} doesn't build
+     * the strings of all children first.
+     *
+     * @param printContext the context to print in
+     * @param out          the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    default void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append(print(printContext));
+    }
+
     /**
      * Returns a map of identifier prefixes to numerical suffixes of this expression and all children.
      *
@@ -27,7 +42,34 @@ public interface Expression<T extends Expression<T>> {
         return Map.of();
     }
 
-    T withIncrementedSuffixes(Map<String, Integer> increments);
+    /**
+     * Returns this expression with the numerical suffixes of all identifiers incremented by {@code increments}.
+     *
+     * @param increments a map of identifier prefixes to the increments of their suffixes
+     * @return the expression with incremented suffixes or this expression itself if no suffix changed
+     */
+    default T withIncrementedSuffixes(Map<String, Integer> increments) {
+        return rewrite(new SuffixIncrementer(increments));
+    }
+
+    /**
+     * Returns a copy of this expression with all children {@link #rewrite(ExpressionRewriter) rewritten} by {@code
+     * rewriter}.
+     *
+     * @param rewriter the rewriter of the children
+     * @return the expression with rewritten children or this expression itself if no child changed
+     */
+    T rewriteChildren(ExpressionRewriter rewriter);
+
+    /**
+     * Rewrites this expression bottom-up by first rewriting its children and then this expression itself.
+     *
+     * @param rewriter the rewriter
+     * @return the rewritten expression or this expression itself if nothing changed
+     */
+    default T rewrite(ExpressionRewriter rewriter) {
+        return rewriter.rewrite(rewriteChildren(rewriter));
+    }
 
     default boolean isIdentifier() {
         return false;
@@ -2,6 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
@@ -23,10 +24,18 @@ public record ExpressionDefinition(IdentifierExpression name, Expression<?> expr
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
         var newPrintContext = printContext.increase();
-        return "define %s:\n%s%s".formatted(name.print(printContext), newPrintContext.getIndent(),
-                expression.print(newPrintContext));
+        out.append("define ");
+        name.print(printContext, out);
+        out.append(':');
+        newPrintContext.appendLineBreak(out);
+        expression.print(newPrintContext, out);
     }
 
     /**
@@ -39,7 +48,18 @@ public record ExpressionDefinition(IdentifierExpression name, Expression<?> expr
     }
 
     public ExpressionDefinition withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new ExpressionDefinition(name.withIncrementedSuffixes(increments),
-                expression.withIncrementedSuffixes(increments));
+        return rewrite(new SuffixIncrementer(increments));
+    }
+
+    /**
+     * Rewrites the name and the expression of this definition with {@code rewriter}.
+     *
+     * @param rewriter the rewriter
+     * @return the rewritten definition or this definition itself if nothing changed
+     */
+    public ExpressionDefinition rewrite(ExpressionRewriter rewriter) {
+        var name = this.name.rewrite(rewriter);
+        var expression = this.expression.rewrite(rewriter);
+        return name == this.name && expression == this.expression ? this : new ExpressionDefinition(name, expression);
     }
 }
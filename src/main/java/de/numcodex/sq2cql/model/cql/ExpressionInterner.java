@@ -0,0 +1,74 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns CQL expressions, so that structurally equal expressions become one shared instance.
+ * <p>
+ * Large queries repeat the same small expressions like {@code Observation.value as Quantity}, the same code selectors
+ * and the same time restriction intervals for every term code of an expansion. Interning them lets the definitions
+ * share these nodes, and because record equality compares components with {@code equals}, which checks identity first,
+ * comparing two expressions built from interned nodes stops at the shared instances instead of walking them.
+ * <p>
+ * Only small nodes should be interned, because the lookup hashes the node once. An interner is meant to be scoped to
+ * a single translation, so that its memory is freed together with the translation. Instances created by {@link
+ * #create()} are not thread-safe, instances created by {@link #createConcurrent()} are. The {@link #NONE} interner returns every expression as is.
+ */
+public final class ExpressionInterner {
+
+    /**
+     * The interner returning every expression as is.
+     */
+    public static final ExpressionInterner NONE = new ExpressionInterner(null);
+
+    private final Map<Expression<?>, Expression<?>> expressions;
+
+    private ExpressionInterner(Map<Expression<?>, Expression<?>> expressions) {
+        this.expressions = expressions;
+    }
+
+    /**
+     * Returns a new, empty interner.
+     *
+     * @return a new interner
+     */
+    public static ExpressionInterner create() {
+        return new ExpressionInterner(new HashMap<>());
+    }
+
+    /**
+     * Returns a new, empty interner which can be used by several threads at once.
+     *
+     * @return a new thread-safe interner
+     */
+    public static ExpressionInterner createConcurrent() {
+        return new ExpressionInterner(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Returns the instance equal to {@code expression} interned first, interning {@code expression} if there is none.
+     *
+     * @param expression the expression to intern
+     * @param <T>        the type of the expression
+     * @return the interned instance
+     */
+    public <T extends Expression<?>> T intern(T expression) {
+        if (expressions == null) {
+            return expression;
+        }
+        @SuppressWarnings("unchecked")
+        var interned = (T) expressions.putIfAbsent(expression, expression);
+        return interned == null ? expression : interned;
+    }
+
+    /**
+     * Returns the number of distinct expressions interned.
+     *
+     * @return the number of distinct expressions
+     */
+    public int size() {
+        return expressions == null ? 0 : expressions.size();
+    }
+}
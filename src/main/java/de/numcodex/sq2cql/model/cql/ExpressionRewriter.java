@@ -0,0 +1,49 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bottom-up rewrite of CQL expressions.
+ * <p>
+ * {@link Expression#rewrite(ExpressionRewriter) Rewriting} an expression first rewrites its children, including the
+ * expressions inside of {@link Clause clauses}, and calls {@link #rewrite(Expression)} with the expression holding the
+ * rewritten children afterwards. Expressions whose children are all returned as is are not copied, so a rewrite
+ * changing nothing returns the original tree, and a rewrite changing a single node copies only the path to it. A
+ * rewriter returning every expression as is visits the whole tree without allocating.
+ */
+public interface ExpressionRewriter {
+
+    /**
+     * Rewrites {@code expression} whose children are already rewritten.
+     *
+     * @param expression the expression to rewrite
+     * @param <T>        the type of the expression
+     * @return the rewritten expression or {@code expression} itself if it isn't changed
+     */
+    <T extends Expression<T>> T rewrite(T expression);
+
+    /**
+     * Rewrites all {@code expressions}.
+     *
+     * @param expressions the expressions to rewrite
+     * @param <T>         the type of the expressions
+     * @return the list of rewritten expressions or {@code expressions} itself if no expression is changed
+     */
+    @SuppressWarnings("unchecked")
+    default <T extends Expression<T>> List<T> rewriteAll(List<? extends T> expressions) {
+        List<T> rewritten = null;
+        for (int i = 0; i < expressions.size(); i++) {
+            var expression = expressions.get(i);
+            var newExpression = expression.rewrite(this);
+            if (rewritten == null && newExpression != expression) {
+                rewritten = new ArrayList<>(expressions);
+            }
+            if (rewritten != null) {
+                rewritten.set(i, newExpression);
+            }
+        }
+        // the lists of expressions are immutable, so the unchanged list can be shared as a list of the supertype
+        return rewritten == null ? (List<T>) expressions : rewritten;
+    }
+}
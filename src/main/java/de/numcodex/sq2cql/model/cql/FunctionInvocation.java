@@ -2,9 +2,8 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,13 +21,24 @@ public record FunctionInvocation(String identifier, List<DefaultExpression> para
 
     @Override
     public String print(PrintContext printContext) {
-        printContext.resetPrecedence();
-        return "%s(%s)".formatted(identifier, paramList.stream().map(printContext::print)
-                .collect(Collectors.joining(", ")));
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public FunctionInvocation withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new FunctionInvocation(identifier, paramList.stream().map(e -> e.withIncrementedSuffixes(increments)).toList());
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append(identifier).append('(');
+        for (int i = 0; i < paramList.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            printContext.print(paramList.get(i), out);
+        }
+        out.append(')');
+    }
+
+    @Override
+    public FunctionInvocation rewriteChildren(ExpressionRewriter rewriter) {
+        var paramList = rewriter.rewriteAll(this.paramList);
+        return paramList == this.paramList ? this : new FunctionInvocation(identifier, paramList);
     }
 }
@@ -0,0 +1,241 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A persistent hash map implemented as hash array mapped trie.
+ * <p>
+ * Adding an entry copies only the path from the root to the entry, so that the new map shares all other nodes with the
+ * old one. Lookups and additions need at most seven steps. Neither keys nor values can be null.
+ * <p>
+ * Instances are immutable.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class HashTrie<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static <K, V> HashTrie<K, V> empty() {
+        @SuppressWarnings("unchecked")
+        HashTrie<K, V> empty = (HashTrie<K, V>) EMPTY;
+        return empty;
+    }
+
+    private static int hash(Object key) {
+        var h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value of {@code key} or null if there is none.
+     */
+    V get(Object key) {
+        @SuppressWarnings("unchecked")
+        V value = (V) root.get(key, hash(key), 0);
+        return value;
+    }
+
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with {@code value} associated to {@code key}.
+     * <p>
+     * Returns this map if {@code key} is already associated to {@code value}.
+     */
+    HashTrie<K, V> plus(K key, V value) {
+        var added = new boolean[1];
+        var newRoot = root.plus(new Leaf(requireNonNull(key), requireNonNull(value), hash(key)), 0, added);
+        return newRoot == root ? this : new HashTrie<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map with all entries of this map and {@code other}. If both maps contain the same key, the value of
+     * {@code other} wins.
+     */
+    HashTrie<K, V> plusAll(HashTrie<K, V> other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        var union = new Object() {
+            HashTrie<K, V> trie = HashTrie.this;
+        };
+        other.forEach((key, value) -> union.trie = union.trie.plus(key, value));
+        return union.trie;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    private sealed interface Node permits BitmapNode, CollisionNode {
+
+        Object get(Object key, int hash, int shift);
+
+        Node plus(Leaf leaf, int shift, boolean[] added);
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    private record Leaf(Object key, Object value, int hash) {
+
+        boolean hasKey(Object key, int hash) {
+            return this.hash == hash && this.key.equals(key);
+        }
+    }
+
+    /**
+     * A node with up to 32 slots, each holding either a {@link Leaf} or a child {@link Node}. Only used slots are
+     * stored, their positions are given by the bitmap.
+     */
+    private record BitmapNode(int bitmap, Object[] slots) implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        static Node of(Leaf a, Leaf b, int shift) {
+            if (shift > MAX_SHIFT) {
+                return new CollisionNode(new Leaf[]{a, b});
+            }
+            var aIndex = (a.hash >>> shift) & MASK;
+            var bIndex = (b.hash >>> shift) & MASK;
+            if (aIndex == bIndex) {
+                return new BitmapNode(1 << aIndex, new Object[]{of(a, b, shift + BITS)});
+            }
+            return new BitmapNode((1 << aIndex) | (1 << bIndex), aIndex < bIndex ? new Object[]{a, b} : new Object[]{b, a});
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            var bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            var slot = slots[index(bit)];
+            if (slot instanceof Leaf leaf) {
+                return leaf.hasKey(key, hash) ? leaf.value : null;
+            }
+            return ((Node) slot).get(key, hash, shift + BITS);
+        }
+
+        @Override
+        public Node plus(Leaf leaf, int shift, boolean[] added) {
+            var bit = 1 << ((leaf.hash >>> shift) & MASK);
+            var index = index(bit);
+            if ((bitmap & bit) == 0) {
+                var newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = leaf;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            var slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Leaf existing) {
+                if (existing.hasKey(leaf.key, leaf.hash)) {
+                    if (existing.value == leaf.value) {
+                        return this;
+                    }
+                    newSlot = leaf;
+                } else {
+                    added[0] = true;
+                    newSlot = of(existing, leaf, shift + BITS);
+                }
+            } else {
+                newSlot = ((Node) slot).plus(leaf, shift + BITS, added);
+                if (newSlot == slot) {
+                    return this;
+                }
+            }
+            var newSlots = Arrays.copyOf(slots, slots.length);
+            newSlots[index] = newSlot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (var slot : slots) {
+                if (slot instanceof Leaf leaf) {
+                    action.accept(leaf.key, leaf.value);
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+    }
+
+    /**
+     * A node holding leafs with the same hash.
+     */
+    private record CollisionNode(Leaf[] leafs) implements Node {
+
+        @Override
+        public Object get(Object key, int hash, int shift) {
+            for (var leaf : leafs) {
+                if (leaf.hasKey(key, hash)) {
+                    return leaf.value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Node plus(Leaf leaf, int shift, boolean[] added) {
+            for (int i = 0; i < leafs.length; i++) {
+                if (leafs[i].hasKey(leaf.key, leaf.hash)) {
+                    if (leafs[i].value == leaf.value) {
+                        return this;
+                    }
+                    var newLeafs = Arrays.copyOf(leafs, leafs.length);
+                    newLeafs[i] = leaf;
+                    return new CollisionNode(newLeafs);
+                }
+            }
+            var newLeafs = Arrays.copyOf(leafs, leafs.length + 1);
+            newLeafs[leafs.length] = leaf;
+            added[0] = true;
+            return new CollisionNode(newLeafs);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (var leaf : leafs) {
+                action.accept(leaf.key, leaf.value);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.numcodex.sq2cql.model.cql;
 
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public interface IdentifierExpression extends Expression<IdentifierExpression>, Comparable<IdentifierExpression> {
@@ -11,6 +12,17 @@ public interface IdentifierExpression extends Expression<IdentifierExpression>,
         return true;
     }
 
+    /**
+     * Identifiers have no children.
+     */
+    @Override
+    default IdentifierExpression rewriteChildren(ExpressionRewriter rewriter) {
+        return this;
+    }
+
+    @Override
+    IdentifierExpression withIncrementedSuffixes(Map<String, Integer> increments);
+
     String unquotedIdentifier();
 
     @Override
@@ -0,0 +1,52 @@
+package de.numcodex.sq2cql.model.cql;
+
+import de.numcodex.sq2cql.PrintContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Expression1 INTERSECT Expression2 INTERSECT Expression ... INTERSECT ExpressionN
+ */
+public record IntersectExpression(List<DefaultExpression> expressions) implements DefaultExpression {
+
+    public static final int PRECEDENCE = UnionExpression.PRECEDENCE;
+
+    public IntersectExpression {
+        expressions = List.copyOf(expressions);
+    }
+
+    public static <T extends Expression<T>, U extends Expression<U>> IntersectExpression of(Expression<T> e1, Expression<U> e2) {
+        if (e1 instanceof IntersectExpression) {
+            return new IntersectExpression(Stream.concat(((IntersectExpression) e1).expressions.stream(),
+                    Stream.of(new WrapperExpression(e2))).toList());
+        } else {
+            return new IntersectExpression(List.of(new WrapperExpression(e1), new WrapperExpression(e2)));
+        }
+    }
+
+    @Override
+    public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var childPrintContext = printContext.withPrecedence(PRECEDENCE);
+        printContext.openParenthesis(PRECEDENCE, out);
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(" intersect ");
+            }
+            childPrintContext.print(expressions.get(i), out);
+        }
+        printContext.closeParenthesis(PRECEDENCE, out);
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expressions = rewriter.rewriteAll(this.expressions);
+        return expressions == this.expressions ? this : new IntersectExpression(expressions);
+    }
+}
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -19,12 +19,22 @@ public record IntervalSelector(Expression<?> intervalStart, Expression<?> interv
 
     @Override
     public String print(PrintContext printContext) {
-        return "Interval[%s, %s]".formatted(intervalStart.print(printContext), intervalEnd.print(printContext));
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new IntervalSelector(intervalStart.withIncrementedSuffixes(increments),
-                intervalEnd.withIncrementedSuffixes(increments));
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append("Interval[");
+        intervalStart.print(printContext, out);
+        out.append(", ");
+        intervalEnd.print(printContext, out);
+        out.append(']');
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var intervalStart = this.intervalStart.rewrite(rewriter);
+        var intervalEnd = this.intervalEnd.rewrite(rewriter);
+        return intervalStart == this.intervalStart && intervalEnd == this.intervalEnd ? this : new IntervalSelector(intervalStart, intervalEnd);
     }
 }
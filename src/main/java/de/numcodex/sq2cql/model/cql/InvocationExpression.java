@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,11 +22,18 @@ public record InvocationExpression(Expression<?> expression, String invocation)
 
     @Override
     public String print(PrintContext printContext) {
-        return "%s.%s".formatted(expression.print(printContext), invocation);
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new InvocationExpression(expression.withIncrementedSuffixes(suffixes()), invocation);
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        expression.print(printContext, out);
+        out.append('.').append(invocation);
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new InvocationExpression(expression, invocation);
     }
 }
@@ -0,0 +1,137 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A mutable builder collecting the code system definitions, the Unfiltered definitions and the Patient definitions of a
+ * CQL library in a single pass.
+ * <p>
+ * Other than combining {@link Container containers}, appending to a builder doesn't create an immutable snapshot for
+ * every step. Expressions are combined directly and only their definitions are collected by the builder. The {@link
+ * #build(DefaultExpression) built} container is the same as the one obtained by combining containers with {@link
+ * Container#moveToPatientContextWithSymbolicName(String) symbolic names}.
+ * <p>
+ * Instances are not thread-safe and are meant to be owned by a single translation.
+ */
+public final class LibraryBuilder {
+
+    private final Set<CodeSystemDefinition> codeSystemDefinitions = new HashSet<>();
+    private final Set<ExpressionDefinition> unfilteredDefinitions = new HashSet<>();
+    private final Map<IdentifierExpression, ExpressionDefinition> patientDefinitions = new LinkedHashMap<>();
+
+    /**
+     * The Patient definitions name identifier prefixes to their maximum numerical suffixes.
+     */
+    private final Map<String, Integer> suffixes = new HashMap<>();
+
+    private LibraryBuilder() {
+    }
+
+    /**
+     * Returns a new, empty builder.
+     *
+     * @return a new builder
+     */
+    public static LibraryBuilder of() {
+        return new LibraryBuilder();
+    }
+
+    /**
+     * Appends all definitions of {@code container} to this builder and returns its expression.
+     * <p>
+     * {@link SuffixedIdentifierExpression Suffixed} Patient definitions whose prefix already exists in this builder
+     * get their suffixes incremented past the ones of this builder, in the definitions and in the returned expression.
+     * Other Patient definitions with a name that already exists in this builder are skipped like {@link
+     * Container#combiner(java.util.function.BinaryOperator) combining} containers does.
+     *
+     * @param container the container to append
+     * @param <T>       the type of the expression
+     * @return the expression of {@code container} or {@link Optional#empty()} if it is empty
+     */
+    public <T extends Expression<T>> Optional<T> add(Container<T> container) {
+        codeSystemDefinitions.addAll(container.getCodeSystemDefinitions());
+        unfilteredDefinitions.addAll(container.getUnfilteredDefinitions());
+        var increments = addPatientDefinitions(container.getPatientDefinitions());
+        return container.getExpression().map(expression -> withIncrementedSuffixes(expression, increments));
+    }
+
+    /**
+     * Appends all definitions of {@code other} to this builder and returns {@code expression}, which has to be built
+     * by {@code other}.
+     * <p>
+     * Suffixed Patient definitions are renamed like in {@link #add(Container)}, other Patient definitions with names
+     * that already exist in this builder are skipped.
+     *
+     * @param other      the builder whose definitions to append
+     * @param expression an expression referring to definitions of {@code other} or {@code null}
+     * @param <T>        the type of the expression
+     * @return {@code expression} with the suffixes of its identifiers incremented like the appended definitions
+     */
+    public <T extends Expression<T>> T add(LibraryBuilder other, T expression) {
+        codeSystemDefinitions.addAll(other.codeSystemDefinitions);
+        unfilteredDefinitions.addAll(other.unfilteredDefinitions);
+        var increments = addPatientDefinitions(other.patientDefinitions.values());
+        return expression == null ? null : withIncrementedSuffixes(expression, increments);
+    }
+
+    private Map<String, Integer> addPatientDefinitions(Collection<ExpressionDefinition> definitions) {
+        var increments = new HashMap<String, Integer>();
+        for (var definition : definitions) {
+            definition.suffixes().forEach((prefix, suffix) -> {
+                var existing = suffixes.get(prefix);
+                if (existing != null) {
+                    increments.putIfAbsent(prefix, existing + 1);
+                }
+            });
+        }
+        for (var definition : definitions) {
+            var renamed = increments.isEmpty() ? definition : definition.withIncrementedSuffixes(increments);
+            patientDefinitions.putIfAbsent(renamed.name(), renamed);
+            renamed.suffixes().forEach((prefix, suffix) -> suffixes.merge(prefix, suffix, Integer::max));
+        }
+        return increments;
+    }
+
+    private static <T extends Expression<T>> T withIncrementedSuffixes(T expression, Map<String, Integer> increments) {
+        return increments.isEmpty() ? expression : expression.withIncrementedSuffixes(increments);
+    }
+
+    /**
+     * Appends a Patient definition of {@code expression} with a {@link SymbolicIdentifierExpression symbolic name}
+     * with the prefix {@code name} and returns an expression referring to it.
+     *
+     * @param name       the prefix of the name of the expression definition
+     * @param expression the expression to define
+     * @return a {@link WrapperExpression} of the symbolic identifier
+     */
+    public DefaultExpression moveToPatientContext(String name, DefaultExpression expression) {
+        var identifier = SymbolicIdentifierExpression.of(name);
+        patientDefinitions.put(identifier, ExpressionDefinition.of(identifier, requireNonNull(expression)));
+        return new WrapperExpression(identifier);
+    }
+
+    /**
+     * Builds an immutable container holding {@code expression} and all definitions appended so far.
+     *
+     * @param expression the expression of the container or {@code null} for the {@link Container#empty() empty
+     *                   container}
+     * @return the container
+     */
+    public Container<DefaultExpression> build(DefaultExpression expression) {
+        if (expression == null) {
+            return Container.empty();
+        }
+        return Container.of(expression, PersistentSet.copyOf(codeSystemDefinitions),
+                PersistentSet.copyOf(unfilteredDefinitions),
+                DefinitionList.copyOf(new ArrayList<>(patientDefinitions.values())), Map.copyOf(suffixes));
+    }
+}
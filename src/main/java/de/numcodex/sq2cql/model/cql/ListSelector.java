@@ -2,10 +2,8 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-
-import static java.util.stream.Collectors.joining;
 
 public record ListSelector(List<? extends DefaultExpression> items) implements ExpressionTerm<ListSelector> {
 
@@ -19,11 +17,24 @@ public record ListSelector(List<? extends DefaultExpression> items) implements E
 
     @Override
     public String print(PrintContext printContext) {
-        return "{ %s }".formatted(items.stream().map(printContext::print).collect(joining(", ")));
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append("{ ");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            printContext.print(items.get(i), out);
+        }
+        out.append(" }");
     }
 
     @Override
-    public ListSelector withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new ListSelector(items.stream().map(e -> e.withIncrementedSuffixes(increments)).toList());
+    public ListSelector rewriteChildren(ExpressionRewriter rewriter) {
+        var items = rewriter.rewriteAll(this.items);
+        return items == this.items ? this : new ListSelector(items);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -25,14 +25,23 @@ public record MembershipExpression(Expression<?> a, String op, Expression<?> b)
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         var childPrintContext = printContext.withPrecedence(PRECEDENCE);
-        return printContext.parenthesize(PRECEDENCE, "%s %s %s".formatted(a.print(childPrintContext), op,
-                b.print(childPrintContext)));
+        printContext.openParenthesis(PRECEDENCE, out);
+        a.print(childPrintContext, out);
+        out.append(' ').append(op).append(' ');
+        b.print(childPrintContext, out);
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new MembershipExpression(a.withIncrementedSuffixes(increments), op,
-                b.withIncrementedSuffixes(increments));
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var a = this.a.rewrite(rewriter);
+        var b = this.b.rewrite(rewriter);
+        return a == this.a && b == this.b ? this : new MembershipExpression(a, op, b);
     }
 }
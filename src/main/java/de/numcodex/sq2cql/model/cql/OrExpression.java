@@ -2,12 +2,11 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  * Expression1 OR Expression2 OR Expression ... OR ExpressionN
  */
@@ -28,15 +27,56 @@ public record OrExpression(List<DefaultExpression> expressions) implements Defau
         }
     }
 
+    /**
+     * Returns the same expression as reducing {@code operands} with {@link #of(Expression, Expression) of} from left
+     * to right, but without copying the list of expressions for each operand.
+     *
+     * @param operands the operands, at least one
+     * @return the single operand or an {@link OrExpression} of all operands
+     * @throws IllegalArgumentException if {@code operands} is empty
+     */
+    public static DefaultExpression of(List<DefaultExpression> operands) {
+        if (operands.isEmpty()) {
+            throw new IllegalArgumentException("empty operands");
+        }
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        var first = operands.get(0);
+        var expressions = new ArrayList<DefaultExpression>(operands.size());
+        if (first instanceof OrExpression orExpression) {
+            expressions.addAll(orExpression.expressions);
+        } else {
+            expressions.add(new WrapperExpression(first));
+        }
+        for (var operand : operands.subList(1, operands.size())) {
+            expressions.add(new WrapperExpression(operand));
+        }
+        return new OrExpression(expressions);
+    }
+
     @Override
     public String print(PrintContext printContext) {
-        return printContext.parenthesize(PRECEDENCE, expressions.stream()
-                .map(printContext.withPrecedence(PRECEDENCE)::print)
-                .collect(joining(" or\n" + printContext.getIndent())));
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var childPrintContext = printContext.withPrecedence(PRECEDENCE);
+        printContext.openParenthesis(PRECEDENCE, out);
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(" or");
+                printContext.appendLineBreak(out);
+            }
+            childPrintContext.print(expressions.get(i), out);
+        }
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new OrExpression(expressions.stream().map(e -> e.withIncrementedSuffixes(increments)).toList());
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expressions = rewriter.rewriteAll(this.expressions);
+        return expressions == this.expressions ? this : new OrExpression(expressions);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,14 +22,23 @@ public record OverlapsIntervalOperatorPhrase(Expression<?> leftInterval, Express
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         var operatorPrintContext = printContext.withPrecedence(PRECEDENCE);
-        return printContext.parenthesize(PRECEDENCE, "%s overlaps %s".formatted(leftInterval.print(operatorPrintContext),
-                rightInterval.print(operatorPrintContext)));
+        printContext.openParenthesis(PRECEDENCE, out);
+        leftInterval.print(operatorPrintContext, out);
+        out.append(" overlaps ");
+        rightInterval.print(operatorPrintContext, out);
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new OverlapsIntervalOperatorPhrase(leftInterval.withIncrementedSuffixes(increments),
-                rightInterval.withIncrementedSuffixes(increments));
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var leftInterval = this.leftInterval.rewrite(rewriter);
+        var rightInterval = this.rightInterval.rewrite(rewriter);
+        return leftInterval == this.leftInterval && rightInterval == this.rightInterval ? this : new OverlapsIntervalOperatorPhrase(leftInterval, rightInterval);
     }
 }
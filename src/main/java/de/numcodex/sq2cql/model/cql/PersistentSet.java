@@ -0,0 +1,98 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * A persistent set backed by a {@link HashTrie}.
+ * <p>
+ * Sets created by {@link #plus(Object) plus} and {@link #union(PersistentSet) union} share structure with their
+ * operands. The set is unmodifiable through the {@link java.util.Set} interface.
+ *
+ * @param <E> the type of the elements
+ */
+final class PersistentSet<E> extends AbstractSet<E> {
+
+    private static final PersistentSet<?> EMPTY = new PersistentSet<>(HashTrie.empty());
+
+    private final HashTrie<E, E> trie;
+
+    private PersistentSet(HashTrie<E, E> trie) {
+        this.trie = trie;
+    }
+
+    static <E> PersistentSet<E> empty() {
+        @SuppressWarnings("unchecked")
+        PersistentSet<E> empty = (PersistentSet<E>) EMPTY;
+        return empty;
+    }
+
+    @SafeVarargs
+    static <E> PersistentSet<E> of(E... elements) {
+        PersistentSet<E> set = empty();
+        for (var element : elements) {
+            set = set.plus(element);
+        }
+        return set;
+    }
+
+    static <E> PersistentSet<E> copyOf(Collection<? extends E> elements) {
+        PersistentSet<E> set = empty();
+        for (var element : elements) {
+            set = set.plus(element);
+        }
+        return set;
+    }
+
+    PersistentSet<E> plus(E element) {
+        if (trie.containsKey(element)) {
+            return this;
+        }
+        return new PersistentSet<>(trie.plus(element, element));
+    }
+
+    /**
+     * Returns the union of this set and {@code other} by adding the elements of the smaller set to the larger one.
+     */
+    PersistentSet<E> union(PersistentSet<E> other) {
+        if (other == this || other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        var larger = size() >= other.size() ? this : other;
+        var smaller = larger == this ? other : this;
+        var result = larger;
+        for (var element : smaller) {
+            result = result.plus(element);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && trie.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return trie.size();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        trie.forEach((element, ignored) -> action.accept(element));
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        var elements = new ArrayList<E>(size());
+        forEach(elements::add);
+        return Collections.unmodifiableList(elements).iterator();
+    }
+}
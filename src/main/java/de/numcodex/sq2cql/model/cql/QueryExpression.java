@@ -2,14 +2,14 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.joining;
 
 public record QueryExpression(SourceClause sourceClause, List<QueryInclusionClause> queryInclusionClauses,
                               WhereClause whereClause,
@@ -49,19 +49,46 @@ public record QueryExpression(SourceClause sourceClause, List<QueryInclusionClau
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         var clauses = clauses();
         var context = printContext.increase().resetPrecedence();
-        return clauses.size() == 1
-                ? sourceClause.source().querySource().print(context)
-                : printContext.parenthesizeZero(clauses.stream().map(context::print).collect(joining("\n" + context.getIndent())));
+        if (clauses.size() == 1) {
+            sourceClause.source().querySource().print(context, out);
+            return;
+        }
+        printContext.openParenthesis(0, out);
+        for (int i = 0; i < clauses.size(); i++) {
+            if (i > 0) {
+                context.appendLineBreak(out);
+            }
+            context.print(clauses.get(i), out);
+        }
+        printContext.closeParenthesis(0, out);
     }
 
     @Override
-    public QueryExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new QueryExpression(sourceClause.withIncrementedSuffixes(increments),
-                queryInclusionClauses.stream().map(e -> e.withIncrementedSuffixes(increments)).toList(),
-                whereClause.withIncrementedSuffixes(increments),
-                returnClause == null ? null : returnClause.withIncrementedSuffixes(increments));
+    public QueryExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var sourceClause = this.sourceClause.rewrite(rewriter);
+        var queryInclusionClauses = this.queryInclusionClauses;
+        for (int i = 0; i < queryInclusionClauses.size(); i++) {
+            var clause = this.queryInclusionClauses.get(i);
+            var newClause = clause.rewrite(rewriter);
+            if (newClause != clause) {
+                if (queryInclusionClauses == this.queryInclusionClauses) {
+                    queryInclusionClauses = new ArrayList<>(this.queryInclusionClauses);
+                }
+                queryInclusionClauses.set(i, newClause);
+            }
+        }
+        var whereClause = this.whereClause.rewrite(rewriter);
+        var returnClause = this.returnClause == null ? null : this.returnClause.rewrite(rewriter);
+        return sourceClause == this.sourceClause && queryInclusionClauses == this.queryInclusionClauses
+                && whereClause == this.whereClause && returnClause == this.returnClause ? this
+                : new QueryExpression(sourceClause, queryInclusionClauses, whereClause, returnClause);
     }
 
     private List<Clause> clauses() {
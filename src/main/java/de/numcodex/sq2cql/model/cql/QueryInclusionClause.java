@@ -1,9 +1,7 @@
 package de.numcodex.sq2cql.model.cql;
 
-import java.util.Map;
-
 public interface QueryInclusionClause extends Clause {
 
     @Override
-    QueryInclusionClause withIncrementedSuffixes(Map<String, Integer> increments);
+    QueryInclusionClause rewrite(ExpressionRewriter rewriter);
 }
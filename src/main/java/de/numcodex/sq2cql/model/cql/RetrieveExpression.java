@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -23,14 +23,23 @@ public record RetrieveExpression(String resourceType, Expression<?> terminology)
 
     @Override
     public String print(PrintContext printContext) {
-        return terminology == null ? "[%s]".formatted(resourceType)
-                : "[%s: %s]".formatted(resourceType, terminology.print(printContext.resetPrecedence()));
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public RetrieveExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new RetrieveExpression(resourceType,
-                terminology == null ? null : terminology.withIncrementedSuffixes(increments));
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        out.append('[').append(resourceType);
+        if (terminology != null) {
+            out.append(": ");
+            terminology.print(printContext.resetPrecedence(), out);
+        }
+        out.append(']');
+    }
+
+    @Override
+    public RetrieveExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var terminology = this.terminology == null ? null : this.terminology.rewrite(rewriter);
+        return terminology == this.terminology ? this : new RetrieveExpression(resourceType, terminology);
     }
 
     public IdentifierExpression alias() {
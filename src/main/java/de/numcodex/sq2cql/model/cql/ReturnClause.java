@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -18,12 +18,19 @@ public record ReturnClause(Expression<?> expression) implements Clause {
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
-        return "return " + expression.print(printContext.resetPrecedence().increase());
+        out.append("return ");
+        expression.print(printContext.resetPrecedence().increase(), out);
     }
 
     @Override
-    public ReturnClause withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new ReturnClause(expression.withIncrementedSuffixes(increments));
+    public ReturnClause rewrite(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new ReturnClause(expression);
     }
 }
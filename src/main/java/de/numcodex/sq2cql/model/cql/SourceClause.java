@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -18,12 +18,19 @@ public record SourceClause(AliasedQuerySource source) implements Clause {
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
-        return "from %s".formatted(source.print(printContext.increase()));
+        out.append("from ");
+        source.print(printContext.increase(), out);
     }
 
     @Override
-    public SourceClause withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new SourceClause(source.withIncrementedSuffixes(increments));
+    public SourceClause rewrite(ExpressionRewriter rewriter) {
+        var source = this.source.rewrite(rewriter);
+        return source == this.source ? this : new SourceClause(source);
     }
 }
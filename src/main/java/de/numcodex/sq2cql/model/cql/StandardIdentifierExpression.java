@@ -18,7 +18,8 @@ public record StandardIdentifierExpression(String identifier) implements Identif
 
     @Override
     public String print(PrintContext printContext) {
-        return SAFE_CHARS_PATTERN.matcher(identifier).matches() ? identifier : "\"%s\"".formatted(identifier);
+        var name = printContext.name(this, identifier);
+        return SAFE_CHARS_PATTERN.matcher(name).matches() ? name : "\"%s\"".formatted(name);
     }
 
     @Override
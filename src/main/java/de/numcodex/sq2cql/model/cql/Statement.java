@@ -2,10 +2,21 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
+
 /**
  * @author Alexander Kiel
  */
 public interface Statement {
 
     String print(PrintContext printContext);
+
+    /**
+     * Appends the same text {@link #print(PrintContext)} returns to {@code out}.
+     *
+     * @param printContext the context to print in
+     * @param out          the appendable to append to
+     * @throws IOException if {@code out} throws one
+     */
+    void print(PrintContext printContext, Appendable out) throws IOException;
 }
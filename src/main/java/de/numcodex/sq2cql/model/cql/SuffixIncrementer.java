@@ -0,0 +1,26 @@
+package de.numcodex.sq2cql.model.cql;
+
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Increments the numerical suffixes of all identifiers by the increments of their prefixes.
+ *
+ * @param increments a map of identifier prefixes to the increments of their suffixes
+ */
+record SuffixIncrementer(Map<String, Integer> increments) implements ExpressionRewriter {
+
+    SuffixIncrementer {
+        requireNonNull(increments);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Expression<T>> T rewrite(T expression) {
+        // the type of identifiers is IdentifierExpression, so T is IdentifierExpression here
+        return expression instanceof IdentifierExpression identifier
+                ? (T) identifier.withIncrementedSuffixes(increments)
+                : expression;
+    }
+}
@@ -31,6 +31,10 @@ public record SuffixedIdentifierExpression(String prefix, int suffix) implements
 
     @Override
     public String print(PrintContext printContext) {
+        var name = printContext.name(this, null);
+        if (name != null) {
+            return SAFE_CHARS_PATTERN.matcher(name).matches() ? name : "\"%s\"".formatted(name);
+        }
         return suffix == 0
                 ? SAFE_CHARS_PATTERN.matcher(prefix).matches() ? prefix : "\"%s\"".formatted(prefix)
                 : "\"%s %d\"".formatted(prefix, suffix);
@@ -38,7 +42,8 @@ public record SuffixedIdentifierExpression(String prefix, int suffix) implements
 
     @Override
     public IdentifierExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new SuffixedIdentifierExpression(prefix, suffix + increments.getOrDefault(prefix, 0));
+        var increment = increments.getOrDefault(prefix, 0);
+        return increment == 0 ? this : new SuffixedIdentifierExpression(prefix, suffix + increment);
     }
 
     @Override
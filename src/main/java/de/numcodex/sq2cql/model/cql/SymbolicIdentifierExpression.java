@@ -0,0 +1,56 @@
+package de.numcodex.sq2cql.model.cql;
+
+import de.numcodex.sq2cql.PrintContext;
+
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An {@link IdentifierExpression} that consists of a prefix and an opaque symbol, which gets its final name only when
+ * its {@link Container} is printed.
+ * <p>
+ * Two symbolic identifiers are equal only if they share the same symbol. So they never collide when containers are
+ * combined and don't have to be renamed. The {@link Container#print() printing} of a container names all symbolic
+ * identifiers of its Patient definitions with the same prefix like {@link SuffixedIdentifierExpression suffixed
+ * identifiers} would have been named: the prefix alone if there is only one of them and the prefix followed by the
+ * position among them otherwise.
+ * <p>
+ * Printed outside of a container, a symbolic identifier prints as its prefix.
+ *
+ * @param prefix the prefix of the name
+ * @param symbol the symbol identifying the definition
+ */
+public record SymbolicIdentifierExpression(String prefix, Object symbol) implements IdentifierExpression {
+
+    public SymbolicIdentifierExpression {
+        requireNonNull(prefix);
+        requireNonNull(symbol);
+    }
+
+    /**
+     * Creates a symbolic identifier with a new symbol.
+     *
+     * @param prefix the prefix of the name
+     * @return the symbolic identifier
+     */
+    public static SymbolicIdentifierExpression of(String prefix) {
+        return new SymbolicIdentifierExpression(prefix, new Object());
+    }
+
+    @Override
+    public String print(PrintContext printContext) {
+        var name = printContext.name(this, prefix);
+        return SAFE_CHARS_PATTERN.matcher(name).matches() ? name : "\"%s\"".formatted(name);
+    }
+
+    @Override
+    public IdentifierExpression withIncrementedSuffixes(Map<String, Integer> increments) {
+        return this;
+    }
+
+    @Override
+    public String unquotedIdentifier() {
+        return prefix;
+    }
+}
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -21,12 +21,20 @@ public record TypeExpression(Expression<?> expression, String typeSpecifier) imp
 
     @Override
     public String print(PrintContext printContext) {
-        return printContext.parenthesize(PRECEDENCE, "%s as %s".formatted(expression.print(printContext
-                .withPrecedence(PRECEDENCE)), typeSpecifier));
+        return PrintContext.toString(out -> print(printContext, out));
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new TypeExpression(expression.withIncrementedSuffixes(increments), typeSpecifier);
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        printContext.openParenthesis(PRECEDENCE, out);
+        expression.print(printContext.withPrecedence(PRECEDENCE), out);
+        out.append(" as ").append(typeSpecifier);
+        printContext.closeParenthesis(PRECEDENCE, out);
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new TypeExpression(expression, typeSpecifier);
     }
 }
@@ -2,12 +2,10 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  * Expression1 UNION Expression2 UNION Expression ... UNION ExpressionN
  */
@@ -30,13 +28,26 @@ public record UnionExpression(List<DefaultExpression> expressions) implements De
 
     @Override
     public String print(PrintContext printContext) {
-        return printContext.parenthesize(PRECEDENCE, expressions.stream()
-                .map(printContext.withPrecedence(PRECEDENCE)::print)
-                .collect(joining(" union\n" + printContext.getIndent())));
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        var childPrintContext = printContext.withPrecedence(PRECEDENCE);
+        printContext.openParenthesis(PRECEDENCE, out);
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(" union");
+                printContext.appendLineBreak(out);
+            }
+            childPrintContext.print(expressions.get(i), out);
+        }
+        printContext.closeParenthesis(PRECEDENCE, out);
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new UnionExpression(expressions.stream().map(e -> e.withIncrementedSuffixes(increments)).toList());
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expressions = rewriter.rewriteAll(this.expressions);
+        return expressions == this.expressions ? this : new UnionExpression(expressions);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
@@ -23,12 +23,19 @@ public record WhereClause(DefaultExpression expression) implements Clause {
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
-        return "where " + expression.print(printContext.increase());
+        out.append("where ");
+        expression.print(printContext.increase(), out);
     }
 
     @Override
-    public WhereClause withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new WhereClause(expression.withIncrementedSuffixes(increments));
+    public WhereClause rewrite(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new WhereClause(expression);
     }
 }
@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -19,15 +19,24 @@ public record WithClause(AliasedQuerySource source, Expression<?> expression) im
 
     @Override
     public String print(PrintContext printContext) {
+        return PrintContext.toString(out -> print(printContext, out));
+    }
+
+    @Override
+    public void print(PrintContext printContext, Appendable out) throws IOException {
         assert printContext.precedence() == 0;
         var increasedPrintContext = printContext.increase();
-        return "with " + source.print(increasedPrintContext) + "\n" +
-                increasedPrintContext.getIndent() + "such that " + expression.print(increasedPrintContext.increase());
+        out.append("with ");
+        source.print(increasedPrintContext, out);
+        increasedPrintContext.appendLineBreak(out);
+        out.append("such that ");
+        expression.print(increasedPrintContext.increase(), out);
     }
 
     @Override
-    public WithClause withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new WithClause(source.withIncrementedSuffixes(increments),
-                expression.withIncrementedSuffixes(increments));
+    public WithClause rewrite(ExpressionRewriter rewriter) {
+        var source = this.source.rewrite(rewriter);
+        var expression = this.expression.rewrite(rewriter);
+        return source == this.source && expression == this.expression ? this : new WithClause(source, expression);
     }
 }
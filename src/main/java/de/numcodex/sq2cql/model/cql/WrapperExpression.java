@@ -2,7 +2,7 @@ package de.numcodex.sq2cql.model.cql;
 
 import de.numcodex.sq2cql.PrintContext;
 
-import java.util.Map;
+import java.io.IOException;
 
 import static java.util.Objects.requireNonNull;
 
@@ -18,8 +18,14 @@ public record WrapperExpression(Expression<?> expression) implements DefaultExpr
     }
 
     @Override
-    public DefaultExpression withIncrementedSuffixes(Map<String, Integer> increments) {
-        return new WrapperExpression(expression.withIncrementedSuffixes(increments));
+    public void print(PrintContext printContext, Appendable out) throws IOException {
+        expression.print(printContext, out);
+    }
+
+    @Override
+    public DefaultExpression rewriteChildren(ExpressionRewriter rewriter) {
+        var expression = this.expression.rewrite(rewriter);
+        return expression == this.expression ? this : new WrapperExpression(expression);
     }
 
     @Override
@@ -1,15 +1,26 @@
 package de.numcodex.sq2cql.model.structured_query;
 
+import de.numcodex.sq2cql.TranslationOption;
+import de.numcodex.sq2cql.jfr.CriterionEvent;
 import de.numcodex.sq2cql.model.AttributeMapping;
 import de.numcodex.sq2cql.model.Mapping;
 import de.numcodex.sq2cql.model.MappingContext;
 import de.numcodex.sq2cql.model.common.TermCode;
 import de.numcodex.sq2cql.model.cql.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static de.numcodex.sq2cql.TranslationListener.Phase.CRITERION;
+import static de.numcodex.sq2cql.TranslationListener.Phase.MODIFIER;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -19,6 +30,13 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
 
     private static final IdentifierExpression PATIENT = StandardIdentifierExpression.of("Patient");
 
+    /**
+     * The order of the codes of a shared Medication reference definition, so that the same code set always gets the
+     * same definition.
+     */
+    private static final Comparator<TermCode> TERM_CODE_ORDER = Comparator.comparing(TermCode::system)
+            .thenComparing(TermCode::code);
+
     final ContextualConcept concept;
     final List<AttributeFilter> attributeFilters;
     final TimeRestriction timeRestriction;
@@ -43,10 +61,74 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
         var codeSystemDefinition = mappingContext.findCodeSystemDefinition(termCode.system())
                 .orElseThrow(() -> new IllegalStateException("code system alias for `%s` not found"
                         .formatted(termCode.system())));
-        return Container.of(CodeSelector.of(termCode.code(), codeSystemDefinition.name()),
+        return Container.of(mappingContext.intern(CodeSelector.of(termCode.code(), codeSystemDefinition.name())),
                 codeSystemDefinition);
     }
 
+    /**
+     * Returns the expression testing whether the codings of {@code codingExpr} contain at least one of the given term
+     * codes.
+     * <p>
+     * A single term code is tested with {@code contains}. Several term codes are tested by one {@code exists} of the
+     * intersection of the codings with the list of the code selectors, instead of a disjunction of one {@code contains}
+     * per term code.
+     *
+     * @param mappingContext the mapping context to determine the code system definitions of the term codes
+     * @param codingExpr     the expression of the codings to test
+     * @param termCodes      at least one term code
+     * @return a {@link Container} of the membership expression together with its used {@link CodeSystemDefinition
+     * code system definitions}
+     */
+    static Container<DefaultExpression> codingMembershipExpr(MappingContext mappingContext, Expression<?> codingExpr,
+                                                             List<TermCode> termCodes) {
+        if (termCodes.size() == 1) {
+            return codeSelector(mappingContext, termCodes.get(0)).map(terminology ->
+                    MembershipExpression.contains(codingExpr, terminology));
+        }
+        return codeListSelector(mappingContext, termCodes).map(list ->
+                ExistsExpression.of(IntersectExpression.of(codingExpr, list)));
+    }
+
+    /**
+     * Returns the list of the code selectors of the given term codes.
+     *
+     * @param mappingContext the mapping context to determine the code system definitions of the term codes
+     * @param termCodes      the term codes to use
+     * @return a {@link Container} of the list selector together with its used {@link CodeSystemDefinition code system
+     * definitions}
+     */
+    static Container<ListSelector> codeListSelector(MappingContext mappingContext, List<TermCode> termCodes) {
+        var codeSelectors = termCodes.stream().map(termCode -> codeSelector(mappingContext, termCode)).toList();
+        var list = ListSelector.of(codeSelectors.stream()
+                .map(codeSelector -> new WrapperExpression(codeSelector.getExpression().orElseThrow())).toList());
+        // only the union of the code system definitions is kept, the code selectors are already in the list
+        return codeSelectors.stream()
+                .reduce(Container.empty(), Container.combiner((a, b) -> a))
+                .map(codeSelector -> list);
+    }
+
+    /**
+     * Returns the expression testing whether the code of {@code codeExpr} is one of the given term codes.
+     * <p>
+     * A single term code is tested with {@code =} and several term codes with one {@code in} of a list of codes,
+     * like the {@link CodeModifier} does.
+     *
+     * @param mappingContext the mapping context to intern the expressions
+     * @param codeExpr       the expression of the code to test
+     * @param termCodes      at least one term code
+     * @return a {@link Container} of the comparison or membership expression
+     */
+    static Container<DefaultExpression> codeMembershipExpr(MappingContext mappingContext, Expression<?> codeExpr,
+                                                           List<TermCode> termCodes) {
+        if (termCodes.size() == 1) {
+            return Container.of(ComparatorExpression.equal(codeExpr,
+                    mappingContext.intern(StringLiteralExpression.of(termCodes.get(0).code()))));
+        }
+        var list = ListSelector.of(termCodes.stream()
+                .map(termCode -> mappingContext.intern(StringLiteralExpression.of(termCode.code()))).toList());
+        return Container.of(MembershipExpression.in(codeExpr, list));
+    }
+
     /**
      * Returns the retrieve expression according to the given term code.
      * <p>
@@ -64,14 +146,37 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
         var mapping = mappingContext.findMapping(termCode)
                 .orElseThrow(() -> new MappingNotFoundException(termCode));
 
-        return mapping.termCodeFhirPath() == null
-                ? codeSelector(mappingContext, mapping.primaryCode())
-                .map(terminology -> RetrieveExpression.of(mapping.resourceType(), terminology))
-                : Container.of(RetrieveExpression.of(mapping.resourceType()));
+        if (mapping.termCodeFhirPath() != null) {
+            mappingContext.listener().retrieveEmitted(mapping.resourceType());
+            return Container.of(mappingContext.intern(RetrieveExpression.of(mapping.resourceType())));
+        }
+        return codeSelector(mappingContext, mapping.primaryCode()).map(terminology -> {
+            mappingContext.listener().retrieveEmitted(mapping.resourceType());
+            return mappingContext.intern(RetrieveExpression.of(mapping.resourceType(), terminology));
+        });
+    }
+
+    /**
+     * Returns the name of the Unfiltered definition of the references of the Medications with {@code codes}, which have
+     * to be {@link #TERM_CODE_ORDER sorted}.
+     * <p>
+     * The name of several codes carries the start of the SHA-256 hash of all codes, so that different code sets starting
+     * with the same code get different names.
+     */
+    private static String referenceName(List<TermCode> codes) {
+        if (codes.size() == 1) {
+            return codes.get(0).code() + "Ref";
+        }
+        var hash = StructuredQuery.hash(codes.stream().map(code -> code.system() + "|" + code.code())
+                .collect(Collectors.joining(",")));
+        return "%sRef_%s".formatted(codes.get(0).code(), hash);
     }
 
-    private static String referenceName(TermCode termCode) {
-        return termCode.code() + "Ref";
+    private static boolean isMedication(Mapping mapping) {
+        return switch (mapping.resourceType()) {
+            case "MedicationAdministration", "MedicationStatement", "MedicationRequest" -> true;
+            default -> false;
+        };
     }
 
     public abstract T appendAttributeFilter(AttributeFilter attributeFilter);
@@ -88,18 +193,47 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
 
     @Override
     public Container<DefaultExpression> toCql(MappingContext mappingContext) {
-        var expr = fullExpr(mappingContext);
-        if (expr.isEmpty()) {
-            throw new TranslationException("Failed to expand the concept %s.".formatted(concept));
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(CRITERION);
+        try {
+            var expr = fullExpr(mappingContext);
+            if (expr.isEmpty()) {
+                throw new TranslationException("Failed to expand the concept %s.".formatted(concept));
+            }
+            return mappingContext.isEnabled(TranslationOption.DEFERRED_NAMING)
+                    ? expr.moveToPatientContextWithSymbolicName("Criterion")
+                    : expr.moveToPatientContext("Criterion");
+        } finally {
+            listener.phaseFinished(CRITERION, startTime);
+        }
+    }
+
+    @Override
+    public Optional<DefaultExpression> toCql(MappingContext mappingContext, LibraryBuilder builder) {
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(CRITERION);
+        try {
+            var expr = expand(mappingContext, termCodes -> fullExpr(mappingContext, termCodes, builder));
+            if (expr == null) {
+                throw new TranslationException("Failed to expand the concept %s.".formatted(concept));
+            }
+            return Optional.of(builder.moveToPatientContext("Criterion", expr));
+        } finally {
+            listener.phaseFinished(CRITERION, startTime);
         }
-        return expr.moveToPatientContext("Criterion");
     }
 
     @Override
     public Container<DefaultExpression> toReferencesCql(MappingContext mappingContext) {
-        return mappingContext.expandConcept(concept)
-                .map(termCode -> refExpr(mappingContext, termCode))
-                .reduce(Container.empty(), Container.UNION);
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(CRITERION);
+        try {
+            return mappingContext.expandConcept(concept)
+                    .map(termCode -> refExpr(mappingContext, termCode))
+                    .reduce(Container.empty(), Container.UNION);
+        } finally {
+            listener.phaseFinished(CRITERION, startTime);
+        }
     }
 
     /**
@@ -107,31 +241,97 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
      * termCode}.
      */
     private Container<DefaultExpression> fullExpr(MappingContext mappingContext) {
-        return mappingContext.expandConcept(concept)
-                .map(termCode -> expr(mappingContext, termCode))
-                .reduce(Container.empty(), Container.OR);
+        return expand(mappingContext, termCodes -> fullExpr(mappingContext, termCodes));
     }
 
-    private Container<DefaultExpression> expr(MappingContext mappingContext, ContextualTermCode termCode) {
-        var mapping = mappingContext.findMapping(termCode)
-                .orElseThrow(() -> new MappingNotFoundException(termCode));
+    /**
+     * Applies {@code translation} to the expansion of the concept of this criterion, recording a {@link
+     * CriterionEvent}.
+     */
+    private <R> R expand(MappingContext mappingContext, Function<Stream<ContextualTermCode>, R> translation) {
+        var event = new CriterionEvent();
+        if (!event.isEnabled()) {
+            return translation.apply(mappingContext.expandConcept(concept));
+        }
+        event.begin();
+        var termCodes = mappingContext.expandConcept(concept).toList();
+        var expr = translation.apply(termCodes.stream());
+        if (event.shouldCommit()) {
+            event.setCriterionType(getClass().getSimpleName());
+            event.setConcept(concept.context().code() + ": " + concept.concept().termCodes().stream()
+                    .map(termCode -> termCode.system() + "|" + termCode.code())
+                    .collect(Collectors.joining(", ")));
+            event.setExpansionSize(termCodes.size());
+            event.commit();
+        }
+        return expr;
+    }
+
+    private Container<DefaultExpression> fullExpr(MappingContext mappingContext, Stream<ContextualTermCode> termCodes) {
+        var exprs = exprs(mappingContext, termCodes);
+        return (mappingContext.isEnabled(TranslationOption.RETRIEVE_FUSION) ? RetrieveFusion.fuse(exprs) : exprs)
+                .stream().reduce(Container.empty(), Container.OR);
+    }
+
+    /**
+     * Builds the same OR-expression as {@link #fullExpr(MappingContext, Stream)} but appends the definitions to {@code
+     * builder} instead of combining containers.
+     *
+     * @return the OR-expression or {@code null} if {@code termCodes} is empty
+     */
+    private DefaultExpression fullExpr(MappingContext mappingContext, Stream<ContextualTermCode> termCodes,
+                                       LibraryBuilder builder) {
+        var operands = new ArrayList<DefaultExpression>();
+        var exprs = exprs(mappingContext, termCodes);
+        for (var expr : mappingContext.isEnabled(TranslationOption.RETRIEVE_FUSION) ? RetrieveFusion.fuse(exprs)
+                : exprs) {
+            builder.add(expr).ifPresent(operands::add);
+        }
+        return operands.isEmpty() ? null : OrExpression.of(operands);
+    }
+
+    /**
+     * Returns the expressions of {@code termCodes} in order.
+     * <p>
+     * Term codes mapped to medication resources with the same resource type and modifiers share one expression, which
+     * is placed at the position of the first of them. That expression tests the medication reference against one
+     * Unfiltered definition retrieving the Medications of all their codes at once, instead of one definition per code.
+     */
+    private List<Container<DefaultExpression>> exprs(MappingContext mappingContext,
+                                                     Stream<ContextualTermCode> termCodes) {
+        var exprs = new ArrayList<Container<DefaultExpression>>();
+        var medicationGroups = new LinkedHashMap<MedicationShape, MedicationGroup>();
+        for (var iterator = termCodes.iterator(); iterator.hasNext(); ) {
+            var termCode = iterator.next();
+            var mapping = mappingContext.findMapping(termCode)
+                    .orElseThrow(() -> new MappingNotFoundException(termCode));
+            if (isMedication(mapping)) {
+                var shape = new MedicationShape(mapping.resourceType(), modifiers(mapping));
+                var group = medicationGroups.get(shape);
+                if (group == null) {
+                    group = new MedicationGroup(exprs.size(), shape, new ArrayList<>());
+                    medicationGroups.put(shape, group);
+                    exprs.add(Container.empty());
+                }
+                if (!group.codes().contains(termCode.termCode())) {
+                    group.codes().add(termCode.termCode());
+                }
+            } else {
+                exprs.add(expr(mappingContext, termCode, mapping));
+            }
+        }
+        for (var group : medicationGroups.values()) {
+            exprs.set(group.index(), medicationExpr(mappingContext, group.shape(), group.codes()));
+        }
+        return exprs;
+    }
+
+    private Container<DefaultExpression> expr(MappingContext mappingContext, ContextualTermCode termCode,
+                                              Mapping mapping) {
         switch (mapping.resourceType()) {
             case "Patient" -> {
                 return valueExpr(mappingContext, mapping, PATIENT);
             }
-            case "MedicationAdministration", "MedicationStatement", "MedicationRequest" -> {
-                var query = medicationReferencesExpr(mappingContext, termCode.termCode())
-                        .moveToUnfilteredContext(referenceName(termCode.termCode()))
-                        .map(medicationReferencesExpr -> {
-                            var retrieveExpr = RetrieveExpression.of(mapping.resourceType());
-                            var alias = retrieveExpr.alias();
-                            var sourceClause = SourceClause.of(AliasedQuerySource.of(retrieveExpr, alias));
-                            var referenceExpression = InvocationExpression.of(alias, "medication.reference");
-                            var whereExpr = MembershipExpression.in(referenceExpression, medicationReferencesExpr);
-                            return QueryExpression.of(sourceClause, WhereClause.of(whereExpr));
-                        });
-                return appendModifier(mappingContext, mapping, query).map(ExistsExpression::of);
-            }
             default -> {
                 return retrieveExpr(mappingContext, termCode).flatMap(retrieveExpr -> {
                     var alias = retrieveExpr.alias();
@@ -139,12 +339,34 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
                     var query = valueExpr(mappingContext, mapping, alias)
                             .map(valueExpr -> QueryExpression.of(sourceClause, WhereClause.of(valueExpr)))
                             .or(() -> QueryExpression.of(sourceClause));
-                    return appendModifier(mappingContext, mapping, query).map(ExistsExpression::of);
+                    return appendModifier(mappingContext, modifiers(mapping), query).map(ExistsExpression::of);
                 });
             }
         }
     }
 
+    /**
+     * Returns the expression testing whether the patient has a medication resource of {@code shape} referring to one of
+     * the Medications with {@code codes}.
+     */
+    private Container<DefaultExpression> medicationExpr(MappingContext mappingContext, MedicationShape shape,
+                                                        List<TermCode> codes) {
+        var sortedCodes = codes.stream().sorted(TERM_CODE_ORDER).toList();
+        var query = medicationReferencesExpr(mappingContext, sortedCodes)
+                .moveToUnfilteredContext(referenceName(sortedCodes))
+                .map(medicationReferencesExpr -> {
+                    mappingContext.listener().retrieveEmitted(shape.resourceType());
+                    var retrieveExpr = mappingContext.intern(RetrieveExpression.of(shape.resourceType()));
+                    var alias = retrieveExpr.alias();
+                    var sourceClause = SourceClause.of(AliasedQuerySource.of(retrieveExpr, alias));
+                    var referenceExpression = mappingContext.intern(InvocationExpression.of(alias,
+                            "medication.reference"));
+                    var whereExpr = MembershipExpression.in(referenceExpression, medicationReferencesExpr);
+                    return QueryExpression.of(sourceClause, WhereClause.of(whereExpr));
+                });
+        return appendModifier(mappingContext, shape.modifiers(), query).map(ExistsExpression::of);
+    }
+
     private Container<DefaultExpression> refExpr(MappingContext mappingContext, ContextualTermCode termCode) {
         var mapping = mappingContext.findMapping(termCode)
                 .orElseThrow(() -> new MappingNotFoundException(termCode));
@@ -154,7 +376,7 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
             var query = valueExpr(mappingContext, mapping, alias)
                     .map(valueExpr -> QueryExpression.of(sourceClause, WhereClause.of(valueExpr)))
                     .or(() -> QueryExpression.of(sourceClause));
-            return appendModifier(mappingContext, mapping, query).map(WrapperExpression::new);
+            return appendModifier(mappingContext, modifiers(mapping), query).map(WrapperExpression::new);
         });
     }
 
@@ -167,22 +389,36 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
     /*
      * Appends expressions from modifier criteria to the query.
      */
-    private Container<QueryExpression> appendModifier(MappingContext mappingContext, Mapping mapping,
+    private Container<QueryExpression> appendModifier(MappingContext mappingContext, List<Modifier> modifiers,
                                                       Container<QueryExpression> queryContainer) {
+        var listener = mappingContext.listener();
+        var startTime = listener.phaseStarted(MODIFIER);
+        try {
+            for (var modifier : modifiers) {
+                queryContainer = modifier.updateQuery(mappingContext, queryContainer);
+            }
+            return queryContainer;
+        } finally {
+            listener.phaseFinished(MODIFIER, startTime);
+        }
+    }
+
+    /*
+     * Returns the modifiers of the term code, the fixed criteria, the attribute filters and the time restriction in the
+     * order they are applied to the query.
+     */
+    private List<Modifier> modifiers(Mapping mapping) {
+        var modifiers = new ArrayList<Modifier>();
         var termCodeModifier = termCodeModifier(mapping);
         if (termCodeModifier != null) {
-            queryContainer = termCodeModifier.updateQuery(mappingContext, queryContainer);
-        }
-        for (var modifier : mapping.fixedCriteria()) {
-            queryContainer = modifier.updateQuery(mappingContext, queryContainer);
-        }
-        for (var modifier : resolveAttributeModifiers(mapping.attributeMappings())) {
-            queryContainer = modifier.updateQuery(mappingContext, queryContainer);
+            modifiers.add(termCodeModifier);
         }
+        modifiers.addAll(mapping.fixedCriteria());
+        modifiers.addAll(resolveAttributeModifiers(mapping.attributeMappings()));
         if (timeRestriction != null) {
-            queryContainer = timeRestriction.toModifier(mapping).updateQuery(mappingContext, queryContainer);
+            modifiers.add(timeRestriction.toModifier(mapping));
         }
-        return queryContainer;
+        return modifiers;
     }
 
     private Modifier termCodeModifier(Mapping mapping) {
@@ -205,19 +441,51 @@ abstract class AbstractCriterion<T extends AbstractCriterion<T>> implements Crit
     }
 
     /**
-     * Returns a query expression that returns all references of Medication with {@code code}.
+     * Two criteria are equal if they are of the same type and have equal concepts, attribute filters, time
+     * restrictions and values.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AbstractCriterion<?> that = (AbstractCriterion<?>) o;
+        return concept.equals(that.concept) && attributeFilters.equals(that.attributeFilters) &&
+                Objects.equals(timeRestriction, that.timeRestriction);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(concept, attributeFilters, timeRestriction);
+    }
+
+    /**
+     * Returns a query expression that returns all references of Medication with one of {@code codes}.
      * <p>
      * Has to be placed into the Unfiltered context.
      */
-    private Container<QueryExpression> medicationReferencesExpr(MappingContext mappingContext, TermCode code) {
-        return codeSelector(mappingContext, code)
-                .map(terminology -> RetrieveExpression.of("Medication", terminology))
+    private Container<QueryExpression> medicationReferencesExpr(MappingContext mappingContext, List<TermCode> codes) {
+        return (codes.size() == 1 ? codeSelector(mappingContext, codes.get(0)) : codeListSelector(mappingContext, codes))
+                .map(terminology -> {
+                    mappingContext.listener().retrieveEmitted("Medication");
+                    return mappingContext.intern(RetrieveExpression.of("Medication", terminology));
+                })
                 .map(retrieveExpr -> {
                     var alias = retrieveExpr.alias();
                     var sourceClause = SourceClause.of(AliasedQuerySource.of(retrieveExpr, alias));
                     var returnClause = ReturnClause.of(AdditionExpressionTerm.of(
-                            StringLiteralExpression.of("Medication/"), InvocationExpression.of(alias, "id")));
+                            mappingContext.intern(StringLiteralExpression.of("Medication/")),
+                            mappingContext.intern(InvocationExpression.of(alias, "id"))));
                     return QueryExpression.of(sourceClause, returnClause);
                 });
     }
+
+    /**
+     * The resource type and the modifiers of the mapping of a medication term code. Term codes of the same shape share
+     * one Unfiltered definition of Medication references.
+     */
+    private record MedicationShape(String resourceType, List<Modifier> modifiers) {
+    }
+
+    private record MedicationGroup(int index, MedicationShape shape, List<TermCode> codes) {
+    }
 }
@@ -23,9 +23,10 @@ public record CodeModifier(String path, List<String> codes) implements SimpleMod
 
     @Override
     public Container<DefaultExpression> expression(MappingContext mappingContext, IdentifierExpression sourceAlias) {
-        var propertyExpr = InvocationExpression.of(sourceAlias, path);
+        var propertyExpr = mappingContext.intern(InvocationExpression.of(sourceAlias, path));
         if (codes.size() == 1) {
-            return Container.of(ComparatorExpression.equal(propertyExpr, StringLiteralExpression.of(codes.get(0))));
+            return Container.of(ComparatorExpression.equal(propertyExpr,
+                    mappingContext.intern(StringLiteralExpression.of(codes.get(0)))));
         } else {
             var list = ListSelector.of(codes.stream().map(StringLiteralExpression::of).toList());
             return Container.of(MembershipExpression.in(propertyExpr, list));
@@ -6,7 +6,7 @@ import de.numcodex.sq2cql.model.cql.*;
 
 import java.util.List;
 
-import static de.numcodex.sq2cql.model.structured_query.AbstractCriterion.codeSelector;
+import static de.numcodex.sq2cql.model.structured_query.AbstractCriterion.codingMembershipExpr;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -25,10 +25,7 @@ public record CodingModifier(String path, List<TermCode> concepts) implements Si
 
     @Override
     public Container<DefaultExpression> expression(MappingContext mappingContext, IdentifierExpression sourceAlias) {
-        var codingExpr = InvocationExpression.of(sourceAlias, path);
-        return concepts.stream()
-                .map(concept -> codeSelector(mappingContext, concept).map(terminology ->
-                        MembershipExpression.contains(codingExpr, terminology)))
-                .reduce(Container.empty(), Container.OR);
+        var codingExpr = mappingContext.intern(InvocationExpression.of(sourceAlias, path));
+        return codingMembershipExpr(mappingContext, codingExpr, concepts);
     }
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.numcodex.sq2cql.TranslationOption;
 import de.numcodex.sq2cql.model.MappingContext;
 import de.numcodex.sq2cql.model.common.Comparator;
 import de.numcodex.sq2cql.model.common.TermCode;
@@ -12,6 +13,7 @@ import de.numcodex.sq2cql.model.cql.CodeSystemDefinition;
 import de.numcodex.sq2cql.model.cql.Container;
 import de.numcodex.sq2cql.model.cql.DefaultExpression;
 import de.numcodex.sq2cql.model.cql.Expression;
+import de.numcodex.sq2cql.model.cql.LibraryBuilder;
 
 import java.util.List;
 import java.util.Optional;
@@ -40,7 +42,15 @@ public interface Criterion {
 
         @Override
         public Container<DefaultExpression> toCql(MappingContext mappingContext) {
-            return Container.of(Expression.TRUE).moveToPatientContext("Criterion");
+            var container = Container.of(Expression.TRUE);
+            return mappingContext.isEnabled(TranslationOption.DEFERRED_NAMING)
+                    ? container.moveToPatientContextWithSymbolicName("Criterion")
+                    : container.moveToPatientContext("Criterion");
+        }
+
+        @Override
+        public Optional<DefaultExpression> toCql(MappingContext mappingContext, LibraryBuilder builder) {
+            return Optional.of(builder.moveToPatientContext("Criterion", Expression.TRUE));
         }
 
         @Override
@@ -71,7 +81,15 @@ public interface Criterion {
 
         @Override
         public Container<DefaultExpression> toCql(MappingContext mappingContext) {
-            return Container.of(Expression.FALSE).moveToPatientContext("Criterion");
+            var container = Container.of(Expression.FALSE);
+            return mappingContext.isEnabled(TranslationOption.DEFERRED_NAMING)
+                    ? container.moveToPatientContextWithSymbolicName("Criterion")
+                    : container.moveToPatientContext("Criterion");
+        }
+
+        @Override
+        public Optional<DefaultExpression> toCql(MappingContext mappingContext, LibraryBuilder builder) {
+            return Optional.of(builder.moveToPatientContext("Criterion", Expression.FALSE));
         }
 
         @Override
@@ -180,6 +198,22 @@ public interface Criterion {
      */
     Container<DefaultExpression> toCql(MappingContext mappingContext);
 
+    /**
+     * Translates this criterion into a CQL expression, appending its definitions to {@code builder}.
+     * <p>
+     * The definition of the criterion itself has to get a {@link LibraryBuilder#moveToPatientContext(String,
+     * DefaultExpression) symbolic name}. The default implementation {@link LibraryBuilder#add(Container) appends} the
+     * container returned by {@link #toCql(MappingContext)}, renaming its suffixed definitions if their prefixes are
+     * already used in {@code builder}.
+     *
+     * @param mappingContext contains the mappings needed to create the CQL expression
+     * @param builder        the builder to append the definitions to
+     * @return the CQL expression referring to the definition of this criterion
+     */
+    default Optional<DefaultExpression> toCql(MappingContext mappingContext, LibraryBuilder builder) {
+        return builder.add(toCql(mappingContext));
+    }
+
     Container<DefaultExpression> toReferencesCql(MappingContext mappingContext);
 
     List<AttributeFilter> attributeFilters();
@@ -8,6 +8,7 @@ import de.numcodex.sq2cql.model.cql.*;
 import java.math.BigDecimal;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
@@ -117,10 +118,10 @@ public final class NumericCriterion extends AbstractCriterion<NumericCriterion>
         if (mapping.key().termCode().equals(AgeFunctionMapping.AGE)) {
             return ageExpr();
         }
-        var castExpr = TypeExpression.of(InvocationExpression.of(sourceAlias, mapping.valueFhirPath()),
-                "Quantity");
+        var castExpr = mappingContext.intern(TypeExpression.of(InvocationExpression.of(sourceAlias,
+                mapping.valueFhirPath()), "Quantity"));
         return Container.of(
-                ComparatorExpression.of(castExpr, comparator, quantityExpression(value, unit)));
+                ComparatorExpression.of(castExpr, comparator, mappingContext.intern(quantityExpression(value, unit))));
     }
 
     private Container<DefaultExpression> ageExpr() {
@@ -133,4 +134,18 @@ public final class NumericCriterion extends AbstractCriterion<NumericCriterion>
     private DefaultExpression quantityExpression(BigDecimal value, String unit) {
         return unit == null ? QuantityExpression.of(value) : QuantityExpression.of(value, unit);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+        NumericCriterion that = (NumericCriterion) o;
+        return comparator == that.comparator &&
+                value.equals(that.value) &&
+                Objects.equals(unit, that.unit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), comparator, value, unit);
+    }
 }
@@ -24,8 +24,10 @@ public record NumericModifier(String path, Comparator comparator, BigDecimal val
 
     @Override
     public Container<DefaultExpression> expression(MappingContext mappingContext, IdentifierExpression sourceAlias) {
-        var castExpr = TypeExpression.of(InvocationExpression.of(sourceAlias, path), "Quantity");
-        return Container.of(ComparatorExpression.of(castExpr, comparator, quantityExpression(value, unit)));
+        var castExpr = mappingContext.intern(TypeExpression.of(InvocationExpression.of(sourceAlias, path),
+                "Quantity"));
+        return Container.of(ComparatorExpression.of(castExpr, comparator,
+                mappingContext.intern(quantityExpression(value, unit))));
     }
 
     private DefaultExpression quantityExpression(BigDecimal value, String unit) {
@@ -7,6 +7,7 @@ import de.numcodex.sq2cql.model.cql.*;
 import java.math.BigDecimal;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
@@ -80,10 +81,10 @@ public final class RangeCriterion extends AbstractCriterion<RangeCriterion> {
         if (mapping.key().termCode().equals(AgeFunctionMapping.AGE)) {
             return ageExpr();
         }
-        var castExpr = TypeExpression.of(InvocationExpression.of(sourceAlias, mapping.valueFhirPath()),
-                "Quantity");
-        return Container.of(BetweenExpression.of(castExpr, quantityExpression(lowerBound, unit),
-                quantityExpression(upperBound, unit)));
+        var castExpr = mappingContext.intern(TypeExpression.of(InvocationExpression.of(sourceAlias,
+                mapping.valueFhirPath()), "Quantity"));
+        return Container.of(BetweenExpression.of(castExpr, mappingContext.intern(quantityExpression(lowerBound, unit)),
+                mappingContext.intern(quantityExpression(upperBound, unit))));
     }
 
     private Container<DefaultExpression> ageExpr() {
@@ -98,4 +99,18 @@ public final class RangeCriterion extends AbstractCriterion<RangeCriterion> {
     private DefaultExpression quantityExpression(BigDecimal value, String unit) {
         return unit == null ? QuantityExpression.of(value) : QuantityExpression.of(value, unit);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+        RangeCriterion that = (RangeCriterion) o;
+        return lowerBound.equals(that.lowerBound) &&
+                upperBound.equals(that.upperBound) &&
+                Objects.equals(unit, that.unit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), lowerBound, upperBound, unit);
+    }
 }
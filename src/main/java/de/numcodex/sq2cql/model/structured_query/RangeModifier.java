@@ -23,9 +23,10 @@ public record RangeModifier(String path, BigDecimal lowerBound, BigDecimal upper
 
     @Override
     public Container<DefaultExpression> expression(MappingContext mappingContext, IdentifierExpression sourceAlias) {
-        var castExpr = TypeExpression.of(InvocationExpression.of(sourceAlias, path), "Quantity");
-        return Container.of(BetweenExpression.of(castExpr, quantityExpression(lowerBound, unit),
-                quantityExpression(upperBound, unit)));
+        var castExpr = mappingContext.intern(TypeExpression.of(InvocationExpression.of(sourceAlias, path),
+                "Quantity"));
+        return Container.of(BetweenExpression.of(castExpr, mappingContext.intern(quantityExpression(lowerBound, unit)),
+                mappingContext.intern(quantityExpression(upperBound, unit))));
     }
 
     private DefaultExpression quantityExpression(BigDecimal value, String unit) {
@@ -26,9 +26,11 @@ public record ReferenceModifier(String path, String targetType, List<Criterion>
         return queryContainer.flatMap(query -> getReferenceExpr(mappingContext)
                 .moveToPatientContextWithUniqueName(referenceExprName())
                 .map(referencesExprName -> {
-                    var referenceExpr = InvocationExpression.of(query.sourceAlias(), path);
+                    var referenceExpr = mappingContext.intern(InvocationExpression.of(query.sourceAlias(), path));
                     var alias = StandardIdentifierExpression.of(targetType.substring(0, 1));
-                    var ref = AdditionExpressionTerm.of(StringLiteralExpression.of(targetType + "/"), InvocationExpression.of(alias, "id"));
+                    var ref = AdditionExpressionTerm.of(
+                            mappingContext.intern(StringLiteralExpression.of(targetType + "/")),
+                            mappingContext.intern(InvocationExpression.of(alias, "id")));
                     var comparatorExpr = MembershipExpression.contains(referenceExpr, ref);
                     return query.appendQueryInclusionClause(WithClause.of(AliasedQuerySource.of(referencesExprName, alias), comparatorExpr));
                 }));
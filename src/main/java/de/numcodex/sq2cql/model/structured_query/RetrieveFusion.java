@@ -0,0 +1,125 @@
+package de.numcodex.sq2cql.model.structured_query;
+
+import de.numcodex.sq2cql.model.cql.AliasedQuerySource;
+import de.numcodex.sq2cql.model.cql.CodeSelector;
+import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.DefaultExpression;
+import de.numcodex.sq2cql.model.cql.ExistsExpression;
+import de.numcodex.sq2cql.model.cql.Expression;
+import de.numcodex.sq2cql.model.cql.ListSelector;
+import de.numcodex.sq2cql.model.cql.QueryExpression;
+import de.numcodex.sq2cql.model.cql.RetrieveExpression;
+import de.numcodex.sq2cql.model.cql.SourceClause;
+import de.numcodex.sq2cql.model.cql.WrapperExpression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Fusion of the expressions of the term codes of a concept expansion that only differ in the code of their retrieve.
+ * <p>
+ * Term codes with the same mapping shape, like the same resource type, value path, fixed criteria, attribute filters
+ * and time restriction, are translated into {@code exists} expressions of queries that are equal apart from the code
+ * selector of the retrieve. Such expressions are fused into one {@code exists} expression of a query over a retrieve
+ * with the {@link ListSelector list} of all codes, so that the where clause is held and evaluated only once and the
+ * resources are fetched by a single retrieve. Only containers without definitions of their own are fused.
+ */
+final class RetrieveFusion {
+
+    private RetrieveFusion() {
+    }
+
+    /**
+     * Fuses the fusible {@code containers}, placing every fused container at the position of its first operand.
+     *
+     * @param containers the containers of the term codes, which are combined with {@code or}
+     * @return the list of fused containers, or {@code containers} itself if nothing is fused
+     */
+    static List<Container<DefaultExpression>> fuse(List<Container<DefaultExpression>> containers) {
+        if (containers.size() < 2) {
+            return containers;
+        }
+        var groups = new LinkedHashMap<Object, List<Container<DefaultExpression>>>();
+        for (var container : containers) {
+            var key = key(container);
+            groups.computeIfAbsent(key == null ? new Object() : key, k -> new ArrayList<>(1)).add(container);
+        }
+        if (groups.size() == containers.size()) {
+            return containers;
+        }
+        return groups.values().stream().map(RetrieveFusion::fuseGroup).toList();
+    }
+
+    /**
+     * Returns the expression of {@code container} without the code of its retrieve, or {@code null} if the container
+     * can't be fused.
+     */
+    private static DefaultExpression key(Container<DefaultExpression> container) {
+        if (!container.getPatientDefinitions().isEmpty() || !container.getUnfilteredDefinitions().isEmpty()) {
+            return null;
+        }
+        return container.getExpression()
+                .map(expression -> replaceCodes(expression, null))
+                .orElse(null);
+    }
+
+    private static Container<DefaultExpression> fuseGroup(List<Container<DefaultExpression>> group) {
+        if (group.size() == 1) {
+            return group.get(0);
+        }
+        var codes = new ArrayList<CodeSelector>(group.size());
+        for (var container : group) {
+            container.getExpression().map(RetrieveFusion::retrieve).map(RetrieveExpression::terminology)
+                    .ifPresent(terminology -> addCodes(terminology, codes));
+        }
+        var fused = replaceCodes(group.get(0).getExpression().orElseThrow(),
+                ListSelector.of(codes.stream().map(WrapperExpression::new).toList()));
+        return group.stream().reduce(Container.empty(), Container.OR).map(expression -> fused);
+    }
+
+    private static void addCodes(Expression<?> terminology, List<CodeSelector> codes) {
+        if (terminology instanceof CodeSelector code) {
+            codes.add(code);
+        } else {
+            for (var item : ((ListSelector) terminology).items()) {
+                codes.add((CodeSelector) ((WrapperExpression) item).expression());
+            }
+        }
+    }
+
+    /**
+     * Returns {@code expression} with the terminology of its retrieve replaced by {@code terminology}, or {@code null}
+     * if {@code expression} isn't the {@code exists} of a query over a retrieve of codes.
+     */
+    private static DefaultExpression replaceCodes(DefaultExpression expression, ListSelector terminology) {
+        var retrieve = retrieve(expression);
+        if (retrieve == null) {
+            return null;
+        }
+        var query = (QueryExpression) ((ExistsExpression) expression).expression();
+        var source = query.sourceClause().source();
+        var sourceClause = SourceClause.of(AliasedQuerySource.of(RetrieveExpression.of(retrieve.resourceType(),
+                terminology), source.alias()));
+        return ExistsExpression.of(new QueryExpression(sourceClause, query.queryInclusionClauses(),
+                query.whereClause(), query.returnClause()));
+    }
+
+    /**
+     * Returns the retrieve of codes of the query {@code expression} checks for existence, or {@code null} if there is
+     * none.
+     */
+    private static RetrieveExpression retrieve(DefaultExpression expression) {
+        if (expression instanceof ExistsExpression exists && exists.expression() instanceof QueryExpression query
+                && query.sourceClause().source().querySource() instanceof RetrieveExpression retrieve
+                && (retrieve.terminology() instanceof CodeSelector || isCodeList(retrieve.terminology()))) {
+            return retrieve;
+        }
+        return null;
+    }
+
+    private static boolean isCodeList(Expression<?> terminology) {
+        return terminology instanceof ListSelector list && list.items().stream()
+                .allMatch(item -> item instanceof WrapperExpression wrapper && wrapper.expression() instanceof CodeSelector);
+    }
+}
@@ -3,8 +3,18 @@ package de.numcodex.sq2cql.model.structured_query;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import de.numcodex.sq2cql.model.common.TermCode;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * @author Alexander Kiel
@@ -30,4 +40,129 @@ public record StructuredQuery(List<List<Criterion>> inclusionCriteria, List<List
         return new StructuredQuery(inclusionCriteria,
                 exclusionCriteria == null ? List.of(List.of()) : exclusionCriteria);
     }
+
+    /**
+     * Returns a Structured Query with the same meaning as this one but without redundant criteria and groups.
+     * <p>
+     * The inclusion criteria are a conjunction of disjunctions (CNF) and the exclusion criteria a disjunction of
+     * conjunctions (DNF). In both, duplicate criteria of a group and duplicate groups are removed, a group is removed
+     * if another group is a proper subset of it (absorption) and {@link Criterion#TRUE} and {@link Criterion#FALSE}
+     * are folded. Criteria are compared by value. The order of the remaining criteria and groups is kept.
+     *
+     * @return the simplified Structured Query
+     */
+    public StructuredQuery simplify() {
+        var inclusion = simplify(inclusionCriteria, Criterion.FALSE, Criterion.TRUE);
+        var exclusion = simplify(exclusionCriteria, Criterion.TRUE, Criterion.FALSE);
+        if (inclusion.equals(List.of(List.of(Criterion.FALSE))) || exclusion.equals(List.of(List.of(Criterion.TRUE)))) {
+            return StructuredQuery.of(List.of(List.of(Criterion.FALSE)));
+        }
+        return new StructuredQuery(inclusion.isEmpty() ? List.of(List.of(Criterion.TRUE)) : inclusion,
+                exclusion.isEmpty() ? List.of(List.of()) : exclusion);
+    }
+
+    /**
+     * Simplifies the normal form {@code groups}.
+     * <p>
+     * {@code identity} is the identity element of the operator inside the groups and {@code absorbing} its absorbing
+     * element. A group containing {@code absorbing} is the identity of the operator between the groups and is
+     * removed. A group only consisting of {@code identity} is the absorbing element of the operator between the groups,
+     * so that the result is the single group of {@code identity}. Empty groups are ignored like in the translation.
+     */
+    private static List<List<Criterion>> simplify(List<List<Criterion>> groups, Criterion identity,
+                                                  Criterion absorbing) {
+        var sets = new ArrayList<Set<Criterion>>(groups.size());
+        for (var group : groups) {
+            if (group.isEmpty()) {
+                continue;
+            }
+            var set = new LinkedHashSet<>(group);
+            if (set.contains(absorbing)) {
+                continue;
+            }
+            set.remove(identity);
+            if (set.isEmpty()) {
+                return List.of(List.of(identity));
+            }
+            if (!sets.contains(set)) {
+                sets.add(set);
+            }
+        }
+        return sets.stream()
+                .filter(set -> sets.stream().noneMatch(other -> other.size() < set.size() && set.containsAll(other)))
+                .map(List::copyOf)
+                .toList();
+    }
+
+    /**
+     * Returns a stable fingerprint of the shape of this Structured Query.
+     * <p>
+     * The fingerprint is the start of a SHA-256 hash over the canonical form of all criteria. The canonical form of a
+     * criterion consists of its type, its concept, the types and codes of its attribute filters including referenced
+     * criteria and whether it has a time restriction. Values like numbers, dates or selected concepts are not part of
+     * it, so that queries only differing in such values share a fingerprint. The order of criteria inside a group and
+     * of the groups themselves doesn't matter.
+     * <p>
+     * The fingerprint can be logged instead of the query itself, because the query can't be reconstructed from it.
+     *
+     * @return a fingerprint of 16 hex digits
+     */
+    public String fingerprint() {
+        return hash("I" + canonicalGroups(inclusionCriteria) + "E" + canonicalGroups(exclusionCriteria));
+    }
+
+    /**
+     * Returns the first 16 hex digits of the SHA-256 hash of {@code s}.
+     */
+    static String hash(String s) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(s.getBytes(UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String canonicalGroups(List<List<Criterion>> groups) {
+        return groups.stream()
+                .filter(group -> !group.isEmpty())
+                .map(StructuredQuery::canonicalCriteria)
+                .sorted()
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String canonicalCriteria(List<Criterion> criteria) {
+        return criteria.stream()
+                .map(StructuredQuery::canonicalCriterion)
+                .sorted()
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String canonicalCriterion(Criterion criterion) {
+        var concept = criterion.getConcept();
+        if (concept == null) {
+            return criterion == Criterion.TRUE ? "true" : "false";
+        }
+        return criterion.getClass().getSimpleName() + "(" + canonicalTermCode(concept.context()) + ";" +
+                concept.concept().termCodes().stream()
+                        .map(StructuredQuery::canonicalTermCode)
+                        .sorted()
+                        .collect(Collectors.joining(",")) + ";" +
+                criterion.attributeFilters().stream()
+                        .map(StructuredQuery::canonicalAttributeFilter)
+                        .sorted()
+                        .collect(Collectors.joining(",")) + ";" +
+                (criterion.timeRestriction() == null ? "" : "t") + ")";
+    }
+
+    private static String canonicalAttributeFilter(AttributeFilter filter) {
+        var canonicalForm = filter.getClass().getSimpleName() + ":" + canonicalTermCode(filter.attributeCode());
+        return filter instanceof ReferenceAttributeFilter referenceFilter
+                ? canonicalForm + canonicalCriteria(referenceFilter.criteria())
+                : canonicalForm;
+    }
+
+    private static String canonicalTermCode(TermCode termCode) {
+        return termCode.system() + "|" + termCode.code();
+    }
 }
@@ -22,10 +22,11 @@ public record TimeRestrictionModifier(String path, LocalDate afterDate, LocalDat
 
     @Override
     public Container<DefaultExpression> expression(MappingContext mappingContext, IdentifierExpression sourceAlias) {
-        var invocationExpr = InvocationExpression.of(sourceAlias, path);
-        var castExp = TypeExpression.of(invocationExpr, "dateTime");
+        var invocationExpr = mappingContext.intern(InvocationExpression.of(sourceAlias, path));
+        var castExp = mappingContext.intern(TypeExpression.of(invocationExpr, "dateTime"));
         var toDateFunction = FunctionInvocation.of("ToDate", List.of(castExp));
-        var intervalSelector = IntervalSelector.of(DateTimeExpression.of(afterDate.toString()), DateTimeExpression.of(beforeDate.toString()));
+        var intervalSelector = mappingContext.intern(IntervalSelector.of(DateTimeExpression.of(afterDate.toString()),
+                DateTimeExpression.of(beforeDate.toString())));
         var dateTimeInExpr = MembershipExpression.in(toDateFunction, intervalSelector);
 
         if ("recordedDate".equals(path)) {
@@ -7,6 +7,7 @@ import de.numcodex.sq2cql.model.cql.*;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A {@code ValueSetCriterion} will select all patients that have at least one resource represented
@@ -67,17 +68,11 @@ public final class ValueSetCriterion extends AbstractCriterion<ValueSetCriterion
     @Override
     Container<DefaultExpression> valueExpr(MappingContext mappingContext, Mapping mapping, IdentifierExpression sourceAlias) {
         if ("code".equals(mapping.valueType())) {
-            return selectedConcepts.stream()
-                    .map(concept -> Container.of(ComparatorExpression.equal(
-                            InvocationExpression.of(sourceAlias, mapping.valueFhirPath()),
-                            StringLiteralExpression.of(concept.code()))))
-                    .reduce(Container.empty(), Container.OR);
+            var valueExpr = mappingContext.intern(InvocationExpression.of(sourceAlias, mapping.valueFhirPath()));
+            return codeMembershipExpr(mappingContext, valueExpr, selectedConcepts);
         } else {
-            var valueExpr = valuePathExpr(sourceAlias, mapping);
-            return selectedConcepts.stream()
-                    .map(concept -> codeSelector(mappingContext, concept).map(terminology ->
-                            MembershipExpression.contains(valueExpr, terminology)))
-                    .reduce(Container.empty(), Container.OR);
+            var valueExpr = mappingContext.intern(valuePathExpr(sourceAlias, mapping));
+            return codingMembershipExpr(mappingContext, valueExpr, selectedConcepts);
         }
     }
 
@@ -89,4 +84,16 @@ public final class ValueSetCriterion extends AbstractCriterion<ValueSetCriterion
                     "coding");
         }
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+        ValueSetCriterion that = (ValueSetCriterion) o;
+        return selectedConcepts.equals(that.selectedConcepts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), selectedConcepts);
+    }
 }
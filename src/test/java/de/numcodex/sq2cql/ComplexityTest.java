@@ -0,0 +1,155 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.QueryGenerator.Parameters;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.IntFunction;
+
+import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Translates generated Structured Queries of the sizes N, 2N, 4N and 8N and asserts that allocated bytes and time grow
+ * at most with the exponents checked in at {@code complexity-budgets.properties}.
+ * <p>
+ * An exponent of 1 is linear and an exponent of 2 quadratic growth. The exponent is the slope of the least squares
+ * line through the points {@code (log2(size), log2(cost))} of all four sizes, so that a single noisy measurement
+ * doesn't decide the result. The cost of each size is the minimum over several runs after a warmup, which is stable
+ * for allocated bytes and good enough for time with some headroom.
+ */
+class ComplexityTest {
+
+    private static final int[] FACTORS = {1, 2, 4, 8};
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Properties budgets;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        budgets = new Properties();
+        try (var in = requireNonNull(ComplexityTest.class.getResourceAsStream("complexity-budgets.properties"))) {
+            budgets.load(in);
+        }
+    }
+
+    /**
+     * Returns the parameters of the scenario {@code name} for the size factor {@code n}.
+     */
+    private static IntFunction<Parameters> scenario(String name) {
+        var base = Parameters.DEFAULT.withTree(0, 0).withAttributeFiltersPerCriterion(1).withRatios(0.1, 0.1);
+        int size = Integer.parseInt(budgets.getProperty(name + ".size"));
+        return switch (name) {
+            // one OR group with many criteria
+            case "criteria" -> n -> base.withGroups(1, 0).withCriteriaPerGroup(size * n).withConceptCount(size * n);
+            // many AND groups with one criterion each
+            case "groups" -> n -> base.withGroups(size * n, 0).withCriteriaPerGroup(1).withConceptCount(size * n);
+            // many exclusion groups with one criterion each
+            case "exclusion" -> n -> base.withGroups(1, size * n).withCriteriaPerGroup(1).withConceptCount(size * n);
+            // one criterion expanding to many codes
+            case "expansion" -> n -> base.withGroups(1, 0).withCriteriaPerGroup(1).withConceptCount(1)
+                    .withTree(1, size * n);
+            default -> throw new IllegalArgumentException("unknown scenario: " + name);
+        };
+    }
+
+    /**
+     * Measures the costs of translating the Structured Queries of {@code parameters}.
+     * <p>
+     * All sizes are warmed up and measured in interleaved rounds, so that JIT compilation during the measurement
+     * doesn't favor the sizes measured last.
+     */
+    private static Cost[] measure(Parameters[] parameters) {
+        var translators = new Translator[parameters.length];
+        var structuredQueries = new StructuredQuery[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            var generator = QueryGenerator.of(parameters[i]);
+            translators[i] = Translator.of(generator.mappingContext());
+            structuredQueries[i] = generator.structuredQuery();
+        }
+
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            for (int i = 0; i < parameters.length; i++) {
+                translators[i].toCql(structuredQueries[i]);
+            }
+        }
+
+        var minBytes = new long[parameters.length];
+        var minNanos = new long[parameters.length];
+        Arrays.fill(minBytes, Long.MAX_VALUE);
+        Arrays.fill(minNanos, Long.MAX_VALUE);
+        var threadId = Thread.currentThread().getId();
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            for (int i = 0; i < parameters.length; i++) {
+                long bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+                long nanos = System.nanoTime();
+                translators[i].toCql(structuredQueries[i]);
+                minNanos[i] = Math.min(minNanos[i], System.nanoTime() - nanos);
+                minBytes[i] = Math.min(minBytes[i], THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - bytes);
+            }
+        }
+        var costs = new Cost[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            costs[i] = new Cost(minBytes[i], minNanos[i]);
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the slope of the least squares line through the points {@code (log2(FACTORS[i]), log2(costs[i]))}.
+     */
+    private static double exponent(double[] costs) {
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < FACTORS.length; i++) {
+            meanX += log2(FACTORS[i]) / FACTORS.length;
+            meanY += log2(Math.max(costs[i], 1)) / FACTORS.length;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < FACTORS.length; i++) {
+            var dx = log2(FACTORS[i]) - meanX;
+            covariance += dx * (log2(Math.max(costs[i], 1)) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    private double budget(String scenario, String metric) {
+        return Double.parseDouble(requireNonNull(budgets.getProperty(scenario + "." + metric),
+                "missing budget for `%s.%s`".formatted(scenario, metric)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"criteria", "groups", "exclusion", "expansion"})
+    void translationGrowsWithinBudget(String name) {
+        var scenario = scenario(name);
+        var costs = measure(Arrays.stream(FACTORS).mapToObj(scenario).toArray(Parameters[]::new));
+        var bytes = Arrays.stream(costs).mapToDouble(Cost::bytes).toArray();
+        var nanos = Arrays.stream(costs).mapToDouble(Cost::nanos).toArray();
+
+        assertThat(exponent(bytes))
+                .as("allocation growth exponent of scenario `%s`", name)
+                .isLessThanOrEqualTo(budget(name, "allocation"));
+        assertThat(exponent(nanos))
+                .as("time growth exponent of scenario `%s`", name)
+                .isLessThanOrEqualTo(budget(name, "time"));
+    }
+
+    private record Cost(long bytes, long nanos) {
+    }
+}
@@ -1,6 +1,7 @@
 package de.numcodex.sq2cql;
 
 import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.ElmReader;
 import org.assertj.core.api.AbstractObjectAssert;
 
 public class ContainerAssert extends AbstractObjectAssert<ContainerAssert, Container<?>> {
@@ -11,9 +12,11 @@ public class ContainerAssert extends AbstractObjectAssert<ContainerAssert, Conta
 
     public void printsTo(String expected) {
         returns(expected, Container::print);
+        returns(expected, library -> ElmReader.print(library));
     }
 
     public void patientContextPrintsTo(String expected) {
         returns(expected, Container::printPatientContext);
+        returns(expected, library -> ElmReader.printPatientContext(library));
     }
 }
@@ -2,8 +2,17 @@ package de.numcodex.sq2cql;
 
 import de.numcodex.sq2cql.model.cql.Container;
 import de.numcodex.sq2cql.model.cql.DefaultExpression;
+import de.numcodex.sq2cql.model.cql.NotExpression;
+import de.numcodex.sq2cql.model.cql.SymbolicIdentifierExpression;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+import static de.numcodex.sq2cql.model.cql.Expression.FALSE;
 import static de.numcodex.sq2cql.model.cql.Expression.TRUE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -12,6 +21,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  */
 class ContainerTest {
 
+    /**
+     * Generates a query with a shared Medication reference definition and a reference criterion.
+     */
+    static final QueryGenerator GENERATOR = QueryGenerator.of(QueryGenerator.Parameters.DEFAULT.withSeed(2)
+            .withGroups(1, 1).withCriteriaPerGroup(2).withConceptCount(2).withTree(1, 1).withRatios(0.4, 0.4));
+
+    private static String slurp(String name) throws Exception {
+        return Files.readString(Paths.get(Objects.requireNonNull(ContainerTest.class.getResource(name)).toURI()));
+    }
+
     @Test
     void flatMap_EmptyContainer() {
         var container = Container.empty().flatMap(Container::of);
@@ -25,4 +44,95 @@ class ContainerTest {
 
         assertEquals(Container.empty(), container);
     }
+
+    @Test
+    void symbolicNames() {
+        var a = Container.of(TRUE).moveToPatientContextWithSymbolicName("Criterion");
+        var b = Container.of(FALSE).moveToPatientContextWithSymbolicName("Criterion");
+        var c = Container.of(TRUE).moveToPatientContextWithSymbolicName("Other");
+
+        var container = Container.OR.apply(Container.OR.apply(a, b), c);
+
+        assertEquals(List.of("Criterion 1", "Criterion 2", "Other"), container.getPatientDefinitions().stream()
+                .map(definition -> container.symbolicNames().get((SymbolicIdentifierExpression) definition.name()))
+                .toList());
+        assertEquals("""
+                context Patient
+
+                define "Criterion 1":
+                  true
+
+                define "Criterion 2":
+                  false
+
+                define Other:
+                  true
+                """, container.printPatientContext());
+    }
+
+    @Test
+    void symbolicNames_singleDefinitionHasNoNumber() {
+        var container = Container.of(TRUE).moveToPatientContextWithSymbolicName("Criterion");
+
+        assertEquals("""
+                context Patient
+
+                define Criterion:
+                  true
+                """, container.printPatientContext());
+    }
+
+    @Test
+    void print_Appendable() throws Exception {
+        var container = Translator.of(GENERATOR.mappingContext()).toCql(GENERATOR.structuredQuery());
+        var out = new StringWriter();
+
+        container.print(out);
+
+        assertEquals(slurp("generated-library.cql"), out.toString());
+    }
+
+    @Test
+    void print_Compact() {
+        var container = Container.OR.apply(Container.of(TRUE).moveToPatientContext("Criterion"),
+                        Container.of(FALSE).moveToPatientContext("Criterion"))
+                .map(expression -> expression.and(NotExpression.of(expression)))
+                .moveToPatientContext("InInitialPopulation");
+
+        assertEquals("""
+                library Retrieve version '1.0.0'
+                using FHIR version '4.0.0'
+                include FHIRHelpers version '4.0.0'
+                context Patient
+                define D1: true
+                define D2: false
+                define InInitialPopulation: (D1 or D2) and not (D1 or D2)
+                """, container.print(PrintContext.COMPACT));
+    }
+
+    @Test
+    void print_Compact_TranslatedQuery() {
+        var container = Translator.of(GENERATOR.mappingContext()).toCql(GENERATOR.structuredQuery());
+
+        assertEquals("""
+                library Retrieve version '1.0.0'
+                using FHIR version '4.0.0'
+                include FHIRHelpers version '4.0.0'
+                codesystem condition: 'http://example.com/CodeSystem/condition'
+                codesystem medication: 'http://example.com/CodeSystem/medication'
+                codesystem specimen: 'http://example.com/CodeSystem/specimen'
+                codesystem value: 'http://example.com/CodeSystem/attribute-value'
+                context Unfiltered
+                define D1: from [Medication: { Code 'C1' from medication, Code 'C1.0' from medication }] M return 'Medication/' + M.id
+                context Patient
+                define D2: exists (from [MedicationAdministration] M where M.medication.reference in D1 and M.attribute0.coding contains Code 'v7' from value)
+                define D3: exists (from [MedicationAdministration] M where M.medication.reference in D1 and M.attribute0.coding contains Code 'v9' from value)
+                define D4: D2 or D3
+                define D5: exists (from [Condition: Code 'C1' from condition] C where C.attribute0.coding contains Code 'v6' from value) or exists (from [Condition: Code 'C1.0' from condition] C where C.attribute0.coding contains Code 'v6' from value)
+                define D6: (from [Condition: Code 'C1' from condition] C where C.attribute0.coding contains Code 'v9' from value) union (from [Condition: Code 'C1.0' from condition] C where C.attribute0.coding contains Code 'v9' from value)
+                define D7: exists (from [Specimen: Code 'C0' from specimen] S with D6 C such that S.diagnosis contains 'Condition/' + C.id where S.attribute0.coding contains Code 'v6' from value) or exists (from [Specimen: Code 'C0.0' from specimen] S with D6 C such that S.diagnosis contains 'Condition/' + C.id where S.attribute0.coding contains Code 'v6' from value)
+                define D8: D5 and D7
+                define InInitialPopulation: D4 and not D8
+                """, container.print(PrintContext.COMPACT));
+    }
 }
@@ -0,0 +1,89 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.common.TermCode;
+import de.numcodex.sq2cql.model.cql.ElmCompiler;
+import de.numcodex.sq2cql.model.structured_query.ConceptCriterion;
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+import de.numcodex.sq2cql.model.structured_query.NumericCriterion;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import de.numcodex.sq2cql.model.structured_query.TimeRestriction;
+import de.numcodex.sq2cql.model.structured_query.ValueSetAttributeFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static de.numcodex.sq2cql.TranslatorTest.*;
+import static de.numcodex.sq2cql.Util.createTreeRootWithChildren;
+import static de.numcodex.sq2cql.Util.createTreeRootWithoutChildren;
+import static de.numcodex.sq2cql.Util.createTreeWithChildren;
+import static de.numcodex.sq2cql.Util.createTreeWithoutChildren;
+import static de.numcodex.sq2cql.model.common.Comparator.LESS_THAN;
+
+/**
+ * Compares the ELM of the libraries of {@link TranslatorTest} with the output of the CQL-to-ELM compiler.
+ */
+class ElmCompilerTest {
+
+    @Test
+    void timeRestriction() {
+        var mappings = Map.of(C71_1, Mapping.of(C71_1, "Condition", null, null, List.of(), List.of(), "onset"));
+        var mappingContext = MappingContext.of(mappings, createTreeWithoutChildren(C71_1), CODE_SYSTEM_ALIASES);
+
+        var library = Translator.of(mappingContext).toCql(StructuredQuery.of(List.of(List.of(
+                ConceptCriterion.of(ContextualConcept.of(C71_1),
+                        TimeRestriction.of(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2)))))));
+
+        ElmCompiler.assertEmitsCompiledElm(library);
+    }
+
+    @Test
+    void test_Task1() {
+        var mappings = Map.of(PLATELETS, Mapping.of(PLATELETS, "Observation", "value"), C71_0,
+                Mapping.of(C71_0, "Condition", null, null, List.of(), List.of(VERIFICATION_STATUS_ATTR_MAPPING)),
+                C71_1,
+                Mapping.of(C71_1, "Condition", null, null, List.of(), List.of(VERIFICATION_STATUS_ATTR_MAPPING)),
+                TMZ, Mapping.of(TMZ, "MedicationStatement"));
+        var conceptTree = new MappingTreeBase(List.of(createTreeRootWithoutChildren(TMZ),
+                createTreeRootWithChildren(C71, C71_0, C71_1)));
+        var mappingContext = MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES);
+        var structuredQuery = StructuredQuery.of(List.of(List.of(ConceptCriterion.of(ContextualConcept.of(C71))
+                        .appendAttributeFilter(ValueSetAttributeFilter.of(VERIFICATION_STATUS, CONFIRMED))),
+                List.of(NumericCriterion.of(ContextualConcept.of(PLATELETS), LESS_THAN, BigDecimal.valueOf(50),
+                        "g/dl")), List.of(ConceptCriterion.of(ContextualConcept.of(TMZ)))));
+
+        ElmCompiler.assertEmitsCompiledElm(Translator.of(mappingContext).toCql(structuredQuery));
+    }
+
+    @Test
+    void medicationGroup() {
+        var simvastatin = ContextualTermCode.of(CONTEXT,
+                TermCode.of("http://fhir.de/CodeSystem/dimdi/atc", "C10AA01", "simvastatin"));
+        var lovastatin = ContextualTermCode.of(CONTEXT,
+                TermCode.of("http://fhir.de/CodeSystem/dimdi/atc", "C10AA02", "lovastatin"));
+        var mappings = Map.of(LIPID, Mapping.of(LIPID, "MedicationStatement"),
+                simvastatin, Mapping.of(simvastatin, "MedicationStatement"),
+                lovastatin, Mapping.of(lovastatin, "MedicationAdministration"));
+        var mappingContext = MappingContext.of(mappings, createTreeWithChildren(LIPID, simvastatin, lovastatin),
+                CODE_SYSTEM_ALIASES);
+
+        ElmCompiler.assertEmitsCompiledElm(Translator.of(mappingContext).toCql(StructuredQuery.of(List.of(List.of(
+                ConceptCriterion.of(ContextualConcept.of(LIPID)))))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+    void generated(QueryGenerator generator) {
+        var translator = Translator.of(generator.mappingContext()).withOptions(TranslationOption.DEFERRED_NAMING);
+
+        ElmCompiler.assertEmitsCompiledElm(translator.toCql(generator.structuredQuery()));
+    }
+}
@@ -0,0 +1,39 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.cql.ExpressionInterner;
+import de.numcodex.sq2cql.model.cql.IdentifierExpression;
+import de.numcodex.sq2cql.model.cql.InvocationExpression;
+import de.numcodex.sq2cql.model.cql.StandardIdentifierExpression;
+import de.numcodex.sq2cql.model.cql.TypeExpression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExpressionInternerTest {
+
+    static final IdentifierExpression O = StandardIdentifierExpression.of("O");
+
+    @Test
+    void intern_EqualExpressionsAreShared() {
+        var interner = ExpressionInterner.create();
+
+        var a = interner.intern(TypeExpression.of(InvocationExpression.of(O, "value"), "Quantity"));
+        var b = interner.intern(TypeExpression.of(InvocationExpression.of(O, "value"), "Quantity"));
+        var c = interner.intern(TypeExpression.of(InvocationExpression.of(O, "effective"), "dateTime"));
+
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    void intern_None() {
+        var a = InvocationExpression.of(O, "value");
+
+        assertSame(a, ExpressionInterner.NONE.intern(a));
+        assertNotSame(a, ExpressionInterner.NONE.intern(InvocationExpression.of(O, "value")));
+        assertEquals(0, ExpressionInterner.NONE.size());
+    }
+}
@@ -0,0 +1,83 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.cql.CodeSystemDefinition;
+import de.numcodex.sq2cql.model.cql.Container;
+import de.numcodex.sq2cql.model.cql.LibraryBuilder;
+import de.numcodex.sq2cql.model.cql.OrExpression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static de.numcodex.sq2cql.model.cql.Expression.FALSE;
+import static de.numcodex.sq2cql.model.cql.Expression.TRUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LibraryBuilderTest {
+
+    static final CodeSystemDefinition LOINC = CodeSystemDefinition.of("loinc", "http://loinc.org");
+    static final String RENAMED = """
+            library Retrieve version '1.0.0'
+            using FHIR version '4.0.0'
+            include FHIRHelpers version '4.0.0'
+
+            context Patient
+
+            define Criterion:
+              true
+
+            define "Criterion 1":
+              false
+
+            define InInitialPopulation:
+              Criterion or
+              "Criterion 1"
+            """;
+
+    @Test
+    void build_Empty() {
+        assertEquals(Container.empty(), LibraryBuilder.of().build(null));
+    }
+
+    @Test
+    void build_SameAsCombining() {
+        var builder = LibraryBuilder.of();
+        var reference = Container.of(TRUE, LOINC).moveToPatientContextWithUniqueName("Reference");
+
+        var a = builder.moveToPatientContext("Criterion", builder.add(reference).orElseThrow());
+        var b = builder.moveToPatientContext("Criterion", builder.add(reference).orElseThrow());
+        var c = builder.moveToPatientContext("Criterion", FALSE);
+        var container = builder.build(OrExpression.of(OrExpression.of(a, b), c));
+
+        var expected = Container.OR.apply(Container.OR.apply(
+                        reference.moveToPatientContextWithSymbolicName("Criterion"),
+                        reference.moveToPatientContextWithSymbolicName("Criterion")),
+                Container.of(FALSE).moveToPatientContextWithSymbolicName("Criterion"));
+        assertEquals(Set.of(LOINC), container.getCodeSystemDefinitions());
+        assertEquals(4, container.getPatientDefinitions().size());
+        assertEquals(expected.print(), container.print());
+    }
+
+    @Test
+    void add_RenamesSuffixedDefinitions() {
+        var builder = LibraryBuilder.of();
+
+        var a = builder.add(Container.of(TRUE).moveToPatientContext("Criterion")).orElseThrow();
+        var b = builder.add(Container.of(FALSE).moveToPatientContext("Criterion")).orElseThrow();
+        var container = builder.build(OrExpression.of(a, b));
+
+        assertEquals(RENAMED, container.moveToPatientContextWithUniqueName("InInitialPopulation").print());
+    }
+
+    @Test
+    void add_Builder_RenamesSuffixedDefinitions() {
+        var builder = LibraryBuilder.of();
+        var other = LibraryBuilder.of();
+
+        var a = builder.add(Container.of(TRUE).moveToPatientContext("Criterion")).orElseThrow();
+        var b = builder.add(other, other.add(Container.of(FALSE).moveToPatientContext("Criterion")).orElseThrow());
+        var container = builder.build(OrExpression.of(a, b));
+
+        assertEquals(2, container.getPatientDefinitions().size());
+        assertEquals(RENAMED, container.moveToPatientContextWithUniqueName("InInitialPopulation").print());
+    }
+}
@@ -0,0 +1,274 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.model.AttributeMapping;
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.MappingTreeModuleEntry;
+import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
+import de.numcodex.sq2cql.model.common.TermCode;
+import de.numcodex.sq2cql.model.structured_query.AttributeFilter;
+import de.numcodex.sq2cql.model.structured_query.Concept;
+import de.numcodex.sq2cql.model.structured_query.ConceptCriterion;
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
+import de.numcodex.sq2cql.model.structured_query.Criterion;
+import de.numcodex.sq2cql.model.structured_query.ReferenceAttributeFilter;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import de.numcodex.sq2cql.model.structured_query.ValueSetAttributeFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static java.util.Map.entry;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates Structured Queries together with a matching {@link MappingContext} of configurable size.
+ * <p>
+ * The ontology consists of three modules, each of them a forest of {@link Parameters#conceptCount() conceptCount}
+ * concept trees with a depth of {@link Parameters#treeDepth() treeDepth} and a fan-out of {@link
+ * Parameters#treeFanOut() treeFanOut}:
+ * <ul>
+ *     <li>conditions which are retrieved directly and have {@link Parameters#attributeFiltersPerCriterion()
+ *     attributeFiltersPerCriterion} coding attributes,</li>
+ *     <li>specimens which additionally have a reference attribute to conditions and</li>
+ *     <li>medication administrations which are retrieved over the references of medications.</li>
+ * </ul>
+ * Criteria always select the root of a concept tree, so that every criterion expands to all codes of its tree, like
+ * the selection of an ICD-10 chapter does.
+ * <p>
+ * The same parameters always generate the same Structured Query and ontology.
+ */
+public final class QueryGenerator {
+
+    public static final TermCode CONDITION_CONTEXT = TermCode.of("gen", "Condition", "Condition");
+    public static final TermCode SPECIMEN_CONTEXT = TermCode.of("gen", "Specimen", "Specimen");
+    public static final TermCode MEDICATION_CONTEXT = TermCode.of("gen", "Medication", "Medication");
+
+    public static final String CONDITION_SYSTEM = "http://example.com/CodeSystem/condition";
+    public static final String SPECIMEN_SYSTEM = "http://example.com/CodeSystem/specimen";
+    public static final String MEDICATION_SYSTEM = "http://example.com/CodeSystem/medication";
+    public static final String ATTRIBUTE_SYSTEM = "http://example.com/CodeSystem/attribute";
+    public static final String ATTRIBUTE_VALUE_SYSTEM = "http://example.com/CodeSystem/attribute-value";
+
+    public static final Map<String, String> CODE_SYSTEM_ALIASES = Map.ofEntries(
+            entry(CONDITION_SYSTEM, "condition"),
+            entry(SPECIMEN_SYSTEM, "specimen"),
+            entry(MEDICATION_SYSTEM, "medication"),
+            entry(ATTRIBUTE_VALUE_SYSTEM, "value"));
+
+    private static final TermCode DIAGNOSIS = TermCode.of(ATTRIBUTE_SYSTEM, "diagnosis", "Diagnosis");
+    private static final int ATTRIBUTE_VALUE_COUNT = 10;
+
+    private final Parameters parameters;
+
+    private QueryGenerator(Parameters parameters) {
+        this.parameters = requireNonNull(parameters);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param parameters the parameters controlling the size of the generated Structured Queries and ontology
+     * @return the generator
+     */
+    public static QueryGenerator of(Parameters parameters) {
+        return new QueryGenerator(parameters);
+    }
+
+    public Parameters parameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the number of codes each criterion expands to.
+     *
+     * @return the number of codes in one concept tree
+     */
+    public int treeSize() {
+        return IntStream.rangeClosed(0, parameters.treeDepth())
+                .map(level -> (int) Math.pow(parameters.treeFanOut(), level))
+                .sum();
+    }
+
+    /**
+     * Generates the mapping context containing a mapping for every code of the ontology.
+     *
+     * @return the mapping context
+     */
+    public MappingContext mappingContext() {
+        var mappings = new HashMap<ContextualTermCode, Mapping>();
+        var moduleRoots = new ArrayList<MappingTreeModuleRoot>();
+
+        var attributeMappings = IntStream.range(0, parameters.attributeFiltersPerCriterion())
+                .mapToObj(i -> AttributeMapping.of("Coding", attributeCode(i), "attribute%d.coding".formatted(i)))
+                .toList();
+        var specimenAttributeMappings = new ArrayList<>(attributeMappings);
+        specimenAttributeMappings.add(new AttributeMapping("Reference", DIAGNOSIS, "diagnosis", "Condition"));
+
+        addModule(mappings, moduleRoots, CONDITION_CONTEXT, CONDITION_SYSTEM, termCode ->
+                Mapping.of(termCode, "Condition", null, null, List.of(), attributeMappings));
+        addModule(mappings, moduleRoots, SPECIMEN_CONTEXT, SPECIMEN_SYSTEM, termCode ->
+                Mapping.of(termCode, "Specimen", null, null, List.of(), specimenAttributeMappings));
+        addModule(mappings, moduleRoots, MEDICATION_CONTEXT, MEDICATION_SYSTEM, termCode ->
+                Mapping.of(termCode, "MedicationAdministration", null, null, List.of(), attributeMappings));
+
+        return MappingContext.of(mappings, new MappingTreeBase(moduleRoots), CODE_SYSTEM_ALIASES);
+    }
+
+    /**
+     * Generates the Structured Query.
+     *
+     * @return the Structured Query
+     */
+    public StructuredQuery structuredQuery() {
+        var random = new Random(parameters.seed());
+        return StructuredQuery.of(groups(random, parameters.inclusionGroups()),
+                groups(random, parameters.exclusionGroups()));
+    }
+
+    private void addModule(Map<ContextualTermCode, Mapping> mappings, List<MappingTreeModuleRoot> moduleRoots,
+                           TermCode context, String system,
+                           Function<ContextualTermCode, Mapping> mapping) {
+        var entries = new LinkedHashMap<String, MappingTreeModuleEntry>();
+        for (int i = 0; i < parameters.conceptCount(); i++) {
+            addEntries(entries, rootCode(i), 0);
+        }
+        entries.keySet().forEach(code -> {
+            var termCode = ContextualTermCode.of(context, TermCode.of(system, code, code));
+            mappings.put(termCode, mapping.apply(termCode));
+        });
+        moduleRoots.add(new MappingTreeModuleRoot(context, system, entries));
+    }
+
+    private void addEntries(Map<String, MappingTreeModuleEntry> entries, String code, int level) {
+        var children = level < parameters.treeDepth()
+                ? IntStream.range(0, parameters.treeFanOut()).mapToObj(i -> code + "." + i).toList()
+                : List.<String>of();
+        entries.put(code, new MappingTreeModuleEntry(code, children));
+        children.forEach(child -> addEntries(entries, child, level + 1));
+    }
+
+    private static String rootCode(int i) {
+        return "C" + i;
+    }
+
+    private static TermCode attributeCode(int i) {
+        return TermCode.of(ATTRIBUTE_SYSTEM, "attribute" + i, "Attribute " + i);
+    }
+
+    private List<List<Criterion>> groups(Random random, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> IntStream.range(0, parameters.criteriaPerGroup())
+                        .mapToObj(j -> criterion(random))
+                        .toList())
+                .toList();
+    }
+
+    private Criterion criterion(Random random) {
+        var kind = random.nextDouble();
+        if (kind < parameters.referenceRatio()) {
+            return withAttributeFilters(random, criterion(random, SPECIMEN_CONTEXT, SPECIMEN_SYSTEM))
+                    .appendAttributeFilter(ReferenceAttributeFilter.of(DIAGNOSIS,
+                            withAttributeFilters(random, criterion(random, CONDITION_CONTEXT, CONDITION_SYSTEM))));
+        } else if (kind < parameters.referenceRatio() + parameters.medicationRatio()) {
+            return withAttributeFilters(random, criterion(random, MEDICATION_CONTEXT, MEDICATION_SYSTEM));
+        } else {
+            return withAttributeFilters(random, criterion(random, CONDITION_CONTEXT, CONDITION_SYSTEM));
+        }
+    }
+
+    private ConceptCriterion criterion(Random random, TermCode context, String system) {
+        var code = rootCode(random.nextInt(parameters.conceptCount()));
+        return ConceptCriterion.of(ContextualConcept.of(context, Concept.of(
+                TermCode.of(system, code, code))));
+    }
+
+    private ConceptCriterion withAttributeFilters(Random random, ConceptCriterion criterion) {
+        for (int i = 0; i < parameters.attributeFiltersPerCriterion(); i++) {
+            var value = "v" + random.nextInt(ATTRIBUTE_VALUE_COUNT);
+            criterion = criterion.appendAttributeFilter(attributeFilter(i, value));
+        }
+        return criterion;
+    }
+
+    private static AttributeFilter attributeFilter(int i, String value) {
+        return ValueSetAttributeFilter.of(attributeCode(i), TermCode.of(ATTRIBUTE_VALUE_SYSTEM, value, value));
+    }
+
+    /**
+     * The parameters of a {@link QueryGenerator}.
+     *
+     * @param seed                         the seed of the random choices
+     * @param inclusionGroups              the number of inclusion CNF groups
+     * @param exclusionGroups              the number of exclusion groups
+     * @param criteriaPerGroup             the number of criteria in each group
+     * @param conceptCount                 the number of concept trees per module
+     * @param treeDepth                    the depth of each concept tree, {@code 0} for single codes
+     * @param treeFanOut                   the number of children of each inner node of a concept tree
+     * @param attributeFiltersPerCriterion the number of coding attribute filters of each criterion
+     * @param referenceRatio               the ratio of specimen criteria referencing a condition criterion
+     * @param medicationRatio              the ratio of medication criteria
+     */
+    public record Parameters(long seed, int inclusionGroups, int exclusionGroups, int criteriaPerGroup,
+                             int conceptCount, int treeDepth, int treeFanOut, int attributeFiltersPerCriterion,
+                             double referenceRatio, double medicationRatio) {
+
+        /**
+         * Parameters resembling the bundled example queries.
+         */
+        public static final Parameters DEFAULT = new Parameters(42, 3, 1, 3, 10, 1, 3, 1, 0.1, 0.1);
+
+        public Parameters {
+            if (inclusionGroups < 0 || exclusionGroups < 0 || criteriaPerGroup < 1 || conceptCount < 1
+                    || treeDepth < 0 || treeFanOut < 0 || attributeFiltersPerCriterion < 0) {
+                throw new IllegalArgumentException("invalid sizes");
+            }
+            if (referenceRatio < 0 || medicationRatio < 0 || referenceRatio + medicationRatio > 1) {
+                throw new IllegalArgumentException("The reference and medication ratios have to sum up to at most 1.");
+            }
+        }
+
+        public Parameters withSeed(long seed) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withGroups(int inclusionGroups, int exclusionGroups) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withCriteriaPerGroup(int criteriaPerGroup) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withConceptCount(int conceptCount) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withTree(int treeDepth, int treeFanOut) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withAttributeFiltersPerCriterion(int attributeFiltersPerCriterion) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+
+        public Parameters withRatios(double referenceRatio, double medicationRatio) {
+            return new Parameters(seed, inclusionGroups, exclusionGroups, criteriaPerGroup, conceptCount, treeDepth,
+                    treeFanOut, attributeFiltersPerCriterion, referenceRatio, medicationRatio);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.QueryGenerator.Parameters;
+import de.numcodex.sq2cql.model.common.TermCode;
+import de.numcodex.sq2cql.model.structured_query.Concept;
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+import static de.numcodex.sq2cql.QueryGenerator.CONDITION_CONTEXT;
+import static de.numcodex.sq2cql.QueryGenerator.CONDITION_SYSTEM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class QueryGeneratorTest {
+
+    @Test
+    void structuredQuery_isDeterministic() {
+        var generator = QueryGenerator.of(Parameters.DEFAULT);
+
+        var query1 = generator.structuredQuery();
+        var query2 = QueryGenerator.of(Parameters.DEFAULT).structuredQuery();
+
+        assertThat(Translator.of(generator.mappingContext()).toCql(query1).print())
+                .isEqualTo(Translator.of(generator.mappingContext()).toCql(query2).print());
+    }
+
+    @Test
+    void structuredQuery_hasRequestedSize() {
+        var parameters = Parameters.DEFAULT.withGroups(4, 2).withCriteriaPerGroup(5);
+
+        var query = QueryGenerator.of(parameters).structuredQuery();
+
+        assertThat(query.inclusionCriteria()).hasSize(4).allSatisfy(group -> assertThat(group).hasSize(5));
+        assertThat(query.exclusionCriteria()).hasSize(2).allSatisfy(group -> assertThat(group).hasSize(5));
+    }
+
+    @Test
+    void structuredQuery_withoutReferencesAndMedications() {
+        var parameters = Parameters.DEFAULT.withRatios(0, 0).withAttributeFiltersPerCriterion(2);
+
+        var query = QueryGenerator.of(parameters).structuredQuery();
+
+        assertThat(query.inclusionCriteria().stream().flatMap(Collection::stream))
+                .allSatisfy(criterion -> {
+                    assertThat(criterion.getConcept().context()).isEqualTo(CONDITION_CONTEXT);
+                    assertThat(criterion.attributeFilters()).hasSize(2);
+                });
+    }
+
+    @Test
+    void mappingContext_expandsToWholeTree() {
+        var generator = QueryGenerator.of(Parameters.DEFAULT.withTree(2, 4));
+        var concept = ContextualConcept.of(CONDITION_CONTEXT, Concept.of(TermCode.of(CONDITION_SYSTEM, "C0", "C0")));
+
+        assertThat(generator.treeSize()).isEqualTo(21);
+        assertThat(generator.mappingContext().expandConcept(concept)).hasSize(21);
+    }
+
+    @Test
+    void translate_allKindsOfCriteria() {
+        var generator = QueryGenerator.of(Parameters.DEFAULT.withRatios(0.4, 0.4).withGroups(4, 2));
+
+        var cql = Translator.of(generator.mappingContext()).toCql(generator.structuredQuery()).print();
+
+        assertThat(cql).contains("[Condition: Code", "[Specimen: Code", "[MedicationAdministration]",
+                "define InInitialPopulation:");
+    }
+
+    @Test
+    void parameters_invalidRatios() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Parameters.DEFAULT.withRatios(0.6, 0.6));
+    }
+}
@@ -0,0 +1,93 @@
+package de.numcodex.sq2cql;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.numcodex.sq2cql.TranslationListenerTest.MAPPING_CONTEXT;
+import static de.numcodex.sq2cql.TranslationListenerTest.STRUCTURED_QUERY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SlowTranslationLogTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Test
+    void translationFinished_aboveThreshold() {
+        var recorder = new SlowTranslationLog(Duration.ZERO, lines::add).recorder(TranslationListener.NOOP);
+
+        Translator.of(MAPPING_CONTEXT).withListener(recorder).toCql(STRUCTURED_QUERY);
+        recorder.translationFinished(STRUCTURED_QUERY);
+
+        assertThat(lines).singleElement().asString()
+                .startsWith("slow translation: fingerprint=" + STRUCTURED_QUERY.fingerprint() + " duration=")
+                .contains("inclusionCriteria=1 exclusionCriteria=1 expansions=2 expandedTermCodes=3 " +
+                        "maxExpansionSize=3 mappingMisses=1 retrieves=3 patientDefinitions=5 unfilteredDefinitions=0")
+                .containsPattern("phases=\\[EXPANSION=\\d+\\.\\d{3}ms,CRITERION=.*,COMBINE=.*]$")
+                .doesNotContain("C71", "I10");
+    }
+
+    @Test
+    void translationFinished_parallel() {
+        var recorder = new SlowTranslationLog(Duration.ZERO, lines::add).recorder(TranslationListener.NOOP);
+
+        Translator.of(MAPPING_CONTEXT).withOptions(TranslationOption.PARALLEL).withListener(recorder)
+                .toCql(STRUCTURED_QUERY);
+        recorder.translationFinished(STRUCTURED_QUERY);
+
+        assertThat(lines).singleElement().asString()
+                .contains("inclusionCriteria=1 exclusionCriteria=1 expansions=2 expandedTermCodes=3 " +
+                        "maxExpansionSize=3 mappingMisses=1 retrieves=3 patientDefinitions=5 unfilteredDefinitions=0");
+    }
+
+    @Test
+    void translationFinished_belowThreshold() {
+        var recorder = new SlowTranslationLog(Duration.ofHours(1), lines::add).recorder(TranslationListener.NOOP);
+
+        Translator.of(MAPPING_CONTEXT).withListener(recorder).toCql(STRUCTURED_QUERY);
+        recorder.translationFinished(STRUCTURED_QUERY);
+
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    void printFinished_aboveThreshold() {
+        var container = Translator.of(MAPPING_CONTEXT).toCql(STRUCTURED_QUERY);
+        var recorder = new SlowTranslationLog(Duration.ZERO, lines::add).recorder(TranslationListener.NOOP);
+
+        var library = Translator.of(MAPPING_CONTEXT).withListener(recorder).print(container);
+        recorder.printFinished(5, 0);
+
+        assertThat(lines).singleElement().asString()
+                .startsWith("slow printing: duration=")
+                .endsWith("outputBytes=%d patientDefinitions=5 unfilteredDefinitions=0".formatted(library.length()));
+    }
+
+    @Test
+    void translator_keepsOutputAndListener() {
+        var listener = new TranslationListener() {
+            int retrieves;
+
+            @Override
+            public void retrieveEmitted(String resourceType) {
+                retrieves++;
+            }
+        };
+        var translator = Translator.of(MAPPING_CONTEXT).withListener(listener)
+                .withSlowTranslationLog(Duration.ZERO);
+
+        var library = translator.print(translator.toCql(STRUCTURED_QUERY));
+
+        assertThat(library).isEqualTo(Translator.of(MAPPING_CONTEXT).toCql(STRUCTURED_QUERY).print());
+        assertThat(listener.retrieves).isEqualTo(3);
+    }
+
+    @Test
+    void negativeThreshold() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Translator.of().withSlowTranslationLog(
+                Duration.ofMillis(-1)));
+    }
+}
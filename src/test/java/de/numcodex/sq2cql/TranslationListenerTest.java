@@ -0,0 +1,128 @@
+package de.numcodex.sq2cql;
+
+import de.numcodex.sq2cql.TranslationListener.Phase;
+import de.numcodex.sq2cql.model.Mapping;
+import de.numcodex.sq2cql.model.MappingContext;
+import de.numcodex.sq2cql.model.MappingTreeBase;
+import de.numcodex.sq2cql.model.structured_query.ConceptCriterion;
+import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
+import de.numcodex.sq2cql.model.structured_query.StructuredQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.numcodex.sq2cql.TranslatorTest.C71;
+import static de.numcodex.sq2cql.TranslatorTest.C71_0;
+import static de.numcodex.sq2cql.TranslatorTest.C71_1;
+import static de.numcodex.sq2cql.TranslatorTest.CODE_SYSTEM_ALIASES;
+import static de.numcodex.sq2cql.TranslatorTest.HYPERTENSION;
+import static de.numcodex.sq2cql.Util.createTreeRootWithChildren;
+import static de.numcodex.sq2cql.Util.createTreeRootWithoutChildren;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class TranslationListenerTest {
+
+    static final MappingContext MAPPING_CONTEXT = MappingContext.of(
+            Map.of(C71, Mapping.of(C71, "Condition"), C71_0, Mapping.of(C71_0, "Condition"),
+                    HYPERTENSION, Mapping.of(HYPERTENSION, "Condition")),
+            new MappingTreeBase(List.of(createTreeRootWithChildren(C71, C71_0, C71_1),
+                    createTreeRootWithoutChildren(HYPERTENSION))),
+            CODE_SYSTEM_ALIASES);
+
+    static final StructuredQuery STRUCTURED_QUERY = StructuredQuery.of(
+            List.of(List.of(ConceptCriterion.of(ContextualConcept.of(C71)))),
+            List.of(List.of(ConceptCriterion.of(ContextualConcept.of(HYPERTENSION)))));
+
+    @Test
+    void noop() {
+        var translator = Translator.of(MAPPING_CONTEXT);
+
+        var library = translator.print(translator.toCql(STRUCTURED_QUERY));
+
+        assertThat(library).isEqualTo(translator.toCql(STRUCTURED_QUERY).print());
+    }
+
+    @Test
+    void phasesAndCounters() {
+        var listener = new RecordingListener();
+        var translator = Translator.of(MAPPING_CONTEXT).withListener(listener);
+
+        var library = translator.print(translator.toCql(STRUCTURED_QUERY));
+
+        assertThat(listener.phases).containsOnlyKeys(Phase.values());
+        assertThat(listener.phases.get(Phase.EXPANSION)).isEqualTo(2);
+        assertThat(listener.phases.get(Phase.CRITERION)).isEqualTo(2);
+        assertThat(listener.phases.get(Phase.MODIFIER)).isEqualTo(3);
+        assertThat(listener.phases.get(Phase.PRINT)).isEqualTo(1);
+        assertThat(listener.expansions).containsExactly("C71:2:1", "I10:1:0");
+        assertThat(listener.retrieves).containsExactly("Condition", "Condition", "Condition");
+        assertThat(listener.patientDefinitions).isEqualTo(5);
+        assertThat(listener.unfilteredDefinitions).isZero();
+        assertThat(listener.outputBytes).isEqualTo(library.length());
+    }
+
+    @Test
+    void withListener_keepsTheOriginalTranslatorSilent() {
+        var listener = new RecordingListener();
+        var translator = Translator.of(MAPPING_CONTEXT);
+        translator.withListener(listener);
+
+        translator.print(translator.toCql(STRUCTURED_QUERY));
+
+        assertThat(listener.phases).isEmpty();
+    }
+
+    @Test
+    void retrieveNotBuilt_isNotCounted() {
+        var listener = new RecordingListener();
+        var mappingContext = MappingContext.of(Map.of(C71, Mapping.of(C71, "Condition")),
+                new MappingTreeBase(List.of(createTreeRootWithoutChildren(C71))), Map.of());
+        var translator = Translator.of(mappingContext).withListener(listener);
+        var structuredQuery = StructuredQuery.of(List.of(List.of(ConceptCriterion.of(ContextualConcept.of(C71)))));
+
+        assertThatIllegalStateException().isThrownBy(() -> translator.toCql(structuredQuery));
+        assertThat(listener.retrieves).isEmpty();
+    }
+
+    private static class RecordingListener implements TranslationListener {
+
+        final Map<Phase, Integer> phases = new EnumMap<>(Phase.class);
+        final List<String> expansions = new ArrayList<>();
+        final List<String> retrieves = new ArrayList<>();
+        int patientDefinitions;
+        int unfilteredDefinitions;
+        int outputBytes;
+
+        @Override
+        public void phaseFinished(Phase phase, long startTime) {
+            assertThat(System.nanoTime()).isGreaterThanOrEqualTo(startTime);
+            phases.merge(phase, 1, Integer::sum);
+        }
+
+        @Override
+        public void conceptExpanded(ContextualConcept concept, int termCodes, int mappingMisses) {
+            expansions.add("%s:%d:%d".formatted(concept.concept().termCodes().get(0).code(), termCodes,
+                    mappingMisses));
+        }
+
+        @Override
+        public void retrieveEmitted(String resourceType) {
+            retrieves.add(resourceType);
+        }
+
+        @Override
+        public void definitionsEmitted(int patientDefinitions, int unfilteredDefinitions) {
+            this.patientDefinitions = patientDefinitions;
+            this.unfilteredDefinitions = unfilteredDefinitions;
+        }
+
+        @Override
+        public void printed(int outputBytes) {
+            this.outputBytes = outputBytes;
+        }
+    }
+}
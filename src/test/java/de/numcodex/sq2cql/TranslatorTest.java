@@ -4,13 +4,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.sq2cql.model.*;
 import de.numcodex.sq2cql.model.common.TermCode;
 import de.numcodex.sq2cql.model.structured_query.*;
+import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static de.numcodex.sq2cql.Assertions.assertThat;
 import static de.numcodex.sq2cql.Util.*;
@@ -92,6 +99,17 @@ class TranslatorTest {
     static final AttributeMapping VERIFICATION_STATUS_ATTR_MAPPING = AttributeMapping.of("Coding",
             VERIFICATION_STATUS, "verificationStatus.coding");
 
+    /**
+     * Returns generators of random queries of different shapes, used to compare the translation options against each
+     * other.
+     */
+    public static Stream<Named<QueryGenerator>> generators() {
+        return LongStream.rangeClosed(1, 8).mapToObj(seed -> Named.of("seed " + seed,
+                QueryGenerator.of(QueryGenerator.Parameters.DEFAULT.withSeed(seed)
+                        .withGroups(1 + (int) seed % 3, (int) seed % 3).withCriteriaPerGroup(1 + (int) seed % 6)
+                        .withAttributeFiltersPerCriterion(2).withRatios(0.3, 0.3))));
+    }
+
     private static Mapping readMapping(String s) throws Exception {
         return new ObjectMapper().readValue(s, Mapping.class);
     }
@@ -270,6 +288,98 @@ class TranslatorTest {
                     """);
         }
 
+        @Test
+        void medicationGroup() {
+            var simvastatin = ContextualTermCode.of(CONTEXT,
+                    TermCode.of("http://fhir.de/CodeSystem/dimdi/atc", "C10AA01", "simvastatin"));
+            var lovastatin = ContextualTermCode.of(CONTEXT,
+                    TermCode.of("http://fhir.de/CodeSystem/dimdi/atc", "C10AA02", "lovastatin"));
+            var mappings = Map.of(LIPID, Mapping.of(LIPID, "MedicationStatement"),
+                    simvastatin, Mapping.of(simvastatin, "MedicationStatement"),
+                    lovastatin, Mapping.of(lovastatin, "MedicationAdministration"));
+            var conceptTree = createTreeWithChildren(LIPID, simvastatin, lovastatin);
+            var mappingContext = MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES);
+            var structuredQuery = StructuredQuery.of(List.of(List.of(
+                    ConceptCriterion.of(ContextualConcept.of(LIPID)))));
+
+            var library = Translator.of(mappingContext).toCql(structuredQuery);
+
+            assertThat(library).printsTo("""
+                    library Retrieve version '1.0.0'
+                    using FHIR version '4.0.0'
+                    include FHIRHelpers version '4.0.0'
+
+                    codesystem atc: 'http://fhir.de/CodeSystem/dimdi/atc'
+
+                    context Unfiltered
+
+                    define C10AA02Ref:
+                      from [Medication: Code 'C10AA02' from atc] M
+                        return 'Medication/' + M.id
+
+                    define C10AARef_b4112d8cb30a35cd:
+                      from [Medication: { Code 'C10AA' from atc, Code 'C10AA01' from atc }] M
+                        return 'Medication/' + M.id
+
+                    context Patient
+
+                    define Criterion:
+                      exists (from [MedicationStatement] M
+                        where M.medication.reference in C10AARef_b4112d8cb30a35cd) or
+                      exists (from [MedicationAdministration] M
+                        where M.medication.reference in C10AA02Ref)
+
+                    define InInitialPopulation:
+                      Criterion
+                    """);
+        }
+
+        @Test
+        void medicationGroup_sameDefinitionInAnyOrder() {
+            var simvastatin = ContextualTermCode.of(CONTEXT,
+                    TermCode.of("http://fhir.de/CodeSystem/dimdi/atc", "C10AA01", "simvastatin"));
+            var mappings = Map.of(LIPID, Mapping.of(LIPID, "MedicationStatement"),
+                    simvastatin, Mapping.of(simvastatin, "MedicationStatement"));
+            var conceptTree = new MappingTreeBase(List.of(createTreeRootWithoutChildren(LIPID),
+                    createTreeRootWithoutChildren(simvastatin)));
+            var mappingContext = MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES);
+            var structuredQuery = StructuredQuery.of(List.of(
+                    List.of(ConceptCriterion.of(ContextualConcept.of(CONTEXT,
+                            Concept.of(LIPID.termCode(), simvastatin.termCode())))),
+                    List.of(ConceptCriterion.of(ContextualConcept.of(CONTEXT,
+                            Concept.of(simvastatin.termCode(), LIPID.termCode()))))));
+
+            var library = Translator.of(mappingContext).toCql(structuredQuery);
+
+            assertThat(library).printsTo("""
+                    library Retrieve version '1.0.0'
+                    using FHIR version '4.0.0'
+                    include FHIRHelpers version '4.0.0'
+
+                    codesystem atc: 'http://fhir.de/CodeSystem/dimdi/atc'
+
+                    context Unfiltered
+
+                    define C10AARef_b4112d8cb30a35cd:
+                      from [Medication: { Code 'C10AA' from atc, Code 'C10AA01' from atc }] M
+                        return 'Medication/' + M.id
+
+                    context Patient
+
+                    define "Criterion 1":
+                      exists (from [MedicationStatement] M
+                        where M.medication.reference in C10AARef_b4112d8cb30a35cd)
+
+                    define "Criterion 2":
+                      exists (from [MedicationStatement] M
+                        where M.medication.reference in C10AARef_b4112d8cb30a35cd)
+
+                    define InInitialPopulation:
+                      "Criterion 1" and
+                      "Criterion 2"
+                    """);
+        }
+
         @Test
         void test_Task2() {
             var mappings = Map.of(PLATELETS, Mapping.of(PLATELETS, "Observation", "value"), HYPERTENSION,
@@ -365,8 +475,7 @@ class TranslatorTest {
                     
                     define "Criterion 1":
                       exists (from [Observation: Code '713636003' from snomed] O
-                        where O.value.coding contains Code '1' from frailty-score or
-                          O.value.coding contains Code '2' from frailty-score)
+                        where exists (O.value.coding intersect { Code '1' from frailty-score, Code '2' from frailty-score }))
                     
                     define Inclusion:
                       "Criterion 1"
@@ -1243,4 +1352,406 @@ class TranslatorTest {
             }
         }
     }
+
+    @Nested
+    class ToCqlWithStats {
+
+        @Test
+        void conceptCriteria() {
+            var conceptTree = new MappingTreeBase(List.of(createTreeRootWithChildren(C71, C71_0, C71_1),
+                    createTreeRootWithoutChildren(HYPERTENSION)));
+            var mappings = Map.of(C71, Mapping.of(C71, "Condition"), C71_0, Mapping.of(C71_0, "Condition"),
+                    HYPERTENSION, Mapping.of(HYPERTENSION, "Condition"));
+            var translator = Translator.of(MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES));
+            var structuredQuery = StructuredQuery.of(List.of(
+                            List.of(ConceptCriterion.of(ContextualConcept.of(C71)),
+                                    ConceptCriterion.of(ContextualConcept.of(HYPERTENSION))),
+                            List.of(ConceptCriterion.of(ContextualConcept.of(HYPERTENSION)))),
+                    List.of(List.of(ConceptCriterion.of(ContextualConcept.of(C71_0)))));
+
+            var result = translator.toCqlWithStats(structuredQuery);
+
+            assertEquals(translator.toCql(structuredQuery).print(), result.library());
+            assertThat(result.container()).printsTo(result.library());
+            var stats = result.stats();
+            assertEquals(Map.of("Condition", 5), stats.retrievesByResourceType());
+            assertEquals(5, stats.retrieves());
+            assertEquals(7, stats.patientDefinitions());
+            assertEquals(0, stats.unfilteredDefinitions());
+            assertEquals(1, stats.maxCriterionDepth());
+            assertEquals(4, stats.orOperands());
+            assertEquals(2, stats.andOperands());
+            assertEquals(5, stats.expandedTermCodes());
+            assertEquals(1, stats.mappingMisses());
+            assertEquals(result.library().length(), stats.printedSize());
+        }
+
+        @Test
+        void referenceCriteria() {
+            var generator = QueryGenerator.of(QueryGenerator.Parameters.DEFAULT.withGroups(2, 0)
+                    .withCriteriaPerGroup(1).withTree(0, 0).withRatios(1, 0));
+            var translator = Translator.of(generator.mappingContext());
+
+            var stats = translator.toCqlWithStats(generator.structuredQuery()).stats();
+
+            assertEquals(Map.of("Specimen", 2, "Condition", 2), stats.retrievesByResourceType());
+            assertEquals(2, stats.maxCriterionDepth());
+            assertEquals(2, stats.andOperands());
+        }
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void parallel(QueryGenerator generator) {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+            var executor = Executors.newFixedThreadPool(4);
+
+            try {
+                var expected = translator.toCqlWithStats(structuredQuery);
+
+                var result = translator.withExecutor(executor).withOptions(TranslationOption.PARALLEL)
+                        .toCqlWithStats(structuredQuery);
+
+                assertEquals(expected.library(), result.library());
+                assertEquals(expected.stats(), result.stats());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    class DeferredNaming {
+
+        @Test
+        void oneConjunctionWithTwoCriteria() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(Criterion.TRUE)),
+                    List.of(List.of(Criterion.FALSE, Criterion.FALSE)));
+
+            var library = Translator.of().withOptions(TranslationOption.DEFERRED_NAMING).toCql(structuredQuery);
+
+            assertThat(library).patientContextPrintsTo("""
+                    context Patient
+                    
+                    define "Criterion 1":
+                      true
+                    
+                    define Inclusion:
+                      "Criterion 1"
+                    
+                    define "Criterion 2":
+                      false
+                    
+                    define "Criterion 3":
+                      false
+                    
+                    define Exclusion:
+                      "Criterion 2" and
+                      "Criterion 3"
+                    
+                    define InInitialPopulation:
+                      Inclusion and
+                      not Exclusion
+                    """);
+        }
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void printsTheSameAsSuffixedNaming(QueryGenerator generator) {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+
+            var library = translator.withOptions(TranslationOption.DEFERRED_NAMING).toCql(structuredQuery);
+
+            assertEquals(translator.toCql(structuredQuery).print(), library.print());
+        }
+    }
+
+    @Nested
+    class WithLibraryBuilder {
+
+        @Test
+        void oneConjunctionWithTwoCriteria() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(Criterion.TRUE)),
+                    List.of(List.of(Criterion.FALSE, Criterion.FALSE)));
+
+            var library = Translator.of().withOptions(TranslationOption.LIBRARY_BUILDER).toCql(structuredQuery);
+
+            assertEquals(Translator.of().toCql(structuredQuery).print(), library.print());
+            assertEquals(6, library.getPatientDefinitions().size());
+        }
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void buildsTheSameContainerAsCombining(QueryGenerator generator) {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+
+            var library = translator.withOptions(TranslationOption.LIBRARY_BUILDER).toCql(structuredQuery);
+
+            var expected = translator.toCql(structuredQuery);
+            assertEquals(expected.print(), library.print());
+            assertEquals(expected.getCodeSystemDefinitions(), library.getCodeSystemDefinitions());
+            assertEquals(expected.getUnfilteredDefinitions(), library.getUnfilteredDefinitions());
+        }
+    }
+
+    @Nested
+    class WithInterning {
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void printsTheSame(QueryGenerator generator) {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+
+            var expected = translator.toCql(structuredQuery).print();
+
+            assertEquals(expected, translator.withOptions(TranslationOption.INTERNING).toCql(structuredQuery).print());
+            assertEquals(expected, translator.withOptions(TranslationOption.INTERNING,
+                    TranslationOption.LIBRARY_BUILDER).toCql(structuredQuery).print());
+        }
+    }
+
+    @Nested
+    class WithCommonSubexpressionElimination {
+
+        static final MappingContext MAPPING_CONTEXT = MappingContext.of(
+                Map.of(C71, Mapping.of(C71, "Condition"), C71_0, Mapping.of(C71_0, "Condition"),
+                        HYPERTENSION, Mapping.of(HYPERTENSION, "Condition")),
+                new MappingTreeBase(List.of(createTreeRootWithChildren(C71, C71_0, C71_1),
+                        createTreeRootWithoutChildren(HYPERTENSION))),
+                CODE_SYSTEM_ALIASES);
+
+        @Test
+        void overlappingExpansions() {
+            var structuredQuery = StructuredQuery.of(List.of(
+                    List.of(ConceptCriterion.of(ContextualConcept.of(C71))),
+                    List.of(ConceptCriterion.of(ContextualConcept.of(C71_0)))));
+
+            var library = Translator.of(MAPPING_CONTEXT)
+                    .withOptions(TranslationOption.COMMON_SUBEXPRESSION_ELIMINATION).toCql(structuredQuery);
+
+            assertThat(library).patientContextPrintsTo("""
+                    context Patient
+                    
+                    define Shared:
+                      exists [Condition: Code 'C71.0' from icd10]
+                    
+                    define "Criterion 1":
+                      exists [Condition: Code 'C71' from icd10] or
+                      Shared
+                    
+                    define "Criterion 2":
+                      Shared
+                    
+                    define InInitialPopulation:
+                      "Criterion 1" and
+                      "Criterion 2"
+                    """);
+        }
+
+        @Test
+        void sameCriterionInInclusionAndExclusion() {
+            var criterion = ConceptCriterion.of(ContextualConcept.of(HYPERTENSION));
+            var structuredQuery = StructuredQuery.of(List.of(List.of(criterion)), List.of(List.of(criterion)));
+
+            var library = Translator.of(MAPPING_CONTEXT)
+                    .withOptions(TranslationOption.COMMON_SUBEXPRESSION_ELIMINATION).toCql(structuredQuery);
+
+            assertThat(library).patientContextPrintsTo("""
+                    context Patient
+                    
+                    define "Criterion 1":
+                      exists [Condition: Code 'I10' from icd10]
+                    
+                    define Inclusion:
+                      "Criterion 1"
+                    
+                    define "Criterion 2":
+                      "Criterion 1"
+                    
+                    define Exclusion:
+                      "Criterion 2"
+                    
+                    define InInitialPopulation:
+                      Inclusion and
+                      not Exclusion
+                    """);
+        }
+
+        @Test
+        void withoutRepetitionPrintsTheSame() {
+            var structuredQuery = StructuredQuery.of(List.of(
+                    List.of(ConceptCriterion.of(ContextualConcept.of(C71_0))),
+                    List.of(ConceptCriterion.of(ContextualConcept.of(HYPERTENSION)))));
+
+            var library = Translator.of(MAPPING_CONTEXT)
+                    .withOptions(TranslationOption.COMMON_SUBEXPRESSION_ELIMINATION).toCql(structuredQuery);
+
+            assertEquals(Translator.of(MAPPING_CONTEXT).toCql(structuredQuery).print(), library.print());
+        }
+    }
+
+    @Nested
+    class WithParallel {
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void printsTheSame(QueryGenerator generator) {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+            var executor = Executors.newFixedThreadPool(4);
+
+            try {
+                var expected = translator.toCql(structuredQuery).print();
+
+                var parallelTranslator = translator.withExecutor(executor);
+                assertEquals(expected, parallelTranslator.withOptions(TranslationOption.PARALLEL)
+                        .toCql(structuredQuery).print());
+                assertEquals(expected, parallelTranslator.withOptions(TranslationOption.PARALLEL,
+                        TranslationOption.LIBRARY_BUILDER, TranslationOption.INTERNING).toCql(structuredQuery).print());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        void nonExpandableConcept() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(ConceptCriterion.of(ContextualConcept.of(C71)))));
+
+            var translator = Translator.of().withOptions(TranslationOption.PARALLEL);
+
+            assertThrows(TranslationException.class, () -> translator.toCql(structuredQuery));
+        }
+
+        @ParameterizedTest
+        @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+        void onTheThreadOfItsOwnExecutor(QueryGenerator generator) throws Exception {
+            var translator = Translator.of(generator.mappingContext());
+            var structuredQuery = generator.structuredQuery();
+            // daemon threads, so that a deadlock fails the test instead of keeping the JVM alive
+            var executor = Executors.newSingleThreadExecutor(runnable -> {
+                var thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            try {
+                var expected = translator.toCql(structuredQuery).print();
+
+                var parallelTranslator = translator.withExecutor(executor);
+                var combined = executor.submit(() -> parallelTranslator.withOptions(TranslationOption.PARALLEL)
+                        .toCql(structuredQuery).print());
+                var built = executor.submit(() -> parallelTranslator.withOptions(TranslationOption.PARALLEL,
+                        TranslationOption.LIBRARY_BUILDER).toCql(structuredQuery).print());
+                assertEquals(expected, combined.get(10, TimeUnit.SECONDS));
+                assertEquals(expected, built.get(10, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void duplicateOption() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(Criterion.TRUE, Criterion.FALSE)));
+
+            var translator = Translator.of().withOptions(TranslationOption.PARALLEL, TranslationOption.PARALLEL);
+
+            assertEquals(Translator.of().toCql(structuredQuery).print(), translator.toCql(structuredQuery).print());
+        }
+    }
+
+    @Nested
+    class WithRetrieveFusion {
+
+        static final ConceptCriterion CRITERION = ConceptCriterion.of(ContextualConcept.of(C71))
+                .appendAttributeFilter(ValueSetAttributeFilter.of(VERIFICATION_STATUS, CONFIRMED));
+
+        static MappingContext mappingContext(String c71_1ResourceType) {
+            return MappingContext.of(Map.of(
+                            C71_0, Mapping.of(C71_0, "Condition", null, null, List.of(),
+                                    List.of(VERIFICATION_STATUS_ATTR_MAPPING)),
+                            C71_1, Mapping.of(C71_1, c71_1ResourceType, null, null, List.of(),
+                                    List.of(VERIFICATION_STATUS_ATTR_MAPPING))),
+                    new MappingTreeBase(List.of(createTreeRootWithChildren(C71, C71_0, C71_1))),
+                    CODE_SYSTEM_ALIASES);
+        }
+
+        @Test
+        void sameMappingShape() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(CRITERION)));
+            var translator = Translator.of(mappingContext("Condition"));
+
+            var library = translator.withOptions(TranslationOption.RETRIEVE_FUSION).toCql(structuredQuery);
+
+            assertThat(library).patientContextPrintsTo("""
+                    context Patient
+                    
+                    define Criterion:
+                      exists (from [Condition: { Code 'C71.0' from icd10, Code 'C71.1' from icd10 }] C
+                        where C.verificationStatus.coding contains Code 'confirmed' from ver_status)
+                    
+                    define InInitialPopulation:
+                      Criterion
+                    """);
+            assertEquals(library.print(), translator.withOptions(TranslationOption.RETRIEVE_FUSION,
+                    TranslationOption.LIBRARY_BUILDER).toCql(structuredQuery).print());
+        }
+
+        @Test
+        void differentResourceTypes() {
+            var structuredQuery = StructuredQuery.of(List.of(List.of(CRITERION)));
+            var translator = Translator.of(mappingContext("Observation"));
+
+            var library = translator.withOptions(TranslationOption.RETRIEVE_FUSION).toCql(structuredQuery);
+
+            assertEquals(translator.toCql(structuredQuery).print(), library.print());
+        }
+    }
+
+    @Nested
+    class WithSimplification {
+
+        static final MappingContext MAPPING_CONTEXT = MappingContext.of(Map.of(
+                        C71_0, Mapping.of(C71_0, "Condition"), C71_1, Mapping.of(C71_1, "Condition")),
+                new MappingTreeBase(List.of(createTreeRootWithoutChildren(C71_0),
+                        createTreeRootWithoutChildren(C71_1))),
+                CODE_SYSTEM_ALIASES);
+
+        static Criterion criterion(ContextualTermCode termCode) {
+            return ConceptCriterion.of(ContextualConcept.of(termCode));
+        }
+
+        @Test
+        void copiedCriteria() {
+            var structuredQuery = StructuredQuery.of(List.of(
+                            List.of(criterion(C71_0), criterion(C71_1), criterion(C71_0)),
+                            List.of(criterion(C71_0)), List.of(criterion(C71_0), Criterion.FALSE)),
+                    List.of(List.of(criterion(C71_1)), List.of(criterion(C71_1), criterion(C71_0))));
+
+            var library = Translator.of(MAPPING_CONTEXT).withOptions(TranslationOption.SIMPLIFICATION)
+                    .toCql(structuredQuery);
+
+            assertThat(library).patientContextPrintsTo("""
+                    context Patient
+
+                    define "Criterion 1":
+                      exists [Condition: Code 'C71.0' from icd10]
+
+                    define Inclusion:
+                      "Criterion 1"
+
+                    define "Criterion 2":
+                      exists [Condition: Code 'C71.1' from icd10]
+
+                    define Exclusion:
+                      "Criterion 2"
+
+                    define InInitialPopulation:
+                      Inclusion and
+                      not Exclusion
+                    """);
+        }
+    }
 }
@@ -1,7 +1,6 @@
 package de.numcodex.sq2cql;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Functions;
 import de.numcodex.sq2cql.model.*;
 import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
 
@@ -9,6 +8,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.ZipFile;
 
@@ -36,15 +36,15 @@ public interface Util {
             entry("http://hl7.org/fhir/consent-provision-type", "provision_type"),
             entry("http://fhir.de/CodeSystem/bfarm/ops", "oops"));
 
-    private static Map<ContextualTermCode, Mapping> readMappings(ZipFile zipFile) throws IOException {
+    static Map<ContextualTermCode, Mapping> readMappings(ZipFile zipFile) throws IOException {
         try (var in = zipFile.getInputStream(zipFile.getEntry("mapping/cql/mapping_cql.json"))) {
             var mapper = new ObjectMapper();
             return Arrays.stream(mapper.readValue(in, Mapping[].class))
-                    .collect(Collectors.toMap(Mapping::key, Functions.identity()));
+                    .collect(Collectors.toMap(Mapping::key, Function.identity()));
         }
     }
 
-    private static MappingTreeBase readConceptTree(ZipFile zipFile) throws IOException {
+    static MappingTreeBase readConceptTree(ZipFile zipFile) throws IOException {
         try (var in = zipFile.getInputStream(zipFile.getEntry("mapping/mapping_tree.json"))) {
             var mapper = new ObjectMapper();
             return new MappingTreeBase(
@@ -53,11 +53,14 @@ public interface Util {
     }
 
     static Translator createTranslator() throws Exception {
-        try (ZipFile zipFile = new ZipFile("target/mapping.zip")) {
+        return Translator.of(createMappingContext("target/mapping.zip"));
+    }
+
+    static MappingContext createMappingContext(String mappingZip) throws IOException {
+        try (ZipFile zipFile = new ZipFile(mappingZip)) {
             var mappings = readMappings(zipFile);
             var conceptTree = readConceptTree(zipFile);
-            var mappingContext = MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES);
-            return Translator.of(mappingContext);
+            return MappingContext.of(mappings, conceptTree, CODE_SYSTEM_ALIASES);
         }
     }
 
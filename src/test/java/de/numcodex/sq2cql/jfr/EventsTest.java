@@ -0,0 +1,67 @@
+package de.numcodex.sq2cql.jfr;
+
+import de.numcodex.sq2cql.QueryGenerator;
+import de.numcodex.sq2cql.QueryGenerator.Parameters;
+import de.numcodex.sq2cql.Translator;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventsTest {
+
+    static final QueryGenerator GENERATOR = QueryGenerator.of(Parameters.DEFAULT.withGroups(1, 0)
+            .withCriteriaPerGroup(2).withTree(1, 3).withRatios(0, 0));
+
+    @Test
+    void disabledByDefault() {
+        assertThat(List.of(TranslationEvent.class, CriterionEvent.class, ExpansionEvent.class, PrintEvent.class))
+                .allSatisfy(eventClass -> assertThat(EventType.getEventType(eventClass).isEnabled()).isFalse());
+    }
+
+    @Test
+    void recording(@TempDir Path dir) throws Exception {
+        var translator = Translator.of(GENERATOR.mappingContext());
+        var structuredQuery = GENERATOR.structuredQuery();
+        var file = dir.resolve("recording.jfr");
+
+        String library;
+        try (var recording = new Recording()) {
+            recording.enable(TranslationEvent.class);
+            recording.enable(CriterionEvent.class);
+            recording.enable(ExpansionEvent.class);
+            recording.enable(PrintEvent.class);
+            recording.start();
+            library = translator.toCql(structuredQuery).print();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        assertThat(events(events, "de.numcodex.sq2cql.Translation")).singleElement().satisfies(event -> {
+            assertThat(event.getString("fingerprint")).isEqualTo(structuredQuery.fingerprint());
+            assertThat(event.getInt("inclusionCriteria")).isEqualTo(2);
+            assertThat(event.getInt("exclusionCriteria")).isZero();
+        });
+        assertThat(events(events, "de.numcodex.sq2cql.Criterion")).hasSize(2).allSatisfy(event -> {
+            assertThat(event.getString("criterionType")).isEqualTo("ConceptCriterion");
+            assertThat(event.getString("concept")).startsWith("Condition: http://example.com/CodeSystem/condition|C");
+            assertThat(event.getInt("expansionSize")).isEqualTo(4);
+        });
+        assertThat(events(events, "de.numcodex.sq2cql.Expansion")).hasSize(2)
+                .allSatisfy(event -> assertThat(event.getInt("expansionSize")).isEqualTo(4));
+        assertThat(events(events, "de.numcodex.sq2cql.Print")).singleElement()
+                .satisfies(event -> assertThat(event.getInt("outputLength")).isEqualTo(library.length()));
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+}
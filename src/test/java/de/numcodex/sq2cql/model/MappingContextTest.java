@@ -1,6 +1,10 @@
 package de.numcodex.sq2cql.model;
 
+import de.numcodex.sq2cql.QueryGenerator;
+import de.numcodex.sq2cql.QueryGenerator.Parameters;
+import de.numcodex.sq2cql.model.MemoryFootprint.Component;
 import de.numcodex.sq2cql.model.common.TermCode;
+import de.numcodex.sq2cql.model.structured_query.CodingModifier;
 import de.numcodex.sq2cql.model.structured_query.ContextualConcept;
 import de.numcodex.sq2cql.model.structured_query.ContextualTermCode;
 import org.junit.jupiter.api.Test;
@@ -9,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import static de.numcodex.sq2cql.Util.createTreeWithoutChildren;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -65,4 +70,43 @@ class MappingContextTest {
 
         assertTrue(definition.isEmpty());
     }
+
+    @Test
+    void footprint_GeneratedOntology() {
+        var generator = QueryGenerator.of(Parameters.DEFAULT);
+        var mappingCount = 3 * generator.parameters().conceptCount() * generator.treeSize();
+
+        var footprint = generator.mappingContext().footprint();
+
+        assertThat(footprint.usage(Component.MAPPINGS).count()).isEqualTo(mappingCount);
+        assertThat(footprint.usage(Component.ATTRIBUTE_MAPPINGS).count()).isEqualTo(mappingCount);
+        assertThat(footprint.usage(Component.FIXED_CRITERIA).count()).isZero();
+        // the key of every mapping, the three contexts and the two attribute codes
+        assertThat(footprint.usage(Component.TERM_CODES).count()).isEqualTo(mappingCount + 5);
+        assertThat(footprint.usage(Component.TREE_ENTRIES).count()).isEqualTo(mappingCount);
+        // every module generates its own instances of the same codes
+        assertThat(footprint.duplicateStrings().count()).isEqualTo(mappingCount * 2 / 3);
+        assertThat(footprint.components().values()).allSatisfy(usage -> assertThat(usage.bytes()).isNotNegative());
+        assertThat(footprint.totalBytes()).isGreaterThan(footprint.usage(Component.MAPPINGS).bytes());
+        assertThat(footprint.skippedComponents()).isZero();
+    }
+
+    @Test
+    void footprint_FixedCriteriaAndDuplicateDisplays() {
+        var termCode = TermCode.of("foo", "c2", new String("c1-d"));
+        var c2 = ContextualTermCode.of(CONTEXT, termCode);
+        var modifier = CodingModifier.of("status", TermCode.of("bar", "final", "final"));
+        var context = MappingContext.of(Map.of(C1, Mapping.of(C1, "Observation"), c2,
+                Mapping.of(c2, "Observation", null, null, List.of(modifier), List.of())), null, Map.of());
+
+        var footprint = context.footprint();
+
+        assertThat(footprint.usage(Component.MAPPINGS).count()).isEqualTo(2);
+        assertThat(footprint.usage(Component.FIXED_CRITERIA).count()).isEqualTo(1);
+        assertThat(footprint.usage(Component.FIXED_CRITERIA).bytes()).isPositive();
+        assertThat(footprint.usage(Component.TERM_CODES).count()).isEqualTo(4);
+        assertThat(footprint.usage(Component.TREE_ENTRIES)).isEqualTo(MemoryFootprint.Usage.ZERO);
+        assertThat(footprint.duplicateStrings().count()).isEqualTo(1);
+        assertThat(footprint.skippedComponents()).isZero();
+    }
 }
@@ -0,0 +1,91 @@
+package de.numcodex.sq2cql.model.cql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static de.numcodex.sq2cql.model.cql.Expression.FALSE;
+import static de.numcodex.sq2cql.model.cql.Expression.TRUE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefinitionListTest {
+
+    static ExpressionDefinition definition(String prefix, int suffix, Expression<?> expression) {
+        return ExpressionDefinition.of(SuffixedIdentifierExpression.of(prefix, suffix), expression);
+    }
+
+    static DefinitionList list(ExpressionDefinition... definitions) {
+        var list = DefinitionList.empty();
+        for (var definition : definitions) {
+            list = list.appendByUniqueName(definition);
+        }
+        return list;
+    }
+
+    @Test
+    void appendByUniqueName_keepsTheFirstDefinition() {
+        var list = list(definition("A", 0, TRUE), definition("B", 0, TRUE), definition("A", 0, FALSE));
+
+        assertThat(list).containsExactly(definition("A", 0, TRUE), definition("B", 0, TRUE));
+    }
+
+    @Test
+    void unionByName_withoutCollision() {
+        var a = list(definition("A", 0, TRUE), definition("B", 0, TRUE));
+        var b = list(definition("C", 0, TRUE), definition("D", 0, TRUE));
+
+        var union = a.unionByName(b);
+
+        assertThat(union).containsExactly(definition("A", 0, TRUE), definition("B", 0, TRUE),
+                definition("C", 0, TRUE), definition("D", 0, TRUE));
+        assertThat(union.get(2)).isEqualTo(definition("C", 0, TRUE));
+        assertThat(union.appendByUniqueName(definition("D", 0, FALSE))).isSameAs(union);
+    }
+
+    @Test
+    void unionByName_withCollision() {
+        var a = list(definition("A", 0, TRUE), definition("B", 0, TRUE));
+        var b = list(definition("C", 0, TRUE), definition("A", 0, FALSE), definition("D", 0, TRUE));
+
+        var union = a.unionByName(b);
+
+        assertThat(union).containsExactly(definition("A", 0, TRUE), definition("B", 0, TRUE),
+                definition("C", 0, TRUE), definition("D", 0, TRUE));
+    }
+
+    @Test
+    void unionByName_leavesOperandsUntouched() {
+        var a = list(definition("A", 0, TRUE));
+        var b = list(definition("B", 0, TRUE));
+
+        a.unionByName(b);
+
+        assertThat(a).containsExactly(definition("A", 0, TRUE));
+        assertThat(b).containsExactly(definition("B", 0, TRUE));
+    }
+
+    @Test
+    void map_keepsOrder() {
+        var expected = new ArrayList<ExpressionDefinition>();
+        var list = DefinitionList.empty();
+        for (int i = 0; i < 100; i++) {
+            list = list.appendByUniqueName(definition("Criterion", i, TRUE));
+            expected.add(definition("Criterion", i + 1, TRUE));
+        }
+
+        var mapped = list.map(d -> d.withIncrementedSuffixes(Map.of("Criterion", 1)));
+
+        assertThat(mapped).containsExactlyElementsOf(expected);
+        assertThat(IntStream.range(0, 100).mapToObj(mapped::get).toList()).isEqualTo(expected);
+        assertThat(mapped.appendByUniqueName(definition("Criterion", 100, FALSE))).isSameAs(mapped);
+    }
+
+    @Test
+    void equalsOtherLists() {
+        assertThat(list(definition("A", 0, TRUE))).isEqualTo(List.of(definition("A", 0, TRUE)));
+        assertThat(DefinitionList.empty()).isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package de.numcodex.sq2cql.model.cql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cqframework.cql.cql2elm.CqlCompilerOptions;
+import org.cqframework.cql.cql2elm.CqlTranslator;
+import org.cqframework.cql.cql2elm.LibraryManager;
+import org.cqframework.cql.cql2elm.ModelManager;
+import org.cqframework.cql.cql2elm.quick.FhirLibrarySourceProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles the CQL a container prints to with the CQL-to-ELM compiler, so that the ELM of {@link Container#toElm()}
+ * can be compared with the compiled ELM.
+ * <p>
+ * Every property of the emitted ELM has to be the same in the compiled ELM. The compiled ELM may only have additional
+ * annotations, signatures and result types, which depend on the FHIR model info the emitter doesn't have.
+ */
+public final class ElmCompiler {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> UNEMITTED_PROPERTIES = Set.of("annotation", "localId", "locator", "signature",
+            "resultTypeName", "resultTypeSpecifier");
+
+    private ElmCompiler() {
+    }
+
+    /**
+     * Compiles {@code cql} like Blaze does, with result types.
+     *
+     * @throws IllegalArgumentException if {@code cql} doesn't compile
+     */
+    public static JsonNode compile(String cql) {
+        var libraryManager = new LibraryManager(new ModelManager(), new CqlCompilerOptions(
+                CqlCompilerOptions.Options.EnableResultTypes, CqlCompilerOptions.Options.DisableListDemotion,
+                CqlCompilerOptions.Options.DisableListPromotion));
+        libraryManager.getLibrarySourceLoader().registerProvider(new FhirLibrarySourceProvider());
+        var translator = CqlTranslator.fromText(cql, libraryManager);
+        if (!translator.getErrors().isEmpty()) {
+            throw new IllegalArgumentException("Can't compile the CQL: %s".formatted(translator.getErrors()));
+        }
+        try {
+            return MAPPER.readTree(translator.toJson());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Asserts that the code systems and statements of the ELM {@code container} emits are those of its compiled CQL.
+     */
+    public static void assertEmitsCompiledElm(Container<?> container) {
+        var compiled = compile(container.print()).get("library");
+        var emitted = reparse(container.toElm()).get("library");
+        assertContains(compiled.path("codeSystems"), emitted.path("codeSystems"), "codeSystems");
+        assertContains(compiled.get("statements"), emitted.get("statements"), "statements");
+    }
+
+    /**
+     * Serializes and parses {@code elm}, so that numbers compare like the ones of the compiled ELM.
+     */
+    private static JsonNode reparse(JsonNode elm) {
+        try {
+            return MAPPER.readTree(MAPPER.writeValueAsString(elm));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void assertContains(JsonNode compiled, JsonNode emitted, String path) {
+        assertNotNull(compiled, () -> "The compiled ELM has no `%s`.".formatted(path));
+        if (emitted.isObject()) {
+            assertTrue(compiled.isObject(), () -> "The compiled ELM has no object at `%s`.".formatted(path));
+            compiled.fieldNames().forEachRemaining(name -> assertTrue(emitted.has(name)
+                            || UNEMITTED_PROPERTIES.contains(name),
+                    () -> "The emitted ELM misses `%s.%s`: %s".formatted(path, name, compiled.get(name))));
+            emitted.fields().forEachRemaining(field -> assertContains(compiled.get(field.getKey()), field.getValue(),
+                    path + "." + field.getKey()));
+        } else if (emitted.isArray()) {
+            assertEquals(compiled.size(), emitted.size(), () -> "The size of `%s` differs.".formatted(path));
+            for (int i = 0; i < emitted.size(); i++) {
+                assertContains(compiled.get(i), emitted.get(i), "%s[%d]".formatted(path, i));
+            }
+        } else if (emitted.isNumber() && compiled.isNumber()) {
+            assertEquals(0, compiled.decimalValue().compareTo(emitted.decimalValue()),
+                    () -> "`%s` differs: %s != %s".formatted(path, compiled, emitted));
+        } else {
+            assertEquals(compiled.asText(), emitted.asText(), () -> "`%s` differs.".formatted(path));
+        }
+    }
+}
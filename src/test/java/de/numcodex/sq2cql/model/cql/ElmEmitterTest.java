@@ -0,0 +1,241 @@
+package de.numcodex.sq2cql.model.cql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.sq2cql.PrintContext;
+import de.numcodex.sq2cql.QueryGenerator;
+import de.numcodex.sq2cql.TranslationOption;
+import de.numcodex.sq2cql.Translator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static de.numcodex.sq2cql.model.common.Comparator.GREATER_THAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ElmEmitterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Emits {@code expression} and parses the serialized JSON, so that numbers compare like the expected JSON.
+     */
+    private JsonNode emit(Expression<?> expression) throws Exception {
+        return mapper.readTree(mapper.writeValueAsString(new ElmEmitter(PrintContext.ZERO).expression(expression)));
+    }
+
+    @Test
+    void retrieve() throws Exception {
+        var expression = RetrieveExpression.of("Condition", CodeSelector.of("C71.1", "icd10"));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Retrieve",
+                 "dataType": "{http://hl7.org/fhir}Condition",
+                 "templateId": "http://hl7.org/fhir/StructureDefinition/Condition",
+                 "codes": {"type": "ToList",
+                           "operand": {"type": "Code", "code": "C71.1",
+                                       "system": {"type": "CodeSystemRef", "name": "icd10"}}}}
+                """), emit(expression));
+    }
+
+    @Test
+    void query_AliasRefAndExpressionRefWithToString() throws Exception {
+        var alias = StandardIdentifierExpression.of("O");
+        var expression = QueryExpression.of(SourceClause.of(AliasedQuerySource.of(RetrieveExpression.of("Observation"),
+                alias)), WhereClause.of(MembershipExpression.in(InvocationExpression.of(alias, "status"),
+                StandardIdentifierExpression.of("Statuses"))));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Query",
+                 "source": [{"alias": "O",
+                             "expression": {"type": "Retrieve",
+                                            "dataType": "{http://hl7.org/fhir}Observation",
+                                            "templateId": "http://hl7.org/fhir/StructureDefinition/Observation"}}],
+                 "relationship": [],
+                 "where": {"type": "In",
+                           "operand": [{"type": "FunctionRef", "libraryName": "FHIRHelpers", "name": "ToString",
+                                        "operand": [{"type": "Property", "path": "status", "scope": "O"}]},
+                                       {"type": "ExpressionRef", "name": "Statuses"}]}}
+                """), emit(expression));
+    }
+
+    @Test
+    void between() throws Exception {
+        var expression = BetweenExpression.of(FunctionInvocation.of("AgeInYears", List.of()),
+                QuantityExpression.of(BigDecimal.valueOf(18)), QuantityExpression.of(new BigDecimal("65.5")));
+
+        var age = """
+                {"type": "CalculateAge", "precision": "Year",
+                 "operand": {"type": "Property", "path": "value",
+                             "source": {"type": "Property", "path": "birthDate",
+                                        "source": {"type": "ExpressionRef", "name": "Patient"}}}}""";
+        assertEquals(mapper.readTree("""
+                {"type": "And",
+                 "operand": [{"type": "GreaterOrEqual",
+                              "operand": [%1$s,
+                                          {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer",
+                                           "value": "18"}]},
+                             {"type": "LessOrEqual",
+                              "operand": [%1$s,
+                                          {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Decimal",
+                                           "value": "65.5"}]}]}
+                """.formatted(age)), emit(expression));
+    }
+
+    @Test
+    void comparatorWithCastToQuantity() throws Exception {
+        var expression = ComparatorExpression.of(TypeExpression.of(InvocationExpression.of(
+                        StandardIdentifierExpression.of("O"), "value"), "Quantity"), GREATER_THAN,
+                QuantityExpression.of(BigDecimal.valueOf(5), "mg"));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Greater",
+                 "operand": [{"type": "FunctionRef", "libraryName": "FHIRHelpers", "name": "ToQuantity",
+                              "operand": [{"type": "As", "asType": "{http://hl7.org/fhir}Quantity", "strict": false,
+                                           "operand": {"type": "Property", "path": "value",
+                                                       "source": {"type": "ExpressionRef", "name": "O"}}}]},
+                             {"type": "Quantity", "value": 5, "unit": "mg"}]}
+                """), emit(expression));
+    }
+
+    @Test
+    void toDateOfCastToDateTime() throws Exception {
+        var expression = FunctionInvocation.of("ToDate", List.of(TypeExpression.of(InvocationExpression.of(
+                StandardIdentifierExpression.of("C"), "onset"), "dateTime")));
+
+        assertEquals(mapper.readTree("""
+                {"type": "ToDate",
+                 "operand": {"type": "FunctionRef", "libraryName": "FHIRHelpers", "name": "ToDateTime",
+                             "operand": [{"type": "As", "asType": "{http://hl7.org/fhir}dateTime", "strict": false,
+                                          "operand": {"type": "Property", "path": "onset",
+                                                      "source": {"type": "ExpressionRef", "name": "C"}}}]}}
+                """), emit(expression));
+    }
+
+    @Test
+    void codingsContainCode() throws Exception {
+        var expression = MembershipExpression.contains(InvocationExpression.of(StandardIdentifierExpression.of("C"),
+                "code.coding"), CodeSelector.of("C71.1", "icd10"));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Contains",
+                 "operand": [{"type": "Query",
+                              "source": [{"alias": "X",
+                                          "expression": {"type": "Property", "path": "coding",
+                                                         "source": {"type": "Property", "path": "code",
+                                                                    "source": {"type": "ExpressionRef",
+                                                                               "name": "C"}}}}],
+                              "relationship": [],
+                              "return": {"distinct": false,
+                                         "expression": {"type": "FunctionRef", "libraryName": "FHIRHelpers",
+                                                        "name": "ToCode",
+                                                        "operand": [{"type": "AliasRef", "name": "X"}]}}},
+                             {"type": "Code", "code": "C71.1",
+                              "system": {"type": "CodeSystemRef", "name": "icd10"}}]}
+                """), emit(expression));
+    }
+
+    @Test
+    void codeEqualsString() throws Exception {
+        var expression = ComparatorExpression.equal(InvocationExpression.of(StandardIdentifierExpression.of("Patient"),
+                "gender"), StringLiteralExpression.of("male"));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Equal",
+                 "operand": [{"type": "FunctionRef", "libraryName": "FHIRHelpers", "name": "ToString",
+                              "operand": [{"type": "Property", "path": "gender",
+                                           "source": {"type": "ExpressionRef", "name": "Patient"}}]},
+                             {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}String", "value": "male"}]}
+                """), emit(expression));
+    }
+
+    @Test
+    void overlapsPeriod() throws Exception {
+        var expression = OverlapsIntervalOperatorPhrase.of(InvocationExpression.of(StandardIdentifierExpression.of("C"),
+                "onset"), IntervalSelector.of(DateTimeExpression.of("2020"), DateTimeExpression.of("2021")));
+
+        var year = """
+                {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "%s"}""";
+        assertEquals(mapper.readTree("""
+                {"type": "Overlaps",
+                 "operand": [{"type": "FunctionRef", "libraryName": "FHIRHelpers", "name": "ToInterval",
+                              "operand": [{"type": "As", "asType": "{http://hl7.org/fhir}Period", "strict": false,
+                                           "operand": {"type": "Property", "path": "onset",
+                                                       "source": {"type": "ExpressionRef", "name": "C"}}}]},
+                             {"type": "Interval", "lowClosed": true, "highClosed": true,
+                              "low": {"type": "ToDateTime", "operand": {"type": "Date", "year": %s}},
+                              "high": {"type": "ToDateTime", "operand": {"type": "Date", "year": %s}}}]}
+                """.formatted(year.formatted("2020"), year.formatted("2021"))), emit(expression));
+    }
+
+    @Test
+    void date() throws Exception {
+        var expression = IntervalSelector.of(DateTimeExpression.of("2021-06-03"),
+                DateTimeExpression.of("2021-06-03T10:30"));
+
+        assertEquals(mapper.readTree("""
+                {"type": "Interval", "lowClosed": true, "highClosed": true,
+                 "low": {"type": "Date",
+                         "year": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "2021"},
+                         "month": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "6"},
+                         "day": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "3"}},
+                 "high": {"type": "DateTime",
+                          "year": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "2021"},
+                          "month": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "6"},
+                          "day": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "3"},
+                          "hour": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer", "value": "10"},
+                          "minute": {"type": "Literal", "valueType": "{urn:hl7-org:elm-types:r1}Integer",
+                                     "value": "30"}}}
+                """), emit(expression));
+    }
+
+    @Test
+    void unknownExpression() {
+        DefaultExpression expression = printContext -> "foo";
+
+        assertThrows(IllegalArgumentException.class, () -> emit(expression));
+    }
+
+    @Test
+    void library_ResultTypes() {
+        var alias = StandardIdentifierExpression.of("C");
+        var query = QueryExpression.of(SourceClause.of(AliasedQuerySource.of(RetrieveExpression.of("Condition",
+                CodeSelector.of("C71.1", "icd10")), alias)), WhereClause.of(OverlapsIntervalOperatorPhrase.of(
+                InvocationExpression.of(alias, "onset"), IntervalSelector.of(DateTimeExpression.of("2020"),
+                        DateTimeExpression.of("2021")))));
+        var container = Container.of(ExistsExpression.of(query)).moveToPatientContext("InInitialPopulation");
+
+        var statements = container.toElm().get("library").get("statements").get("def");
+
+        assertEquals("{http://hl7.org/fhir}Patient", statements.get(0).get("resultTypeName").asText());
+        var statement = statements.get(1);
+        assertEquals("{urn:hl7-org:elm-types:r1}Boolean", statement.get("resultTypeName").asText());
+        var source = statement.get("expression").get("operand");
+        assertEquals(mapper.createObjectNode().put("type", "ListTypeSpecifier").set("elementType",
+                        mapper.createObjectNode().put("type", "NamedTypeSpecifier")
+                                .put("name", "{http://hl7.org/fhir}Condition")),
+                source.get("resultTypeSpecifier"));
+        var overlaps = source.get("where");
+        assertEquals("{urn:hl7-org:elm-types:r1}Boolean", overlaps.get("resultTypeName").asText());
+        var period = overlaps.get("operand").get(0).get("operand").get(0);
+        assertEquals("{http://hl7.org/fhir}Period", period.get("resultTypeName").asText());
+        assertFalse(period.get("operand").has("resultTypeName"));
+        assertEquals("{urn:hl7-org:elm-types:r1}DateTime", overlaps.get("operand").get(1).get("resultTypeSpecifier")
+                .get("pointType").get("name").asText());
+    }
+
+    @ParameterizedTest
+    @MethodSource("de.numcodex.sq2cql.TranslatorTest#generators")
+    void roundTrip(QueryGenerator generator) {
+        var translator = Translator.of(generator.mappingContext()).withOptions(TranslationOption.DEFERRED_NAMING);
+
+        var container = translator.toCql(generator.structuredQuery());
+
+        assertEquals(container.print(), ElmReader.print(container));
+    }
+}
@@ -0,0 +1,247 @@
+package de.numcodex.sq2cql.model.cql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.numcodex.sq2cql.PrintContext;
+import de.numcodex.sq2cql.model.common.Comparator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the ELM JSON emitted by {@link Container#toElm()} back into CQL expressions and prints them, so that the ELM
+ * of a container can be compared with the CQL the container prints to.
+ * <p>
+ * The implicit conversions by FHIRHelpers functions are dropped, because they aren't part of the CQL.
+ */
+public final class ElmReader {
+
+    private static final String HEADER = """
+            library Retrieve version '1.0.0'
+            using FHIR version '4.0.0'
+            include FHIRHelpers version '4.0.0'
+            """;
+    private static final Map<String, Comparator> COMPARATORS = Map.of("Equal", Comparator.EQUAL,
+            "LessOrEqual", Comparator.LESS_EQUAL, "Less", Comparator.LESS_THAN,
+            "GreaterOrEqual", Comparator.GREATER_EQUAL, "Greater", Comparator.GREATER_THAN);
+    private static final Map<String, String> AGE_FUNCTIONS = Map.of("Year", "AgeInYears", "Month", "AgeInMonths",
+            "Week", "AgeInWeeks", "Day", "AgeInDays", "Hour", "AgeInHours");
+
+    private ElmReader() {
+    }
+
+    /**
+     * Prints the CQL library of the {@link Container#toElm() ELM} of {@code container}.
+     */
+    public static String print(Container<?> container) {
+        return print(container.toElm());
+    }
+
+    /**
+     * Prints the Patient context of the {@link Container#toElm() ELM} of {@code container}.
+     */
+    public static String printPatientContext(Container<?> container) {
+        return printPatientContext(container.toElm());
+    }
+
+    /**
+     * Prints the CQL library of {@code elm} like {@link Container#print()} prints it.
+     */
+    public static String print(JsonNode elm) {
+        var library = elm.get("library");
+        var cql = new StringBuilder(HEADER);
+        var codeSystems = library.path("codeSystems").path("def");
+        if (!codeSystems.isEmpty()) {
+            cql.append('\n');
+            codeSystems.forEach(codeSystem -> cql.append(CodeSystemDefinition.of(codeSystem.get("name").asText(),
+                    codeSystem.get("id").asText()).print()).append('\n'));
+        }
+        for (var context : library.get("contexts").get("def")) {
+            cql.append('\n').append(context(library, context.get("name").asText()));
+        }
+        return cql.toString();
+    }
+
+    /**
+     * Prints the Patient context of {@code elm} like {@link Container#printPatientContext()} prints it.
+     */
+    public static String printPatientContext(JsonNode elm) {
+        var library = elm.get("library");
+        for (var context : library.get("contexts").get("def")) {
+            if (context.get("name").asText().equals("Patient")) {
+                return context(library, "Patient");
+            }
+        }
+        return "";
+    }
+
+    private static String context(JsonNode library, String name) {
+        var definitions = new ArrayList<ExpressionDefinition>();
+        for (var statement : library.get("statements").get("def")) {
+            if (statement.get("context").asText().equals(name) && !statement.get("name").asText().equals("Patient")) {
+                definitions.add(ExpressionDefinition.of(statement.get("name").asText(),
+                        expression(statement.get("expression"))));
+            }
+        }
+        return Context.of(name, definitions).print(PrintContext.ZERO);
+    }
+
+    static Expression<?> expression(JsonNode node) {
+        var operands = node.path("operand");
+        return switch (node.get("type").asText()) {
+            case "Literal" -> literal(node);
+            case "ExpressionRef", "AliasRef" -> StandardIdentifierExpression.of(node.get("name").asText());
+            case "And" -> between(node).orElse(AndExpression.of(operand(operands, 0), operand(operands, 1)));
+            case "Or" -> OrExpression.of(operand(operands, 0), operand(operands, 1));
+            case "Union" -> UnionExpression.of(operand(operands, 0), operand(operands, 1));
+            case "Intersect" -> IntersectExpression.of(operand(operands, 0), operand(operands, 1));
+            case "Concatenate", "Add" -> AdditionExpressionTerm.of(operand(operands, 0), operand(operands, 1));
+            case "Not" -> NotExpression.of(defaultExpression(expression(operands)));
+            case "Exists" -> ExistsExpression.of(expression(operands));
+            case "In" -> MembershipExpression.in(expression(operands.get(0)), expression(operands.get(1)));
+            case "Contains" -> MembershipExpression.contains(expression(operands.get(0)), expression(operands.get(1)));
+            case "Equal", "LessOrEqual", "Less", "GreaterOrEqual", "Greater" -> ComparatorExpression.of(
+                    expression(operands.get(0)), COMPARATORS.get(node.get("type").asText()),
+                    expression(operands.get(1)));
+            case "Overlaps" -> OverlapsIntervalOperatorPhrase.of(expression(operands.get(0)),
+                    expression(operands.get(1)));
+            case "Interval" -> IntervalSelector.of(expression(node.get("low")), expression(node.get("high")));
+            case "List" -> ListSelector.of(StreamSupport.stream(node.get("element").spliterator(), false)
+                    .map(element -> defaultExpression(expression(element))).toList());
+            case "Property" -> property(node);
+            case "As" -> TypeExpression.of(expression(operands), node.get("asType").asText()
+                    .substring(node.get("asType").asText().indexOf('}') + 1));
+            case "CalculateAge" -> FunctionInvocation.of(AGE_FUNCTIONS.get(node.get("precision").asText()),
+                    List.of());
+            case "ToDate" -> FunctionInvocation.of("ToDate", List.of(defaultExpression(expression(operands))));
+            case "ToDateTime" -> expression(operands);
+            case "FunctionRef" -> isConversion(node) ? conversionOperand(node) : FunctionInvocation.of((node.has("libraryName")
+                            ? node.get("libraryName").asText() + "." : "") + node.get("name").asText(),
+                    StreamSupport.stream(operands.spliterator(), false)
+                            .map(operand -> defaultExpression(expression(operand))).toList());
+            case "Quantity" -> QuantityExpression.of(node.get("value").decimalValue(), node.get("unit").asText());
+            case "Date", "DateTime" -> dateTime(node);
+            case "Code" -> CodeSelector.of(node.get("code").asText(), node.get("system").get("name").asText());
+            case "ToList" -> expression(operands);
+            case "Retrieve" -> RetrieveExpression.of(node.get("dataType").asText()
+                            .substring(node.get("dataType").asText().indexOf('}') + 1),
+                    node.has("codes") ? expression(node.get("codes")) : null);
+            case "Query" -> isElementConversion(node) ? expression(node.get("source").get(0).get("expression"))
+                    : query(node);
+            default -> throw new IllegalArgumentException("unknown ELM node type: " + node.get("type"));
+        };
+    }
+
+    private static boolean isConversion(JsonNode node) {
+        return node.path("libraryName").asText().equals("FHIRHelpers") && node.get("name").asText().startsWith("To")
+                && node.get("operand").size() == 1;
+    }
+
+    /**
+     * Reads the operand of the conversion {@code node}, dropping the cast of a choice to {@code Period}, which
+     * {@code ToInterval} converts.
+     */
+    private static Expression<?> conversionOperand(JsonNode node) {
+        var operand = node.get("operand").get(0);
+        return node.get("name").asText().equals("ToInterval") && operand.get("type").asText().equals("As")
+                ? expression(operand.get("operand")) : expression(operand);
+    }
+
+    /**
+     * Returns whether {@code node} is the query converting the elements of a list.
+     */
+    private static boolean isElementConversion(JsonNode node) {
+        var returnExpression = node.path("return").path("expression");
+        return node.get("source").size() == 1 && !node.has("where") && node.path("relationship").isEmpty()
+                && !node.path("return").path("distinct").asBoolean(true) && isConversion(returnExpression)
+                && returnExpression.get("operand").get(0).path("type").asText().equals("AliasRef")
+                && returnExpression.get("operand").get(0).get("name").equals(node.get("source").get(0).get("alias"));
+    }
+
+    private static Expression<?> literal(JsonNode node) {
+        var value = node.get("value").asText();
+        return switch (node.get("valueType").asText().substring(node.get("valueType").asText().indexOf('}') + 1)) {
+            case "Boolean" -> value.equals("true") ? Expression.TRUE : Expression.FALSE;
+            case "String" -> StringLiteralExpression.of(value);
+            default -> QuantityExpression.of(new BigDecimal(value));
+        };
+    }
+
+    /**
+     * Reads the two comparisons {@code between} is expanded into back into a {@link BetweenExpression}.
+     */
+    private static Optional<DefaultExpression> between(JsonNode node) {
+        var lower = node.get("operand").get(0);
+        var upper = node.get("operand").get(1);
+        if (lower.get("type").asText().equals("GreaterOrEqual") && upper.get("type").asText().equals("LessOrEqual")
+                && lower.get("operand").get(0).equals(upper.get("operand").get(0))) {
+            return Optional.of(BetweenExpression.of(expression(lower.get("operand").get(0)),
+                    expression(lower.get("operand").get(1)), expression(upper.get("operand").get(1))));
+        }
+        return Optional.empty();
+    }
+
+    private static Expression<?> property(JsonNode node) {
+        var source = node.has("scope") ? StandardIdentifierExpression.of(node.get("scope").asText())
+                : expression(node.get("source"));
+        return InvocationExpression.of(source, node.get("path").asText());
+    }
+
+    private static Expression<?> dateTime(JsonNode node) {
+        var dateTime = new StringBuilder(node.get("year").get("value").asText());
+        if (node.has("month")) {
+            dateTime.append("-%02d".formatted(node.get("month").get("value").asInt()));
+        }
+        if (node.has("day")) {
+            dateTime.append("-%02d".formatted(node.get("day").get("value").asInt()));
+        }
+        if (node.get("type").asText().equals("DateTime")) {
+            dateTime.append('T');
+            var separator = "";
+            for (var component : List.of("hour", "minute", "second")) {
+                if (node.has(component)) {
+                    dateTime.append(separator).append("%02d".formatted(node.get(component).get("value").asInt()));
+                    separator = ":";
+                }
+            }
+            if (node.has("millisecond")) {
+                dateTime.append(".%03d".formatted(node.get("millisecond").get("value").asInt()));
+            }
+        }
+        return DateTimeExpression.of(dateTime.toString());
+    }
+
+    private static Expression<?> query(JsonNode node) {
+        var query = QueryExpression.of(SourceClause.of(aliasedQuerySource(node.get("source").get(0))));
+        for (var relationship : node.path("relationship")) {
+            query = query.appendQueryInclusionClause(WithClause.of(aliasedQuerySource(relationship),
+                    expression(relationship.get("suchThat"))));
+        }
+        if (node.has("where")) {
+            var where = defaultExpression(expression(node.get("where")));
+            query = query.updateWhereClauseExpr(expression -> where);
+        }
+        if (node.has("return")) {
+            query = new QueryExpression(query.sourceClause(), query.queryInclusionClauses(), query.whereClause(),
+                    ReturnClause.of(expression(node.get("return").get("expression"))));
+        }
+        return query;
+    }
+
+    private static AliasedQuerySource aliasedQuerySource(JsonNode node) {
+        return AliasedQuerySource.of(expression(node.get("expression")),
+                StandardIdentifierExpression.of(node.get("alias").asText()));
+    }
+
+    private static DefaultExpression operand(JsonNode operands, int index) {
+        return defaultExpression(expression(operands.get(index)));
+    }
+
+    private static DefaultExpression defaultExpression(Expression<?> expression) {
+        return expression instanceof DefaultExpression defaultExpression ? defaultExpression
+                : new WrapperExpression(expression);
+    }
+}
@@ -0,0 +1,66 @@
+package de.numcodex.sq2cql.model.cql;
+
+import de.numcodex.sq2cql.PrintContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExpressionRewriterTest {
+
+    static final ExpressionRewriter IDENTITY = new ExpressionRewriter() {
+        @Override
+        public <T extends Expression<T>> T rewrite(T expression) {
+            return expression;
+        }
+    };
+
+    static final ExpressionRewriter FALSE_TO_TRUE = new ExpressionRewriter() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Expression<T>> T rewrite(T expression) {
+            return expression == Expression.FALSE ? (T) Expression.TRUE : expression;
+        }
+    };
+
+    private final AliasedQuerySource source = AliasedQuerySource.of(RetrieveExpression.of("Observation",
+            CodeSelector.of("72166-2", "loinc")), StandardIdentifierExpression.of("O"));
+    private final ExistsExpression left = ExistsExpression.of(QueryExpression.of(SourceClause.of(source),
+            WhereClause.of(MembershipExpression.in(InvocationExpression.of(StandardIdentifierExpression.of("O"),
+                    "status"), Expression.FALSE))));
+    private final ExistsExpression right = ExistsExpression.of(QueryExpression.of(SourceClause.of(source),
+            WhereClause.of(Expression.TRUE)));
+
+    @Test
+    void rewrite_Unchanged() {
+        var expression = OrExpression.of(left, right);
+
+        assertSame(expression, expression.rewrite(IDENTITY));
+    }
+
+    @Test
+    void rewrite_CopiesOnlyChangedPath() {
+        var expression = (OrExpression) OrExpression.of(left, right);
+
+        var rewritten = (OrExpression) expression.rewrite(FALSE_TO_TRUE);
+
+        assertSame(right, ((WrapperExpression) rewritten.expressions().get(1)).expression());
+        var rewrittenLeft = (ExistsExpression) ((WrapperExpression) rewritten.expressions().get(0)).expression();
+        assertSame(source, ((QueryExpression) rewrittenLeft.expression()).sourceClause().source());
+        assertEquals("""
+                exists (from [Observation: Code '72166-2' from loinc] O
+                  where O.status in true) or
+                exists [Observation: Code '72166-2' from loinc]""", rewritten.print(PrintContext.ZERO));
+    }
+
+    @Test
+    void withIncrementedSuffixes_InsideInvocation() {
+        var expression = InvocationExpression.of(SuffixedIdentifierExpression.of("Criterion", 1), "value");
+
+        var incremented = expression.withIncrementedSuffixes(Map.of("Criterion", 2));
+
+        assertEquals("\"Criterion 3\".value", incremented.print(PrintContext.ZERO));
+    }
+}
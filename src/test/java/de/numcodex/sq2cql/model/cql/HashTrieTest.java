@@ -0,0 +1,81 @@
+package de.numcodex.sq2cql.model.cql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashTrieTest {
+
+    /**
+     * A key with a given hash code to provoke collisions.
+     */
+    record Key(String name, int hash) {
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void plus_manyKeys() {
+        HashTrie<Integer, String> trie = HashTrie.empty();
+        for (int i = 0; i < 10_000; i++) {
+            trie = trie.plus(i, "v" + i);
+        }
+
+        assertThat(trie.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(trie.get(i)).isEqualTo("v" + i);
+        }
+        assertThat(trie.get(10_000)).isNull();
+    }
+
+    @Test
+    void plus_replacesValue() {
+        var trie = HashTrie.<String, String>empty().plus("a", "1");
+
+        var replaced = trie.plus("a", "2");
+
+        assertThat(replaced.size()).isOne();
+        assertThat(replaced.get("a")).isEqualTo("2");
+        assertThat(trie.get("a")).isEqualTo("1");
+    }
+
+    @Test
+    void plus_sameValueReturnsSameTrie() {
+        var trie = HashTrie.<String, String>empty().plus("a", "1");
+
+        assertThat(trie.plus("a", "1")).isSameAs(trie);
+    }
+
+    @Test
+    void plus_collisions() {
+        HashTrie<Key, Integer> trie = HashTrie.empty();
+        for (int i = 0; i < 10; i++) {
+            trie = trie.plus(new Key("k" + i, i % 2 == 0 ? 42 : 42 | (1 << 31)), i);
+        }
+
+        assertThat(trie.size()).isEqualTo(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(trie.get(new Key("k" + i, i % 2 == 0 ? 42 : 42 | (1 << 31)))).isEqualTo(i);
+        }
+        assertThat(trie.get(new Key("k10", 42))).isNull();
+    }
+
+    @Test
+    void plusAll() {
+        var a = HashTrie.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        var b = HashTrie.<String, Integer>empty().plus("b", 3).plus("c", 4);
+
+        var union = a.plusAll(b);
+
+        var entries = new HashMap<String, Integer>();
+        union.forEach(entries::put);
+        assertThat(entries).isEqualTo(Map.of("a", 1, "b", 3, "c", 4));
+        assertThat(union.size()).isEqualTo(3);
+    }
+}
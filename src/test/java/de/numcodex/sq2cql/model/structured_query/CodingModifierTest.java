@@ -17,6 +17,8 @@ class CodingModifierTest {
 
     static final TermCode CONFIRMED = TermCode.of("http://terminology.hl7.org/CodeSystem/condition-ver-status",
             "confirmed", "Conformed");
+    static final TermCode PROVISIONAL = TermCode.of("http://terminology.hl7.org/CodeSystem/condition-ver-status",
+            "provisional", "Provisional");
 
     static final Map<String, String> CODE_SYSTEM_ALIASES = Map.of(
             "http://terminology.hl7.org/CodeSystem/condition-ver-status", "ver_status");
@@ -32,4 +34,16 @@ class CodingModifierTest {
         assertEquals("C.verificationStatus.coding contains Code 'confirmed' from ver_status",
                 expression.getExpression().map(PrintContext.ZERO::print).orElse(""));
     }
+
+    @Test
+    void expression_WithTwoConcepts() {
+        var modifier = CodingModifier.of("verificationStatus.coding", CONFIRMED, PROVISIONAL);
+
+        var expression = modifier.expression(MAPPING_CONTEXT, StandardIdentifierExpression.of("C"));
+
+        assertEquals("exists (C.verificationStatus.coding intersect { Code 'confirmed' from ver_status, " +
+                        "Code 'provisional' from ver_status })",
+                expression.getExpression().map(PrintContext.ZERO::print).orElse(""));
+        assertEquals(1, expression.getCodeSystemDefinitions().size());
+    }
 }
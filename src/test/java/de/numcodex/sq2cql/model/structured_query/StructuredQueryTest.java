@@ -5,8 +5,14 @@ import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
 import de.numcodex.sq2cql.model.common.TermCode;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static de.numcodex.sq2cql.model.common.Comparator.LESS_THAN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Alexander Kiel
@@ -175,4 +181,94 @@ class StructuredQueryTest {
         assertEquals(ContextualConcept.of(TC_1), structuredQuery.inclusionCriteria().get(0).get(0).getConcept());
         assertEquals(ContextualConcept.of(TC_2), structuredQuery.exclusionCriteria().get(0).get(0).getConcept());
     }
+
+    @Test
+    void fingerprint_isIndependentOfCriteriaOrder() {
+        var criterion1 = ConceptCriterion.of(ContextualConcept.of(TC_1));
+        var criterion2 = ConceptCriterion.of(ContextualConcept.of(TC_2));
+
+        assertEquals(StructuredQuery.of(List.of(List.of(criterion1, criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion2, criterion1))).fingerprint());
+        assertEquals(StructuredQuery.of(List.of(List.of(criterion1), List.of(criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion2), List.of(criterion1))).fingerprint());
+    }
+
+    @Test
+    void fingerprint_isIndependentOfValues() {
+        var query1 = StructuredQuery.of(List.of(List.of(NumericCriterion.of(ContextualConcept.of(TC_1), LESS_THAN,
+                BigDecimal.ONE))));
+        var query2 = StructuredQuery.of(List.of(List.of(NumericCriterion.of(ContextualConcept.of(TC_1), LESS_THAN,
+                BigDecimal.TEN))));
+
+        assertEquals(query1.fingerprint(), query2.fingerprint());
+    }
+
+    @Test
+    void fingerprint_differsInShape() {
+        var criterion1 = ConceptCriterion.of(ContextualConcept.of(TC_1));
+        var criterion2 = ConceptCriterion.of(ContextualConcept.of(TC_2));
+
+        var fingerprints = Set.of(
+                StructuredQuery.of(List.of(List.of(criterion1))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion1, criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion1), List.of(criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(criterion1)), List.of(List.of(criterion2))).fingerprint(),
+                StructuredQuery.of(List.of(List.of(ValueSetCriterion.of(ContextualConcept.of(TC_1), TC_2_TC))))
+                        .fingerprint());
+
+        assertEquals(6, fingerprints.size());
+    }
+
+    @Test
+    void fingerprint_hasSixteenHexDigits() {
+        var fingerprint = StructuredQuery.of(List.of(List.of(ConceptCriterion.of(ContextualConcept.of(TC_1)))))
+                .fingerprint();
+
+        assertTrue(fingerprint.matches("[0-9a-f]{16}"), fingerprint);
+    }
+
+    @Test
+    void simplify_removesDuplicateCriteriaAndGroups() {
+        var query = StructuredQuery.of(List.of(
+                List.of(ConceptCriterion.of(ContextualConcept.of(TC_1)), ConceptCriterion.of(ContextualConcept.of(TC_1))),
+                List.of(ConceptCriterion.of(ContextualConcept.of(TC_1)))));
+
+        assertEquals(StructuredQuery.of(List.of(List.of(ConceptCriterion.of(ContextualConcept.of(TC_1))))),
+                query.simplify());
+    }
+
+    @Test
+    void simplify_absorbsSupersetGroups() {
+        var criterion1 = ConceptCriterion.of(ContextualConcept.of(TC_1));
+        var criterion2 = ConceptCriterion.of(ContextualConcept.of(TC_2));
+        var query = StructuredQuery.of(List.of(List.of(criterion2, criterion1), List.of(criterion1)),
+                List.of(List.of(criterion1, criterion2), List.of(criterion2)));
+
+        assertEquals(StructuredQuery.of(List.of(List.of(criterion1)), List.of(List.of(criterion2))),
+                query.simplify());
+    }
+
+    @Test
+    void simplify_keepsCriteriaWithDifferentValues() {
+        var criterion1 = NumericCriterion.of(ContextualConcept.of(TC_1), LESS_THAN, BigDecimal.ONE);
+        var criterion2 = NumericCriterion.of(ContextualConcept.of(TC_1), LESS_THAN, BigDecimal.TEN);
+        var query = StructuredQuery.of(List.of(List.of(criterion1, criterion2)));
+
+        assertEquals(query, query.simplify());
+    }
+
+    @Test
+    void simplify_foldsConstants() {
+        var criterion1 = ConceptCriterion.of(ContextualConcept.of(TC_1));
+        var criterion2 = ConceptCriterion.of(ContextualConcept.of(TC_2));
+
+        assertEquals(StructuredQuery.of(List.of(List.of(criterion2)), List.of(List.of(criterion1))),
+                StructuredQuery.of(List.of(List.of(criterion1, Criterion.TRUE), List.of(criterion2, Criterion.FALSE)),
+                        List.of(List.of(Criterion.TRUE, criterion1), List.of(criterion2, Criterion.FALSE))).simplify());
+        assertEquals(StructuredQuery.of(List.of(List.of(Criterion.TRUE))),
+                StructuredQuery.of(List.of(List.of(criterion1, Criterion.TRUE))).simplify());
+        assertEquals(StructuredQuery.of(List.of(List.of(Criterion.FALSE))),
+                StructuredQuery.of(List.of(List.of(criterion1)), List.of(List.of(Criterion.TRUE))).simplify());
+    }
 }
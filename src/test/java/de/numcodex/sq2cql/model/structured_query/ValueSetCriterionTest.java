@@ -348,8 +348,7 @@ class ValueSetCriterionTest {
                                 
                 define Criterion:
                   exists (from [Observation: Code '76689-9' from loinc] O
-                    where O.value.coding contains Code 'male' from gender or
-                      O.value.coding contains Code 'female' from gender)
+                    where exists (O.value.coding intersect { Code 'male' from gender, Code 'female' from gender }))
                 """);
     }
 
@@ -489,8 +488,7 @@ class ValueSetCriterionTest {
                 context Patient
                                 
                 define Criterion:
-                  Patient.gender = 'male' or
-                  Patient.gender = 'female'
+                  Patient.gender in { 'male', 'female' }
                 """);
     }
 }